@@ -0,0 +1,102 @@
+package com.edmazur.eqlp;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads a whole generated log end to end. The events counter reports events
+ * per second; run with "-prof gc" for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EqLogBenchmarks {
+
+  @Param({"67108864"})
+  public long logSize;
+
+  private SyntheticLog syntheticLog;
+  private ForkJoinPool forkJoinPool;
+
+  /**
+   * Counts dispatched events across a measurement iteration.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class EventCounter {
+
+    public long events;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      events = 0;
+    }
+
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    syntheticLog = SyntheticLog.create(logSize);
+    forkJoinPool = new ForkJoinPool();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    forkJoinPool.shutdown();
+    syntheticLog.delete();
+  }
+
+  @Benchmark
+  public void run(EventCounter eventCounter) {
+    EqLog eqLog = createEqLog();
+    eqLog.addListener(eqLogEvent -> eventCounter.events++);
+    eqLog.run();
+  }
+
+  @Benchmark
+  public void replayOrdered(EventCounter eventCounter) throws IOException {
+    EqLog eqLog = createEqLog();
+    eqLog.addListener(eqLogEvent -> eventCounter.events++);
+    eqLog.replay(forkJoinPool, true);
+  }
+
+  @Benchmark
+  public void replayUnordered(EventCounter eventCounter) throws IOException {
+    EqLog eqLog = createEqLog();
+    // Listeners are called concurrently, so count per replay instead.
+    LongAdder events = new LongAdder();
+    eqLog.addListener(eqLogEvent -> events.increment());
+    eqLog.replay(forkJoinPool, false);
+    eventCounter.events += events.sum();
+  }
+
+  private EqLog createEqLog() {
+    return new EqLog(
+        syntheticLog.getEqInstallDirectory(),
+        SyntheticLog.TIMEZONE,
+        SyntheticLog.SERVER,
+        SyntheticLog.CHARACTER,
+        syntheticLog.getFirstTimestamp(),
+        syntheticLog.getLastTimestamp());
+  }
+
+}
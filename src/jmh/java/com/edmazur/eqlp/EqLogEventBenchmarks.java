@@ -0,0 +1,63 @@
+package com.edmazur.eqlp;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures EqLogEvent.parseFromLine() throughput, in lines per second. As in
+ * a real log, a few of the lines are blank or malformed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EqLogEventBenchmarks {
+
+  private static final int LINE_COUNT = 4096;
+
+  private String[] lines;
+  private EqLogTimestampCache timestampCache;
+
+  @Setup
+  public void setUp() {
+    lines = SyntheticLog.generateLines(LINE_COUNT);
+    timestampCache = new EqLogTimestampCache();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINE_COUNT)
+  public void parseFromLine(Blackhole blackhole) {
+    for (String line : lines) {
+      blackhole.consume(EqLogEvent.parseFromLine(line, timestampCache));
+    }
+  }
+
+  // Also reads the fields, for comparison with listeners that ignore them.
+  @Benchmark
+  @OperationsPerInvocation(LINE_COUNT)
+  public void parseFromLineAndRead(Blackhole blackhole) {
+    for (String line : lines) {
+      Optional<EqLogEvent> maybeEqLogEvent =
+          EqLogEvent.parseFromLine(line, timestampCache);
+      if (maybeEqLogEvent.isPresent()) {
+        blackhole.consume(maybeEqLogEvent.get().getTimestamp());
+        blackhole.consume(maybeEqLogEvent.get().getPayload());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+package com.edmazur.eqlp;
+
+import com.edmazur.eqlp.file.BinarySearchLogSeeker;
+import com.edmazur.eqlp.file.IndexedLogSeeker;
+import com.edmazur.eqlp.file.InterpolationSearchLogSeeker;
+import com.edmazur.eqlp.file.JumpSearchLogSeeker;
+import com.edmazur.eqlp.file.LinearSearchLogSeeker;
+import com.edmazur.eqlp.file.LogSeeker;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times each LogSeeker strategy seeking to several points in a generated log.
+ * Replaces the single-shot timings in LogSeekerBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogSeekerBenchmarks {
+
+  @Param({"linear", "jump", "binary", "interpolation", "indexed"})
+  public String strategy;
+
+  // How far through the log's time range to seek to.
+  @Param({"0.0", "0.5", "0.99", "1.0"})
+  public double position;
+
+  @Param({"67108864"})
+  public long logSize;
+
+  private SyntheticLog syntheticLog;
+  private LogSeeker logSeeker;
+  private Instant seekStart;
+
+  @Setup
+  public void setUp() throws IOException {
+    syntheticLog = SyntheticLog.create(logSize);
+    logSeeker = createLogSeeker(syntheticLog.getLogFile());
+    Instant first = syntheticLog.getFirstTimestamp();
+    long rangeMillis =
+        Duration.between(first, syntheticLog.getLastTimestamp()).toMillis();
+    seekStart = first.plusMillis((long) (rangeMillis * position));
+    // Builds the index (if any) so only lookups are measured.
+    logSeeker.seekPosition(seekStart);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    syntheticLog.delete();
+  }
+
+  @Benchmark
+  public long seekPosition() throws IOException {
+    return logSeeker.seekPosition(seekStart);
+  }
+
+  private LogSeeker createLogSeeker(File log) {
+    switch (strategy) {
+      case "linear":
+        return new LinearSearchLogSeeker(
+            log, EqLogEvent.LINE_PATTERN, EqLogEvent.TIMESTAMP_FORMAT, SyntheticLog.TIMEZONE);
+      case "jump":
+        return new JumpSearchLogSeeker(
+            log, EqLogEvent.LINE_PATTERN, EqLogEvent.TIMESTAMP_FORMAT, SyntheticLog.TIMEZONE);
+      case "binary":
+        return new BinarySearchLogSeeker(
+            log, EqLogEvent.LINE_PATTERN, EqLogEvent.TIMESTAMP_FORMAT, SyntheticLog.TIMEZONE);
+      case "interpolation":
+        return new InterpolationSearchLogSeeker(
+            log, EqLogEvent.LINE_PATTERN, EqLogEvent.TIMESTAMP_FORMAT, SyntheticLog.TIMEZONE);
+      case "indexed":
+        return new IndexedLogSeeker(
+            log, EqLogEvent.LINE_PATTERN, EqLogEvent.TIMESTAMP_FORMAT, SyntheticLog.TIMEZONE);
+      default:
+        throw new IllegalArgumentException("Unknown strategy " + strategy);
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+package com.edmazur.eqlp;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic generated log for benchmarks, so results don't depend on
+ * whose game data is lying around. Lines come from EqLogGenerator with a
+ * fixed seed, so include its long lines, blank and malformed lines, combat
+ * bursts and multi-day gaps.
+ */
+final class SyntheticLog {
+
+  static final ZoneId TIMEZONE = ZoneOffset.UTC;
+  static final String SERVER = "green";
+  static final String CHARACTER = "Bench";
+
+  private static final long SEED = 0;
+
+  // Log timestamps are always in English.
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+      EqLogEvent.TIMESTAMP_FORMAT.withLocale(Locale.US);
+
+  private final Path eqInstallDirectory;
+  private final File logFile;
+  private final Instant firstTimestamp;
+  private final Instant lastTimestamp;
+
+  private SyntheticLog(
+      Path eqInstallDirectory,
+      File logFile,
+      Instant firstTimestamp,
+      Instant lastTimestamp) {
+    this.eqInstallDirectory = eqInstallDirectory;
+    this.logFile = logFile;
+    this.firstTimestamp = firstTimestamp;
+    this.lastTimestamp = lastTimestamp;
+  }
+
+  /**
+   * Writes a log of roughly the given size to a new temporary EQ install
+   * directory. The log ends with a line a year past the rest, so EqLog.run()
+   * with parseEnd set to getLastTimestamp() returns at the end of the file.
+   */
+  static SyntheticLog create(long size) throws IOException {
+    Path eqInstallDirectory = Files.createTempDirectory("eqlp-jmh");
+    Path logsDirectory = eqInstallDirectory.resolve(EqLog.LOGS_DIRECTORY);
+    Files.createDirectories(logsDirectory);
+    Path log = logsDirectory.resolve(
+        new EqLogSource(SERVER, CHARACTER).getLogFileName());
+    LocalDateTime timestamp;
+    try (OutputStream out = new BufferedOutputStream(
+        Files.newOutputStream(log), 1024 * 1024)) {
+      timestamp = new EqLogGenerator(new Random(SEED), out).writeHistory(size);
+      out.write(("[" + TIMESTAMP_FORMAT.format(timestamp.plusYears(1))
+          + "] Stanvern has logged off.\r\n").getBytes(StandardCharsets.ISO_8859_1));
+    }
+    return new SyntheticLog(
+        eqInstallDirectory,
+        log.toFile(),
+        EqLogGenerator.HISTORY_START.atZone(TIMEZONE).toInstant(),
+        timestamp.atZone(TIMEZONE).toInstant());
+  }
+
+  /**
+   * Generates lines in the same style as create(), without writing them.
+   * Like a real log, some of them are blank or malformed.
+   */
+  static String[] generateLines(int count) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      new EqLogGenerator(new Random(SEED), out).writeHistory(Long.MAX_VALUE, count);
+    } catch (IOException e) {
+      // ByteArrayOutputStream doesn't throw.
+      throw new UncheckedIOException(e);
+    }
+    String[] lines = out.toString(StandardCharsets.ISO_8859_1).split("\r\n", -1);
+    return Arrays.copyOf(lines, count);
+  }
+
+  Path getEqInstallDirectory() {
+    return eqInstallDirectory;
+  }
+
+  File getLogFile() {
+    return logFile;
+  }
+
+  Instant getFirstTimestamp() {
+    return firstTimestamp;
+  }
+
+  Instant getLastTimestamp() {
+    return lastTimestamp;
+  }
+
+  void delete() throws IOException {
+    try (Stream<Path> paths = Files.walk(eqInstallDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+}
@@ -0,0 +1,134 @@
+package com.edmazur.eqlp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton for finding which of a set of ASCII literals occur in
+ * a string, in a single pass over the string. Literals can be anchored, in
+ * which case they only match at the start of the string.
+ */
+class AhoCorasick {
+
+  private static final int ALPHABET_SIZE = 128;
+
+  // transitions[state][c] is the state after reading c in state. Failure links
+  // are folded in, so matching never backtracks.
+  private final int[][] transitions;
+  // Ids of the literals ending at each state, including via failure links.
+  private final int[][] outputs;
+  private final int[] lengths;
+  private final boolean[] anchored;
+  // Nothing can match past this index of the string.
+  private final int scanLimit;
+
+  /**
+   * Builds an automaton. Literals are identified by their index.
+   *
+   * @throws IllegalArgumentException If any literal has non-ASCII characters.
+   */
+  AhoCorasick(List<String> literals, boolean[] anchored) {
+    this.lengths = new int[literals.size()];
+    this.anchored = anchored.clone();
+    List<int[]> transitions = new ArrayList<int[]>();
+    List<int[]> outputs = new ArrayList<int[]>();
+    transitions.add(newState());
+    outputs.add(new int[0]);
+
+    // Build the trie, using 0 (the root) to mean "no transition" for now.
+    int scanLimit = 0;
+    for (int id = 0; id < literals.size(); id++) {
+      String literal = literals.get(id);
+      lengths[id] = literal.length();
+      scanLimit = Math.max(
+          scanLimit, anchored[id] ? literal.length() : Integer.MAX_VALUE);
+      int state = 0;
+      for (int i = 0; i < literal.length(); i++) {
+        char c = literal.charAt(i);
+        if (c >= ALPHABET_SIZE) {
+          throw new IllegalArgumentException("Not ASCII: " + literal);
+        }
+        if (transitions.get(state)[c] == 0) {
+          transitions.get(state)[c] = transitions.size();
+          transitions.add(newState());
+          outputs.add(new int[0]);
+        }
+        state = transitions.get(state)[c];
+      }
+      outputs.set(state, append(outputs.get(state), id));
+    }
+    this.scanLimit = scanLimit;
+
+    // Breadth-first, set each state's missing transitions to those of its
+    // failure state, and inherit the failure state's outputs.
+    int[] failures = new int[transitions.size()];
+    Deque<Integer> queue = new ArrayDeque<Integer>();
+    for (int c = 0; c < ALPHABET_SIZE; c++) {
+      int child = transitions.get(0)[c];
+      if (child != 0) {
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.remove();
+      int[] outputsSoFar = outputs.get(state);
+      for (int id : outputs.get(failures[state])) {
+        outputsSoFar = append(outputsSoFar, id);
+      }
+      outputs.set(state, outputsSoFar);
+      for (int c = 0; c < ALPHABET_SIZE; c++) {
+        int child = transitions.get(state)[c];
+        int fallback = transitions.get(failures[state])[c];
+        if (child == 0) {
+          transitions.get(state)[c] = fallback;
+        } else {
+          failures[child] = fallback;
+          queue.add(child);
+        }
+      }
+    }
+    this.transitions = transitions.toArray(new int[0][]);
+    this.outputs = outputs.toArray(new int[0][]);
+  }
+
+  /**
+   * Finds which literals occur in text, starting at the given index.
+   *
+   * @param text The text to search.
+   * @param start Index to start searching at. Anchored literals must occur
+   *     here.
+   * @param matched Set to true at the index of each literal found. Entries for
+   *     literals not found are left unchanged.
+   */
+  void match(CharSequence text, int start, boolean[] matched) {
+    int state = 0;
+    for (int id : outputs[0]) {
+      matched[id] = true;
+    }
+    int end = start + Math.min(text.length() - start, scanLimit);
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      // Nothing can match across a non-ASCII character.
+      state = c < ALPHABET_SIZE ? transitions[state][c] : 0;
+      for (int id : outputs[state]) {
+        if (!anchored[id] || i + 1 - start == lengths[id]) {
+          matched[id] = true;
+        }
+      }
+    }
+  }
+
+  private static int[] newState() {
+    return new int[ALPHABET_SIZE];
+  }
+
+  private static int[] append(int[] array, int value) {
+    int[] appended = Arrays.copyOf(array, array.length + 1);
+    appended[array.length] = value;
+    return appended;
+  }
+
+}
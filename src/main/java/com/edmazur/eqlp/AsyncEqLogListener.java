@@ -0,0 +1,265 @@
+package com.edmazur.eqlp;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wraps a listener so that it's called on its own thread, fed from a bounded
+ * ring buffer. A slow listener (e.g. one posting to a webhook) then only
+ * delays itself rather than the reader thread and every other listener.
+ *
+ * <p>close() should be called once the reader is done to deliver any
+ * buffered events and stop the listener thread.
+ */
+public class AsyncEqLogListener implements EqLogListener, AutoCloseable {
+
+  /**
+   * What to do with a new event when the buffer is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * Block the reader thread until there is room.
+     */
+    BLOCK,
+    /**
+     * Discard the oldest buffered event to make room.
+     */
+    DROP_OLDEST,
+    /**
+     * Discard the new event.
+     */
+    DROP_NEWEST,
+  }
+
+  private final EqLogListener eqLogListener;
+  private final OverflowPolicy overflowPolicy;
+  private final Thread thread;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  // Guarded by lock.
+  private final EqLogEvent[] buffer;
+  private int head = 0;
+  private int size = 0;
+  private int maxSize = 0;
+  private long droppedCount = 0;
+  private boolean closed = false;
+  // Set once the listener thread has stopped, and why if it died (e.g. from
+  // an Error thrown by the listener) rather than finishing after close().
+  private boolean stopped = false;
+  private Throwable failure = null;
+
+  /**
+   * Wraps a listener, calling it from a new daemon thread.
+   *
+   * @param eqLogListener The listener to wrap.
+   * @param capacity Maximum number of events to buffer.
+   * @param overflowPolicy What to do with events when the buffer is full.
+   */
+  public AsyncEqLogListener(
+      EqLogListener eqLogListener,
+      int capacity,
+      OverflowPolicy overflowPolicy) {
+    this(eqLogListener, capacity, overflowPolicy, runnable -> {
+      Thread thread = new Thread(runnable, "AsyncEqLogListener");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Wraps a listener, calling it from a thread made by threadFactory. On Java
+   * 21+, pass Thread.ofVirtual().factory() to use a virtual thread.
+   *
+   * @param eqLogListener The listener to wrap.
+   * @param capacity Maximum number of events to buffer.
+   * @param overflowPolicy What to do with events when the buffer is full.
+   * @param threadFactory Makes the thread to call the listener from.
+   */
+  public AsyncEqLogListener(
+      EqLogListener eqLogListener,
+      int capacity,
+      OverflowPolicy overflowPolicy,
+      ThreadFactory threadFactory) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.eqLogListener = eqLogListener;
+    this.overflowPolicy = overflowPolicy;
+    this.buffer = new EqLogEvent[capacity];
+    this.thread = threadFactory.newThread(this::deliver);
+    thread.start();
+  }
+
+  @Override
+  public void onEvent(EqLogEvent eqLogEvent) {
+    lock.lock();
+    try {
+      checkAccepting();
+      if (size == buffer.length) {
+        switch (overflowPolicy) {
+          case BLOCK:
+            while (size == buffer.length) {
+              notFull.awaitUninterruptibly();
+              // Nothing would deliver the event if the listener was closed or
+              // its thread died in the meantime.
+              checkAccepting();
+            }
+            break;
+          case DROP_OLDEST:
+            buffer[head] = null;
+            head = (head + 1) % buffer.length;
+            size--;
+            droppedCount++;
+            break;
+          case DROP_NEWEST:
+            droppedCount++;
+            return;
+          default:
+            throw new IllegalStateException(
+                "Unknown overflow policy " + overflowPolicy);
+        }
+      }
+      buffer[(head + size) % buffer.length] = eqLogEvent;
+      size++;
+      maxSize = Math.max(maxSize, size);
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Delivers any buffered events and then stops the listener thread.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      notEmpty.signal();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the number of events currently buffered.
+   */
+  public int getQueueDepth() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the largest number of events that have been buffered at once.
+   */
+  public int getMaxQueueDepth() {
+    lock.lock();
+    try {
+      return maxSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getCapacity() {
+    return buffer.length;
+  }
+
+  /**
+   * Returns the number of events discarded due to the buffer being full.
+   */
+  public long getDroppedCount() {
+    lock.lock();
+    try {
+      return droppedCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Throws if events can no longer be delivered. Must hold lock.
+  private void checkAccepting() {
+    if (closed) {
+      throw new IllegalStateException("Listener is closed");
+    }
+    if (stopped) {
+      throw new IllegalStateException("Listener thread has died", failure);
+    }
+  }
+
+  // Runs deliverBatches(), recording when and why it stops so that onEvent()
+  // doesn't wait on a thread that's gone.
+  private void deliver() {
+    try {
+      deliverBatches();
+    } catch (Throwable e) {
+      lock.lock();
+      try {
+        failure = e;
+      } finally {
+        lock.unlock();
+      }
+      throw e;
+    } finally {
+      lock.lock();
+      try {
+        stopped = true;
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  // Takes everything buffered at once so the lock is taken once per batch
+  // rather than once per event.
+  private void deliverBatches() {
+    EqLogEvent[] batch = new EqLogEvent[buffer.length];
+    while (true) {
+      int batchSize;
+      lock.lock();
+      try {
+        while (size == 0 && !closed) {
+          notEmpty.awaitUninterruptibly();
+        }
+        if (size == 0) {
+          return;
+        }
+        for (batchSize = 0; batchSize < size; batchSize++) {
+          int index = (head + batchSize) % buffer.length;
+          batch[batchSize] = buffer[index];
+          buffer[index] = null;
+        }
+        head = (head + size) % buffer.length;
+        size = 0;
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      for (int i = 0; i < batchSize; i++) {
+        try {
+          eqLogListener.onEvent(batch[i]);
+        } catch (RuntimeException e) {
+          // TODO: Handle this more gracefully.
+          e.printStackTrace();
+        }
+        batch[i] = null;
+      }
+    }
+  }
+
+}
@@ -1,40 +1,51 @@
 package com.edmazur.eqlp;
 
-import com.edmazur.eqlp.file.JumpSearchLogSeeker;
-import java.io.BufferedReader;
+import com.edmazur.eqlp.file.IndexedLogSeeker;
+import com.edmazur.eqlp.file.InterpolationSearchLogSeeker;
+import com.edmazur.eqlp.file.LogFingerprint;
+import com.edmazur.eqlp.file.LogLineReader;
+import com.edmazur.eqlp.file.LogSeeker;
+import com.edmazur.eqlp.file.LogWatcher;
+import com.edmazur.eqlp.file.MappedLogSeeker;
+import com.edmazur.eqlp.file.ReverseLogLineReader;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 /**
  * Entry point for EQ log processing library.
  */
 public class EqLog implements Runnable {
 
-  private static final String LOGS_DIRECTORY = "Logs";
-
-  private static final String BLUE_SUFFIX = "project1999";
-  private static final String GREEN_SUFFIX = "P1999Green";
-  private static final String RED_SUFFIX = "P1999PVP";
-
-  // After reaching the end of the log file, how long to wait until checking
-  // again.
-  private static final Duration FILE_CHECK_INTERVAL = Duration.ofMillis(100);
+  static final String LOGS_DIRECTORY = "Logs";
 
   private final Path eqInstallDirectory;
   private final ZoneId timezone;
-  private final String server;
-  private final String character;
+  private final EqLogSource source;
   private final Instant parseStart;
   private final Instant parseEnd;
 
-  private List<EqLogListener> eqLogListeners = new ArrayList<EqLogListener>();
+  private final EqLogMetrics metrics;
+  private final EqLogDispatcher dispatcher;
+  private boolean useTimestampIndex = false;
+  private Path checkpointFile = null;
+  private Duration checkpointInterval = null;
+  private final EqLogTimestampCache timestampCache = new EqLogTimestampCache();
+  // Set by stop().
+  private volatile boolean stopped = false;
+  // The thread in run(), if any. Guarded by this.
+  private Thread runThread = null;
 
   /**
    * Creates a runnable EQ log reader.
@@ -58,8 +69,9 @@ public class EqLog implements Runnable {
       Instant parseEnd) {
     this.eqInstallDirectory = eqInstallDirectory;
     this.timezone = timezone;
-    this.server = server;
-    this.character = character;
+    this.metrics = new EqLogMetrics(timezone);
+    this.dispatcher = new EqLogDispatcher(metrics);
+    this.source = new EqLogSource(server, character);
     this.parseStart = parseStart;
     this.parseEnd = parseEnd;
   }
@@ -70,35 +82,147 @@ public class EqLog implements Runnable {
    * @param eqLogListener The listener to add.
    */
   public void addListener(EqLogListener eqLogListener) {
-    eqLogListeners.add(eqLogListener);
+    dispatcher.addListener(eqLogListener);
+  }
+
+  /**
+   * Adds a listener that's only called with events whose payloads match at
+   * least one of the given filters. Filters are evaluated once per event
+   * across all listeners, rather than each listener checking every event
+   * itself.
+   *
+   * @param eqLogListener The listener to add.
+   * @param filters Filters to match payloads against.
+   */
+  public void addListener(EqLogListener eqLogListener, EqLogFilter... filters) {
+    dispatcher.addListener(eqLogListener, filters);
+  }
+
+  /**
+   * Like addListener(EqLogListener, EqLogFilter...), but names the listener
+   * in getMetrics().getListenerLatencies(), e.g. to keep JMX keys stable for
+   * listeners that are lambdas.
+   *
+   * @param name Name to record the listener's latency under.
+   * @param eqLogListener The listener to add.
+   * @param filters Filters to match payloads against.
+   */
+  public void addListener(String name, EqLogListener eqLogListener, EqLogFilter... filters) {
+    dispatcher.addListener(name, eqLogListener, filters);
+  }
+
+  /**
+   * Seeks to parseStart using a timestamp index persisted next to the log file
+   * (see IndexedLogSeeker). Building the index the first time costs a full
+   * read of the file, but later runs against the same file seek in roughly
+   * constant time.
+   */
+  public void enableTimestampIndex() {
+    useTimestampIndex = true;
+  }
+
+  /**
+   * Periodically saves how far through the log run() has dispatched events,
+   * and resumes from there on the next run instead of seeking to parseStart.
+   * parseStart is only used if there's no checkpoint yet, or if the log has
+   * been replaced since it was saved.
+   *
+   * <p>Events dispatched after the most recent save are dispatched again after
+   * a crash, so a shorter interval means fewer repeats at the cost of more
+   * writes. A final save is made whenever run() returns, whether at parseEnd
+   * or because of stop(), so nothing is dispatched twice across those.
+   *
+   * @param checkpointFile Where to save the checkpoint.
+   * @param checkpointInterval Minimum time between saves.
+   */
+  public void setCheckpoint(Path checkpointFile, Duration checkpointInterval) {
+    this.checkpointFile = checkpointFile;
+    this.checkpointInterval = checkpointInterval;
+  }
+
+  /**
+   * Makes run() return once any event being dispatched has been handled,
+   * saving a final checkpoint first if one is set (see setCheckpoint()). Can
+   * be called from any thread, including from a listener. If run() hasn't
+   * started yet, it returns right away.
+   *
+   * <p>run()'s thread is interrupted to wake it, so a listener running at the
+   * time may see the interrupt.
+   */
+  public void stop() {
+    synchronized (this) {
+      stopped = true;
+      // Wakes run() if it's waiting for the log to grow.
+      if (runThread != null && runThread != Thread.currentThread()) {
+        runThread.interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns metrics on reading and dispatching, e.g. to register over JMX.
+   */
+  public EqLogMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Returns the cache used to decode line timestamps while reading, e.g. to
+   * check its hit rate. Only safe to read from other threads for monitoring.
+   */
+  public EqLogTimestampCache getTimestampCache() {
+    return timestampCache;
   }
 
   @Override
   public void run() {
     // TODO: Add unit tests for this logic once its structure feels more
     // finalized.
-    File eqLogFile = eqInstallDirectory
-        .resolve(LOGS_DIRECTORY)
-        .resolve(getLogFileName(server, character))
-        .toFile();
-    BufferedReader bufferedReader = null;
+    File eqLogFile = getLogFile();
+    LogLineReader reader = null;
+    LogWatcher logWatcher = null;
+    // Timestamp of the last dispatched event. Only tracked for checkpoints.
+    Instant lastTimestamp = null;
     try {
-      bufferedReader =
-          new JumpSearchLogSeeker(
-              eqLogFile,
-              EqLogEvent.LINE_PATTERN,
-              EqLogEvent.TIMESTAMP_FORMAT,
-              timezone)
-              .seek(parseStart);
+      reader = new LogLineReader(eqLogFile);
+      EqLogCheckpoint checkpoint = readCheckpoint(eqLogFile);
+      if (checkpoint == null) {
+        reader.seek(seekPosition(createLogSeeker(eqLogFile), parseStart));
+      } else {
+        reader.seek(checkpoint.getPosition());
+        lastTimestamp = checkpoint.getLastTimestamp();
+      }
+      logWatcher = LogWatcher.create(eqLogFile.toPath());
     } catch (IOException e) {
       // TODO: Handle this more gracefully.
       e.printStackTrace();
       System.exit(-1);
     }
+    long lastCheckpointNanos = System.nanoTime();
+    // Whether events have been dispatched since the last checkpoint.
+    boolean checkpointStale = false;
+    // Offset to resume from after the loop.
+    long resumePosition;
+    synchronized (this) {
+      runThread = Thread.currentThread();
+    }
     while (true) {
-      String line = null;
+      if (stopped || Thread.currentThread().isInterrupted()) {
+        resumePosition = reader.getPosition();
+        break;
+      }
+      if (checkpointStale
+          && System.nanoTime() - lastCheckpointNanos >= checkpointInterval.toNanos()) {
+        writeCheckpoint(eqLogFile, reader.getPosition(), lastTimestamp);
+        lastCheckpointNanos = System.nanoTime();
+        checkpointStale = false;
+      }
+      CharSequence line = null;
       try {
-        line = bufferedReader.readLine();
+        line = reader.readLine();
+      } catch (ClosedByInterruptException e) {
+        // Interrupted mid-read, e.g. by stop(). Checked at the top of the loop.
+        continue;
       } catch (IOException e) {
         // TODO: Handle this more gracefully.
         e.printStackTrace();
@@ -106,45 +230,239 @@ public class EqLog implements Runnable {
       }
       if (line == null) {
         try {
-          Thread.sleep(FILE_CHECK_INTERVAL.toMillis());
+          logWatcher.await();
         } catch (InterruptedException e) {
-          // TODO: Handle this more gracefully.
-          e.printStackTrace();
+          // Checked at the top of the loop.
+          Thread.currentThread().interrupt();
         }
         continue;
       }
-      Optional<EqLogEvent> maybeEqLogEvent = EqLogEvent.parseFromLine(line);
-      if (maybeEqLogEvent.isEmpty()) {
+      // Checked on the buffer view first so that malformed lines are skipped
+      // without being copied out.
+      long localEpochSecond = timestampCache.getEpochSecond(line);
+      boolean parsed = localEpochSecond != EqLogTimestampParser.INVALID;
+      metrics.recordLines(1, parsed ? 1 : 0, reader.getPosition() - reader.getLineStart());
+      if (!parsed) {
         continue;
       }
-      EqLogEvent eqLogEvent = maybeEqLogEvent.get();
-      Instant timestamp =
-          eqLogEvent.getTimestamp().atZone(timezone).toInstant();
-      if (timestamp.isAfter(parseEnd)) {
-        break;
+      // Built from the timestamp decoded above rather than parsed again, so
+      // the cache only counts one lookup per line.
+      EqLogEvent eqLogEvent = EqLogEvent.of(line.toString(), localEpochSecond, source);
+      // Reuses the cached instant for lines with the same header, and doesn't
+      // materialize the event's timestamp. Skipped entirely when there's no
+      // end (unless a checkpoint needs it).
+      if (!parseEnd.equals(Instant.MAX) || checkpointFile != null) {
+        Instant timestamp = timestampCache.getInstant(localEpochSecond, timezone);
+        if (timestamp.isAfter(parseEnd)) {
+          // The line past parseEnd hasn't been dispatched, so resume from it.
+          resumePosition = reader.getLineStart();
+          break;
+        }
+        lastTimestamp = timestamp;
       }
-      for (EqLogListener eqLogListener : eqLogListeners) {
-        eqLogListener.onEvent(eqLogEvent);
+      // Only recorded once it's known the event will be dispatched, so the
+      // line past parseEnd doesn't count toward the tail lag.
+      metrics.recordEvent(localEpochSecond);
+      dispatcher.dispatch(eqLogEvent);
+      checkpointStale = checkpointFile != null;
+    }
+    synchronized (this) {
+      runThread = null;
+    }
+    // File I/O fails on an interrupted thread, so the interrupt is held off
+    // until the checkpoint is saved. One from stop() isn't passed on.
+    boolean interrupted = Thread.interrupted() && !stopped;
+    if (checkpointFile != null && lastTimestamp != null) {
+      writeCheckpoint(eqLogFile, resumePosition, lastTimestamp);
+    }
+    try {
+      logWatcher.close();
+      reader.close();
+    } catch (IOException e) {
+      // TODO: Handle this more gracefully.
+      e.printStackTrace();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Reads the log from parseStart to parseEnd (or to the current end of the
+   * file, whichever comes first) and returns, rather than continuing to tail
+   * the log like run() does. The log is split into chunks that are parsed in
+   * parallel, which is much faster than run() for replaying large logs.
+   *
+   * @param forkJoinPool Pool to parse chunks on.
+   * @param ordered If true, listeners are called on the calling thread with
+   *     events in log order, just like run(). If false, listeners are called
+   *     concurrently from the pool's threads in no particular order, which is
+   *     only suitable for thread-safe listeners doing commutative work (e.g.
+   *     counting) but avoids buffering parsed chunks until their turn.
+   */
+  public void replay(ForkJoinPool forkJoinPool, boolean ordered)
+      throws IOException {
+    File eqLogFile = getLogFile();
+    MappedLogSeeker logSeeker = createLogSeeker(eqLogFile);
+    long start = seekPosition(logSeeker, parseStart);
+    // Lines are stamped to the second, so the first line that isn't before
+    // parseEnd + 1ns is the first line after parseEnd.
+    long end = parseEnd.equals(Instant.MAX)
+        ? eqLogFile.length()
+        : seekPosition(logSeeker, parseEnd.plusNanos(1));
+    new EqLogReplay(eqLogFile.toPath(), source, start, end, dispatcher, metrics)
+        .run(forkJoinPool, ordered);
+  }
+
+  /**
+   * Like replay(), but reads from an archive of the log (see EqLogArchive)
+   * rather than the log itself. Only the archive's blocks between parseStart
+   * and parseEnd are read. Listeners are called on the calling thread with
+   * events in log order.
+   *
+   * @param archive The archive to read.
+   */
+  public void replayArchive(Path archive) throws IOException {
+    try (EqLogArchive eqLogArchive = EqLogArchive.open(archive)) {
+      eqLogArchive.replay(
+          getParseStartEpochSecond(),
+          toLocalEpochSecond(parseEnd),
+          source,
+          dispatcher::dispatch,
+          metrics);
+    }
+  }
+
+  /**
+   * Returns the most recent events in the log, newest first, by reading it
+   * backward from its current end (see ReverseLogLineReader). Only the tail of
+   * the log is read, so this is much cheaper than seeking and reading forward
+   * for queries like "the last 50 tells". Events after parseEnd are skipped,
+   * and reading stops at the first event before parseStart. Listeners aren't
+   * called.
+   *
+   * @param count The maximum number of events to return.
+   * @param predicate Which events to return, e.g. by getType().
+   */
+  public List<EqLogEvent> getLastEvents(int count, Predicate<EqLogEvent> predicate)
+      throws IOException {
+    long start = getParseStartEpochSecond();
+    long end = toLocalEpochSecond(parseEnd);
+    // Separate from the field's cache, which run() may be using on another
+    // thread.
+    EqLogTimestampCache cache = new EqLogTimestampCache();
+    List<EqLogEvent> eqLogEvents = new ArrayList<EqLogEvent>();
+    try (ReverseLogLineReader reader = new ReverseLogLineReader(getLogFile())) {
+      CharSequence line;
+      while (eqLogEvents.size() < count && (line = reader.readLine()) != null) {
+        long localEpochSecond = cache.getEpochSecond(line);
+        if (localEpochSecond == EqLogTimestampParser.INVALID || localEpochSecond > end) {
+          continue;
+        }
+        if (localEpochSecond < start) {
+          break;
+        }
+        EqLogEvent eqLogEvent = EqLogEvent.of(line.toString(), localEpochSecond, source);
+        if (predicate.test(eqLogEvent)) {
+          eqLogEvents.add(eqLogEvent);
+        }
       }
     }
+    return eqLogEvents;
+  }
+
+  /**
+   * Like getLastEvents(int, Predicate), but returns events of any kind.
+   */
+  public List<EqLogEvent> getLastEvents(int count) throws IOException {
+    return getLastEvents(count, eqLogEvent -> true);
+  }
+
+  /**
+   * Opens a full-text index of the log (see EqLogSearchIndex), creating it if
+   * it doesn't exist yet. Call start() on it to keep it up to date while the
+   * log is being written to, and close() when done with it.
+   *
+   * @param index Where to keep the index.
+   */
+  public EqLogSearchIndex openSearchIndex(Path index) throws IOException {
+    return EqLogSearchIndex.open(
+        getLogFile().toPath(), index, source, EqLogSearchIndex.DEFAULT_PARTITION);
+  }
+
+  // Returns the saved checkpoint, or null if there isn't a usable one.
+  private EqLogCheckpoint readCheckpoint(File eqLogFile) throws IOException {
+    if (checkpointFile == null) {
+      return null;
+    }
+    Optional<EqLogCheckpoint> maybeCheckpoint = EqLogCheckpoint.read(checkpointFile);
+    if (maybeCheckpoint.isEmpty() || !maybeCheckpoint.get().isFor(eqLogFile.toPath())) {
+      return null;
+    }
+    return maybeCheckpoint.get();
+  }
+
+  private long seekPosition(LogSeeker logSeeker, Instant seekStart)
+      throws IOException {
+    long start = System.nanoTime();
+    long position = logSeeker.seekPosition(seekStart);
+    metrics.recordSeek(logSeeker.getStrategyDescription(), System.nanoTime() - start);
+    return position;
   }
 
-  private String getLogFileName(String server, String character) {
-    return "eqlog_" + character + "_" + getLogFileSuffix(server) + ".txt";
+  private void writeCheckpoint(File eqLogFile, long position, Instant lastTimestamp) {
+    try {
+      new EqLogCheckpoint(
+          position, lastTimestamp, LogFingerprint.of(eqLogFile.toPath()))
+          .write(checkpointFile);
+    } catch (IOException e) {
+      // TODO: Handle this more gracefully.
+      e.printStackTrace();
+    }
+  }
+
+  // Lines are stamped to the second, so a parseStart part way through a second
+  // starts at the next one.
+  private long getParseStartEpochSecond() {
+    long start = toLocalEpochSecond(parseStart);
+    if (parseStart.getNano() > 0 && start != Long.MAX_VALUE) {
+      start++;
+    }
+    return start;
+  }
+
+  // Converts to the local time that log timestamps would show, clamping
+  // Instant.MIN and Instant.MAX (which LocalDateTime can't represent).
+  private long toLocalEpochSecond(Instant instant) {
+    if (instant.equals(Instant.MIN)) {
+      return Long.MIN_VALUE;
+    }
+    if (instant.equals(Instant.MAX)) {
+      return Long.MAX_VALUE;
+    }
+    return LocalDateTime.ofInstant(instant, timezone).toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private File getLogFile() {
+    return eqInstallDirectory
+        .resolve(LOGS_DIRECTORY)
+        .resolve(source.getLogFileName())
+        .toFile();
   }
 
-  private String getLogFileSuffix(String server) {
-    switch (server) {
-      case "blue":
-        return BLUE_SUFFIX;
-      case "green":
-        return GREEN_SUFFIX;
-      case "red":
-        return RED_SUFFIX;
-      default:
-        throw new IllegalArgumentException(
-            "Unknown log file suffix for server " + server);
+  private MappedLogSeeker createLogSeeker(File eqLogFile) {
+    if (useTimestampIndex) {
+      return new IndexedLogSeeker(
+          eqLogFile,
+          EqLogEvent.LINE_PATTERN,
+          EqLogEvent.TIMESTAMP_FORMAT,
+          timezone);
     }
+    return new InterpolationSearchLogSeeker(
+        eqLogFile,
+        EqLogEvent.LINE_PATTERN,
+        EqLogEvent.TIMESTAMP_FORMAT,
+        timezone);
   }
 
 }
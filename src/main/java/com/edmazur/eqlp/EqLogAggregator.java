@@ -0,0 +1,380 @@
+package com.edmazur.eqlp;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Aggregates a value per key over windows of event time, e.g. damage per
+ * player per 6 second tick, messages per channel per minute, or kills per
+ * hour. Add it as a listener; each window's totals are passed to a
+ * WindowListener once the window closes, and are then discarded.
+ *
+ * <p>Windows are based on event timestamps rather than the wall clock, so
+ * replays aggregate the same as live reads. A window closes once an event at
+ * or after its end is seen, so events should arrive roughly in order. Events
+ * for windows that have already closed are dropped and counted (see
+ * getLateEventCount()). Call flush() at the end of a replay to close any
+ * windows still open.
+ *
+ * <p>Three kinds of windows are supported:
+ * <ul>
+ *   <li>Tumbling: back-to-back windows of a fixed size.
+ *   <li>Sliding: windows of a fixed size starting every slide, so each event
+ *       counts towards size / slide windows.
+ *   <li>Session: per key, runs of events with less than a gap between them.
+ * </ul>
+ *
+ * <p>Instances are not thread-safe, so shouldn't be used with unordered
+ * replays.
+ */
+public class EqLogAggregator<K> implements EqLogListener {
+
+  /**
+   * Receives each key's totals when a window closes. Within a window, keys
+   * are passed in no particular order.
+   */
+  public interface WindowListener<K> {
+
+    /**
+     * Called with one key's totals for a closed window.
+     *
+     * @param start The start of the window, inclusive.
+     * @param end The end of the window, exclusive. For session windows, this
+     *     is the second after the session's last event.
+     * @param key The key.
+     * @param aggregate The key's totals. Only valid during this call.
+     */
+    void onWindow(LocalDateTime start, LocalDateTime end, K key, Aggregate aggregate);
+
+  }
+
+  /**
+   * Totals of the values of a key's events in a window.
+   */
+  public static final class Aggregate {
+
+    private long count;
+    private long sum;
+    private long min;
+    private long max;
+
+    private Aggregate() {
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getSum() {
+      return sum;
+    }
+
+    public long getMin() {
+      return min;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public double getMean() {
+      return (double) sum / count;
+    }
+
+    @Override
+    public String toString() {
+      return "count=" + count + " sum=" + sum + " min=" + min + " max=" + max;
+    }
+
+  }
+
+  private enum Kind {
+    TUMBLING,
+    SLIDING,
+    SESSION,
+  }
+
+  // Columns of the per-key maps. Sessions also track when they started and
+  // their last event.
+  private static final int COUNT = 0;
+  private static final int SUM = 1;
+  private static final int MIN = 2;
+  private static final int MAX = 3;
+  private static final int START = 4;
+  private static final int LAST = 5;
+  private static final int WINDOW_COLUMNS = 4;
+  private static final int SESSION_COLUMNS = 6;
+
+  private final Kind kind;
+  // For tumbling and sliding windows.
+  private final long sizeSeconds;
+  private final long slideSeconds;
+  // For session windows.
+  private final long gapSeconds;
+  private final Function<EqLogEvent, K> keyFunction;
+  private final ToLongFunction<EqLogEvent> valueFunction;
+  private final WindowListener<K> windowListener;
+
+  // Open tumbling or sliding windows, by start time.
+  private final TreeMap<Long, ObjectLongHashMap<K>> windows =
+      new TreeMap<Long, ObjectLongHashMap<K>>();
+  // Closed windows' maps, kept for reuse.
+  private final Deque<ObjectLongHashMap<K>> freeWindows =
+      new ArrayDeque<ObjectLongHashMap<K>>();
+  // Open sessions, by key.
+  private final ObjectLongHashMap<K> sessions =
+      new ObjectLongHashMap<K>(SESSION_COLUMNS);
+  // No session can close before this, so sessions aren't checked until then.
+  private long nextSessionEnd = Long.MAX_VALUE;
+
+  // The latest event time seen. Windows ending at or before it are closed.
+  private long watermark = Long.MIN_VALUE;
+  private long lateEventCount = 0;
+  private final Aggregate aggregate = new Aggregate();
+
+  private EqLogAggregator(
+      Kind kind,
+      long sizeSeconds,
+      long slideSeconds,
+      long gapSeconds,
+      Function<EqLogEvent, K> keyFunction,
+      ToLongFunction<EqLogEvent> valueFunction,
+      WindowListener<K> windowListener) {
+    this.kind = kind;
+    this.sizeSeconds = sizeSeconds;
+    this.slideSeconds = slideSeconds;
+    this.gapSeconds = gapSeconds;
+    this.keyFunction = keyFunction;
+    this.valueFunction = valueFunction;
+    this.windowListener = windowListener;
+  }
+
+  /**
+   * Aggregates over back-to-back windows of a fixed size, aligned to the
+   * epoch (so e.g. one hour windows start on the hour).
+   *
+   * @param size The length of each window, in whole seconds.
+   * @param keyFunction Gets an event's key, or null to ignore the event.
+   * @param valueFunction Gets an event's value, e.g. 1 to count events.
+   * @param windowListener Receives the totals of each closed window.
+   * @throws IllegalArgumentException If size isn't a positive number of whole
+   *     seconds.
+   */
+  public static <K> EqLogAggregator<K> tumbling(
+      Duration size,
+      Function<EqLogEvent, K> keyFunction,
+      ToLongFunction<EqLogEvent> valueFunction,
+      WindowListener<K> windowListener) {
+    long sizeSeconds = toSeconds(size);
+    return new EqLogAggregator<K>(
+        Kind.TUMBLING, sizeSeconds, sizeSeconds, 0, keyFunction, valueFunction,
+        windowListener);
+  }
+
+  /**
+   * Aggregates over overlapping windows of a fixed size, starting every
+   * slide.
+   *
+   * @param size The length of each window, in whole seconds.
+   * @param slide The time between window starts, in whole seconds.
+   * @param keyFunction Gets an event's key, or null to ignore the event.
+   * @param valueFunction Gets an event's value, e.g. 1 to count events.
+   * @param windowListener Receives the totals of each closed window.
+   * @throws IllegalArgumentException If size or slide isn't a positive number
+   *     of whole seconds, or slide is longer than size.
+   */
+  public static <K> EqLogAggregator<K> sliding(
+      Duration size,
+      Duration slide,
+      Function<EqLogEvent, K> keyFunction,
+      ToLongFunction<EqLogEvent> valueFunction,
+      WindowListener<K> windowListener) {
+    long sizeSeconds = toSeconds(size);
+    long slideSeconds = toSeconds(slide);
+    if (slideSeconds > sizeSeconds) {
+      throw new IllegalArgumentException("Slide " + slide + " is longer than size " + size);
+    }
+    return new EqLogAggregator<K>(
+        Kind.SLIDING, sizeSeconds, slideSeconds, 0, keyFunction, valueFunction,
+        windowListener);
+  }
+
+  /**
+   * Aggregates over sessions per key, where a session is a run of the key's
+   * events with less than gap between each one and the next.
+   *
+   * @param gap How long a key has to go without events to end its session, in
+   *     whole seconds.
+   * @param keyFunction Gets an event's key, or null to ignore the event.
+   * @param valueFunction Gets an event's value, e.g. 1 to count events.
+   * @param windowListener Receives the totals of each closed session.
+   * @throws IllegalArgumentException If gap isn't a positive number of whole
+   *     seconds.
+   */
+  public static <K> EqLogAggregator<K> session(
+      Duration gap,
+      Function<EqLogEvent, K> keyFunction,
+      ToLongFunction<EqLogEvent> valueFunction,
+      WindowListener<K> windowListener) {
+    return new EqLogAggregator<K>(
+        Kind.SESSION, 0, 0, toSeconds(gap), keyFunction, valueFunction, windowListener);
+  }
+
+  @Override
+  public void onEvent(EqLogEvent eqLogEvent) {
+    long localEpochSecond = eqLogEvent.getLocalEpochSecond();
+    if (localEpochSecond > watermark) {
+      watermark = localEpochSecond;
+      close(false);
+    }
+    K key = keyFunction.apply(eqLogEvent);
+    if (key == null) {
+      return;
+    }
+    long value = valueFunction.applyAsLong(eqLogEvent);
+    boolean added = kind == Kind.SESSION
+        ? addToSession(key, localEpochSecond, value)
+        : addToWindows(key, localEpochSecond, value);
+    if (!added) {
+      lateEventCount++;
+    }
+  }
+
+  /**
+   * Closes every open window, e.g. at the end of a replay.
+   */
+  public void flush() {
+    close(true);
+  }
+
+  /**
+   * Returns the number of events dropped because their windows had already
+   * closed.
+   */
+  public long getLateEventCount() {
+    return lateEventCount;
+  }
+
+  // Returns false if every window the event belongs to has closed.
+  private boolean addToWindows(K key, long localEpochSecond, long value) {
+    boolean added = false;
+    for (long start = Math.floorDiv(localEpochSecond, slideSeconds) * slideSeconds;
+        start > localEpochSecond - sizeSeconds && start + sizeSeconds > watermark;
+        start -= slideSeconds) {
+      ObjectLongHashMap<K> window = windows.get(start);
+      if (window == null) {
+        window = freeWindows.isEmpty()
+            ? new ObjectLongHashMap<K>(WINDOW_COLUMNS)
+            : freeWindows.pop();
+        windows.put(start, window);
+      }
+      accumulate(window, window.add(key), value);
+      added = true;
+    }
+    return added;
+  }
+
+  // Returns false if the event's session has closed.
+  private boolean addToSession(K key, long localEpochSecond, long value) {
+    int slot = sessions.find(key);
+    if (slot != -1 && localEpochSecond > sessions.get(slot, START) - gapSeconds) {
+      // Open sessions end after the watermark, so this is within gap of the
+      // session even if it's out of order.
+      sessions.set(slot, START, Math.min(sessions.get(slot, START), localEpochSecond));
+      sessions.set(slot, LAST, Math.max(sessions.get(slot, LAST), localEpochSecond));
+    } else if (slot == -1 && localEpochSecond + gapSeconds > watermark) {
+      slot = sessions.add(key);
+      sessions.set(slot, START, localEpochSecond);
+      sessions.set(slot, LAST, localEpochSecond);
+      nextSessionEnd = Math.min(nextSessionEnd, localEpochSecond + gapSeconds);
+    } else {
+      return false;
+    }
+    accumulate(sessions, slot, value);
+    return true;
+  }
+
+  private void accumulate(ObjectLongHashMap<K> map, int slot, long value) {
+    long count = map.get(slot, COUNT);
+    map.set(slot, COUNT, count + 1);
+    map.set(slot, SUM, map.get(slot, SUM) + value);
+    map.set(slot, MIN, count == 0 ? value : Math.min(map.get(slot, MIN), value));
+    map.set(slot, MAX, count == 0 ? value : Math.max(map.get(slot, MAX), value));
+  }
+
+  // Closes windows ending at or before the watermark, or every window.
+  private void close(boolean all) {
+    while (!windows.isEmpty()) {
+      Map.Entry<Long, ObjectLongHashMap<K>> entry = windows.firstEntry();
+      long start = entry.getKey();
+      if (!all && start + sizeSeconds > watermark) {
+        break;
+      }
+      windows.pollFirstEntry();
+      ObjectLongHashMap<K> window = entry.getValue();
+      for (int slot = 0; slot < window.getCapacity(); slot++) {
+        if (window.getKey(slot) != null) {
+          emit(start, start + sizeSeconds, window, slot);
+        }
+      }
+      window.clear();
+      freeWindows.push(window);
+    }
+
+    if (!all && watermark < nextSessionEnd) {
+      return;
+    }
+    // Sessions are emitted in order of their start, like other windows.
+    List<K> closed = new ArrayList<K>();
+    nextSessionEnd = Long.MAX_VALUE;
+    for (int slot = 0; slot < sessions.getCapacity(); slot++) {
+      if (sessions.getKey(slot) == null) {
+        continue;
+      }
+      long end = sessions.get(slot, LAST) + gapSeconds;
+      if (all || end <= watermark) {
+        closed.add(sessions.getKey(slot));
+      } else {
+        nextSessionEnd = Math.min(nextSessionEnd, end);
+      }
+    }
+    closed.sort((first, second) -> Long.compare(
+        sessions.get(sessions.find(first), START),
+        sessions.get(sessions.find(second), START)));
+    for (K key : closed) {
+      int slot = sessions.find(key);
+      emit(sessions.get(slot, START), sessions.get(slot, LAST) + 1, sessions, slot);
+      sessions.remove(slot);
+    }
+  }
+
+  private void emit(long start, long end, ObjectLongHashMap<K> map, int slot) {
+    aggregate.count = map.get(slot, COUNT);
+    aggregate.sum = map.get(slot, SUM);
+    aggregate.min = map.get(slot, MIN);
+    aggregate.max = map.get(slot, MAX);
+    windowListener.onWindow(
+        LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC),
+        LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC),
+        map.getKey(slot),
+        aggregate);
+  }
+
+  private static long toSeconds(Duration duration) {
+    if (duration.isNegative() || duration.isZero() || duration.getNano() != 0) {
+      throw new IllegalArgumentException(
+          "Not a positive number of whole seconds: " + duration);
+    }
+    return duration.getSeconds();
+  }
+
+}
@@ -0,0 +1,433 @@
+package com.edmazur.eqlp;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed archive of a log, for keeping old logs around without the disk
+ * space of plain text. The log is compressed in independent blocks, each
+ * labelled with the range of timestamps in it, and an index of the blocks is
+ * kept at the end. Replaying a time range finds the blocks it covers by binary
+ * search and only reads and decompresses those.
+ *
+ * <p>The format is:
+ * <ul>
+ *   <li>Header: magic, version.
+ *   <li>Blocks: first and last local epoch second, uncompressed and
+ *       compressed lengths, then the deflated bytes. Blocks hold whole lines.
+ *   <li>Index: offset, timestamps and lengths of each block.
+ *   <li>Footer: index offset, block count, magic.
+ * </ul>
+ *
+ * <p>Instances are not thread-safe.
+ */
+public class EqLogArchive implements Closeable {
+
+  private static final int MAGIC = 0x45514c41; // "EQLA"
+  private static final int VERSION = 1;
+  private static final int HEADER_LENGTH = 8;
+  private static final int BLOCK_HEADER_LENGTH = 24;
+  private static final int INDEX_ENTRY_LENGTH = 32;
+  private static final int FOOTER_LENGTH = 16;
+
+  private static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  private final FileChannel channel;
+  private final Blocks blocks;
+  private final Inflater inflater = new Inflater();
+  // Reused across blocks, and grown as needed.
+  private byte[] compressed = new byte[0];
+  private byte[] uncompressed = new byte[0];
+  private long bytesRead = 0;
+
+  private EqLogArchive(FileChannel channel, Blocks blocks) {
+    this.channel = channel;
+    this.blocks = blocks;
+  }
+
+  /**
+   * Archives a log. The archive is written to a temporary file first and then
+   * moved into place, so a crash part way through doesn't leave a truncated
+   * archive behind.
+   *
+   * @param log The log to archive. It shouldn't be written to in the meantime.
+   * @param archive Where to write the archive.
+   */
+  public static void create(Path log, Path archive) throws IOException {
+    create(log, archive, DEFAULT_BLOCK_SIZE);
+  }
+
+  // Like create(Path, Path), but with blocks of roughly blockSize bytes of
+  // log. Blocks are longer if a line doesn't fit.
+  static void create(Path log, Path archive, int blockSize) throws IOException {
+    Path temporaryFile = archive.resolveSibling(archive.getFileName() + ".tmp");
+    // Archives are written once and read many times, so favor size.
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try (InputStream in = Files.newInputStream(log);
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      long offset = HEADER_LENGTH;
+      Blocks blocks = new Blocks();
+      ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+      byte[] deflateBuffer = new byte[64 * 1024];
+      byte[] buffer = new byte[blockSize];
+      int length = 0;
+      boolean eof = false;
+      long lastLocalEpochSecond = EqLogTimestampParser.INVALID;
+      while (!eof || length > 0) {
+        while (!eof && length < buffer.length) {
+          int bytesRead = in.read(buffer, length, buffer.length - length);
+          if (bytesRead == -1) {
+            eof = true;
+          } else {
+            length += bytesRead;
+          }
+        }
+        // Cuts the block after its last complete line, unless the log has
+        // ended without a final newline.
+        int blockLength = eof ? length : lastIndexOf(buffer, length, (byte) '\n') + 1;
+        if (blockLength == 0) {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+          continue;
+        }
+
+        // Blocks without any valid lines take the timestamp of the last one
+        // before them, so block timestamps stay in order.
+        long firstLocalEpochSecond = EqLogTimestampParser.INVALID;
+        int lineStart = 0;
+        while (lineStart < blockLength) {
+          int lineEnd = indexOf(buffer, lineStart, blockLength, (byte) '\n');
+          long localEpochSecond = EqLogTimestampParser.parse(new String(
+              buffer,
+              lineStart,
+              Math.min(lineEnd - lineStart, EqLogTimestampParser.PAYLOAD_START + 1),
+              StandardCharsets.ISO_8859_1));
+          if (localEpochSecond != EqLogTimestampParser.INVALID) {
+            if (firstLocalEpochSecond == EqLogTimestampParser.INVALID) {
+              firstLocalEpochSecond = localEpochSecond;
+            }
+            lastLocalEpochSecond = localEpochSecond;
+          }
+          lineStart = lineEnd + 1;
+        }
+        if (firstLocalEpochSecond == EqLogTimestampParser.INVALID) {
+          firstLocalEpochSecond = lastLocalEpochSecond;
+        }
+
+        deflater.reset();
+        deflater.setInput(buffer, 0, blockLength);
+        deflater.finish();
+        deflated.reset();
+        while (!deflater.finished()) {
+          int deflatedLength = deflater.deflate(deflateBuffer);
+          deflated.write(deflateBuffer, 0, deflatedLength);
+        }
+        out.writeLong(firstLocalEpochSecond);
+        out.writeLong(lastLocalEpochSecond);
+        out.writeInt(blockLength);
+        out.writeInt(deflated.size());
+        deflated.writeTo(out);
+        blocks.add(
+            offset, firstLocalEpochSecond, lastLocalEpochSecond, blockLength,
+            deflated.size());
+        offset += BLOCK_HEADER_LENGTH + deflated.size();
+
+        System.arraycopy(buffer, blockLength, buffer, 0, length - blockLength);
+        length -= blockLength;
+      }
+
+      for (int i = 0; i < blocks.count; i++) {
+        out.writeLong(blocks.offsets[i]);
+        out.writeLong(blocks.firstLocalEpochSeconds[i]);
+        out.writeLong(blocks.lastLocalEpochSeconds[i]);
+        out.writeInt(blocks.uncompressedLengths[i]);
+        out.writeInt(blocks.compressedLengths[i]);
+      }
+      out.writeLong(offset);
+      out.writeInt(blocks.count);
+      out.writeInt(MAGIC);
+    } finally {
+      deflater.end();
+    }
+    Files.move(
+        temporaryFile,
+        archive,
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Opens an archive for reading, loading its block index.
+   *
+   * @throws IOException If the file isn't a complete archive.
+   */
+  public static EqLogArchive open(Path archive) throws IOException {
+    FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      if (size < HEADER_LENGTH + FOOTER_LENGTH) {
+        throw new IOException("Not an EQ log archive: " + archive);
+      }
+      ByteBuffer header = read(channel, 0, HEADER_LENGTH);
+      ByteBuffer footer = read(channel, size - FOOTER_LENGTH, FOOTER_LENGTH);
+      long indexOffset = footer.getLong();
+      int count = footer.getInt();
+      if (header.getInt() != MAGIC
+          || header.getInt() != VERSION
+          || footer.getInt() != MAGIC
+          || indexOffset + (long) count * INDEX_ENTRY_LENGTH + FOOTER_LENGTH != size) {
+        throw new IOException("Not an EQ log archive: " + archive);
+      }
+      Blocks blocks = new Blocks();
+      ByteBuffer index = read(channel, indexOffset, count * INDEX_ENTRY_LENGTH);
+      for (int i = 0; i < count; i++) {
+        blocks.add(
+            index.getLong(), index.getLong(), index.getLong(), index.getInt(),
+            index.getInt());
+      }
+      return new EqLogArchive(channel, blocks);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Calls listener with each event in a time range, in log order. Only the
+   * blocks overlapping the range are read.
+   *
+   * @param start Timestamp to start at, inclusive.
+   * @param end Timestamp to stop at, inclusive.
+   */
+  public void replay(LocalDateTime start, LocalDateTime end, EqLogListener eqLogListener)
+      throws IOException {
+    replay(
+        start.toEpochSecond(ZoneOffset.UTC),
+        end.toEpochSecond(ZoneOffset.UTC),
+        null,
+        eqLogListener,
+        null);
+  }
+
+  // Like replay(LocalDateTime, LocalDateTime, EqLogListener), but tags events
+  // with a source and optionally records metrics.
+  void replay(
+      long startLocalEpochSecond,
+      long endLocalEpochSecond,
+      EqLogSource source,
+      EqLogListener eqLogListener,
+      EqLogMetrics metrics) throws IOException {
+    EqLogTimestampCache timestampCache = new EqLogTimestampCache();
+    for (int block = blocks.find(startLocalEpochSecond);
+        block < blocks.count
+            && blocks.firstLocalEpochSeconds[block] <= endLocalEpochSecond;
+        block++) {
+      int length = readBlock(block);
+      int lineCount = 0;
+      int eventCount = 0;
+      int lineStart = 0;
+      while (lineStart < length) {
+        int lineEnd = indexOf(uncompressed, lineStart, length, (byte) '\n');
+        int contentEnd = lineEnd;
+        if (contentEnd > lineStart && uncompressed[contentEnd - 1] == '\r') {
+          contentEnd--;
+        }
+        String line = new String(
+            uncompressed, lineStart, contentEnd - lineStart, StandardCharsets.ISO_8859_1);
+        lineStart = lineEnd + 1;
+        lineCount++;
+        Optional<EqLogEvent> maybeEqLogEvent =
+            EqLogEvent.parseFromLine(line, timestampCache, source);
+        if (maybeEqLogEvent.isEmpty()) {
+          continue;
+        }
+        EqLogEvent eqLogEvent = maybeEqLogEvent.get();
+        if (eqLogEvent.getLocalEpochSecond() < startLocalEpochSecond) {
+          continue;
+        }
+        if (eqLogEvent.getLocalEpochSecond() > endLocalEpochSecond) {
+          recordLines(metrics, lineCount, eventCount, lineStart);
+          return;
+        }
+        eventCount++;
+        eqLogListener.onEvent(eqLogEvent);
+      }
+      recordLines(metrics, lineCount, eventCount, length);
+    }
+  }
+
+  /**
+   * Writes the archived log back out as plain text, identical to the log that
+   * was archived.
+   */
+  public void extract(Path log) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(log))) {
+      for (int block = 0; block < blocks.count; block++) {
+        int length = readBlock(block);
+        out.write(uncompressed, 0, length);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of blocks in the archive.
+   */
+  public int getBlockCount() {
+    return blocks.count;
+  }
+
+  /**
+   * Returns the number of compressed bytes read from blocks so far, e.g. to
+   * compare against the archive's size.
+   */
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    channel.close();
+  }
+
+  // Decompresses a block into uncompressed, returning its length.
+  private int readBlock(int block) throws IOException {
+    int compressedLength = blocks.compressedLengths[block];
+    int uncompressedLength = blocks.uncompressedLengths[block];
+    if (compressed.length < compressedLength) {
+      compressed = new byte[compressedLength];
+    }
+    if (uncompressed.length < uncompressedLength) {
+      uncompressed = new byte[uncompressedLength];
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, compressedLength);
+    long position = blocks.offsets[block] + BLOCK_HEADER_LENGTH;
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) == -1) {
+        throw new EOFException("Truncated block " + block);
+      }
+    }
+    bytesRead += compressedLength;
+    inflater.reset();
+    inflater.setInput(compressed, 0, compressedLength);
+    try {
+      int length = inflater.inflate(uncompressed, 0, uncompressedLength);
+      if (length != uncompressedLength || !inflater.finished()) {
+        throw new IOException("Corrupt block " + block);
+      }
+      return length;
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt block " + block, e);
+    }
+  }
+
+  private static void recordLines(
+      EqLogMetrics metrics, int lineCount, int eventCount, int bytes) {
+    if (metrics != null) {
+      metrics.recordLines(lineCount, eventCount, bytes);
+    }
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) == -1) {
+        throw new EOFException();
+      }
+    }
+    return buffer.flip();
+  }
+
+  // Returns the index of the first b in bytes[from, to), or to if there isn't
+  // one.
+  private static int indexOf(byte[] bytes, int from, int to, byte b) {
+    for (int i = from; i < to; i++) {
+      if (bytes[i] == b) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  private static int lastIndexOf(byte[] bytes, int length, byte b) {
+    for (int i = length - 1; i >= 0; i--) {
+      if (bytes[i] == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // In-memory copy of the block index.
+  private static class Blocks {
+
+    private long[] offsets = new long[1024];
+    private long[] firstLocalEpochSeconds = new long[1024];
+    private long[] lastLocalEpochSeconds = new long[1024];
+    private int[] uncompressedLengths = new int[1024];
+    private int[] compressedLengths = new int[1024];
+    private int count = 0;
+
+    private void add(
+        long offset,
+        long firstLocalEpochSecond,
+        long lastLocalEpochSecond,
+        int uncompressedLength,
+        int compressedLength) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        firstLocalEpochSeconds = Arrays.copyOf(firstLocalEpochSeconds, count * 2);
+        lastLocalEpochSeconds = Arrays.copyOf(lastLocalEpochSeconds, count * 2);
+        uncompressedLengths = Arrays.copyOf(uncompressedLengths, count * 2);
+        compressedLengths = Arrays.copyOf(compressedLengths, count * 2);
+      }
+      offsets[count] = offset;
+      firstLocalEpochSeconds[count] = firstLocalEpochSecond;
+      lastLocalEpochSeconds[count] = lastLocalEpochSecond;
+      uncompressedLengths[count] = uncompressedLength;
+      compressedLengths[count] = compressedLength;
+      count++;
+    }
+
+    // Returns the first block that may have lines at or after a time, or
+    // count if there isn't one.
+    private int find(long localEpochSecond) {
+      int low = 0;
+      int high = count;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (lastLocalEpochSeconds[middle] < localEpochSecond) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+  }
+
+}
@@ -0,0 +1,102 @@
+package com.edmazur.eqlp;
+
+import com.edmazur.eqlp.file.LogFingerprint;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * How far through a log EqLog has dispatched events, persisted so that a
+ * restarted EqLog can pick up where it left off without seeking.
+ */
+class EqLogCheckpoint {
+
+  private static final int MAGIC = 0x45514c43;
+  private static final int VERSION = 1;
+
+  // Offset of the first line not yet dispatched.
+  private final long position;
+  // Timestamp of the last dispatched event.
+  private final Instant lastTimestamp;
+  private final LogFingerprint fingerprint;
+
+  EqLogCheckpoint(long position, Instant lastTimestamp, LogFingerprint fingerprint) {
+    this.position = position;
+    this.lastTimestamp = lastTimestamp;
+    this.fingerprint = fingerprint;
+  }
+
+  /**
+   * Reads a checkpoint.
+   *
+   * @return The checkpoint, or Optional.empty() if there isn't a complete,
+   *     valid one.
+   */
+  static Optional<EqLogCheckpoint> read(Path checkpointFile) throws IOException {
+    if (!Files.exists(checkpointFile)) {
+      return Optional.empty();
+    }
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return Optional.empty();
+      }
+      long position = in.readLong();
+      Instant lastTimestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+      LogFingerprint fingerprint = LogFingerprint.read(in);
+      return Optional.of(new EqLogCheckpoint(position, lastTimestamp, fingerprint));
+    } catch (EOFException | StreamCorruptedException | DateTimeException e) {
+      // DateTimeException is from a corrupt timestamp.
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Writes the checkpoint. The file is replaced atomically, so a crash part
+   * way through leaves the previous checkpoint intact.
+   */
+  void write(Path checkpointFile) throws IOException {
+    Path temporaryFile =
+        checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(position);
+      out.writeLong(lastTimestamp.getEpochSecond());
+      out.writeInt(lastTimestamp.getNano());
+      fingerprint.write(out);
+    }
+    Files.move(
+        temporaryFile,
+        checkpointFile,
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Checks whether the checkpoint was taken from (an earlier version of) log.
+   */
+  boolean isFor(Path log) throws IOException {
+    return Files.size(log) >= position && fingerprint.matches(LogFingerprint.of(log));
+  }
+
+  long getPosition() {
+    return position;
+  }
+
+  Instant getLastTimestamp() {
+    return lastTimestamp;
+  }
+
+}
@@ -0,0 +1,282 @@
+package com.edmazur.eqlp;
+
+import com.edmazur.eqlp.file.InterpolationSearchLogSeeker;
+import com.edmazur.eqlp.file.LogLineReader;
+import com.edmazur.eqlp.file.LogWatcher;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Tails the logs of many characters at once. Unlike running an EqLog per
+ * character, every log is read from a single thread that multiplexes between
+ * them and only sleeps when none of them has anything new. Events are tagged
+ * with the character and server whose log they came from (see
+ * EqLogEvent.getSource()).
+ */
+public class EqLogDirectory implements Runnable {
+
+  // How often to look for logs that didn't exist on the last check, e.g.
+  // because a new character logged in for the first time.
+  private static final Duration RESCAN_INTERVAL = Duration.ofSeconds(1);
+
+  // How many lines to read from one log before moving on to the next, so a
+  // big backlog in one log doesn't hold up the others.
+  private static final int MAX_LINES_PER_PASS = 1024;
+  // Smaller than LogLineReader's default since there's one per log.
+  private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+  private final Path eqInstallDirectory;
+  private final ZoneId timezone;
+  private final Predicate<EqLogSource> sourceFilter;
+  private final Instant parseStart;
+  private final Instant parseEnd;
+
+  private final EqLogDispatcher dispatcher = new EqLogDispatcher();
+
+  private final List<TailedLog> tailedLogs = new ArrayList<TailedLog>();
+  // Every log file being tailed or filtered out. Logs that couldn't be opened
+  // aren't included, so they're retried on the next scan.
+  private final Set<Path> knownLogFiles = new HashSet<Path>();
+
+  /**
+   * Creates a runnable reader for every EQ log in the install directory.
+   *
+   * @param eqInstallDirectory Path to where EQ is installed.
+   * @param timezone Timezone to interpret log timestamps in.
+   * @param parseStart Timestamp to start parsing each log at. Set to
+   *     Instant.MIN to read from start of file.
+   * @param parseEnd Timestamp to stop parsing each log at. Set to Instant.MAX
+   *     to read continuously after reaching end of file.
+   */
+  public EqLogDirectory(
+      Path eqInstallDirectory,
+      ZoneId timezone,
+      Instant parseStart,
+      Instant parseEnd) {
+    this(eqInstallDirectory, timezone, source -> true, parseStart, parseEnd);
+  }
+
+  /**
+   * Creates a runnable reader for a subset of the EQ logs in the install
+   * directory.
+   *
+   * @param eqInstallDirectory Path to where EQ is installed.
+   * @param timezone Timezone to interpret log timestamps in.
+   * @param sourceFilter Selects which characters' logs to read.
+   * @param parseStart Timestamp to start parsing each log at. Set to
+   *     Instant.MIN to read from start of file.
+   * @param parseEnd Timestamp to stop parsing each log at. Set to Instant.MAX
+   *     to read continuously after reaching end of file.
+   */
+  public EqLogDirectory(
+      Path eqInstallDirectory,
+      ZoneId timezone,
+      Predicate<EqLogSource> sourceFilter,
+      Instant parseStart,
+      Instant parseEnd) {
+    this.eqInstallDirectory = eqInstallDirectory;
+    this.timezone = timezone;
+    this.sourceFilter = sourceFilter;
+    this.parseStart = parseStart;
+    this.parseEnd = parseEnd;
+  }
+
+  /**
+   * Adds a listener. It will be called with each parsed event from every log.
+   *
+   * @param eqLogListener The listener to add.
+   */
+  public void addListener(EqLogListener eqLogListener) {
+    dispatcher.addListener(eqLogListener);
+  }
+
+  /**
+   * Adds a listener that's only called with events (from every log) whose
+   * payloads match at least one of the given filters.
+   *
+   * @param eqLogListener The listener to add.
+   * @param filters Filters to match payloads against.
+   */
+  public void addListener(EqLogListener eqLogListener, EqLogFilter... filters) {
+    dispatcher.addListener(eqLogListener, filters);
+  }
+
+  /**
+   * Reads until every log has passed parseEnd (which with Instant.MAX is
+   * never), or until the thread is interrupted.
+   *
+   * @throws UncheckedIOException If the logs directory can't be watched.
+   */
+  @Override
+  public void run() {
+    Path logsDirectory = eqInstallDirectory.resolve(EqLog.LOGS_DIRECTORY);
+    LogWatcher logWatcher;
+    try {
+      logWatcher = LogWatcher.createForDirectory(logsDirectory);
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          "Couldn't watch logs directory " + logsDirectory, e);
+    }
+    long lastScan = 0;
+    while (!Thread.currentThread().isInterrupted()) {
+      if (tailedLogs.isEmpty()
+          || System.nanoTime() - lastScan >= RESCAN_INTERVAL.toNanos()) {
+        scan(logsDirectory);
+        lastScan = System.nanoTime();
+      }
+      boolean readAny = false;
+      boolean allFinished = !tailedLogs.isEmpty();
+      for (TailedLog tailedLog : tailedLogs) {
+        if (!tailedLog.finished) {
+          readAny |= read(tailedLog);
+        }
+        allFinished &= tailedLog.finished;
+      }
+      if (allFinished) {
+        break;
+      }
+      if (!readAny) {
+        try {
+          logWatcher.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+    try {
+      logWatcher.close();
+    } catch (IOException e) {
+      // TODO: Handle this more gracefully.
+      e.printStackTrace();
+    }
+    for (TailedLog tailedLog : tailedLogs) {
+      close(tailedLog);
+    }
+  }
+
+  // Starts tailing any logs that have appeared since the last scan. A log
+  // that fails to open doesn't stop the others, and is retried next scan.
+  private void scan(Path logsDirectory) {
+    try (DirectoryStream<Path> logFiles =
+        Files.newDirectoryStream(logsDirectory, "eqlog_*.txt")) {
+      for (Path logFile : logFiles) {
+        if (knownLogFiles.contains(logFile)) {
+          continue;
+        }
+        Optional<EqLogSource> maybeSource =
+            EqLogSource.parseFromLogFileName(logFile.getFileName().toString());
+        if (maybeSource.isEmpty() || !sourceFilter.test(maybeSource.get())) {
+          knownLogFiles.add(logFile);
+          continue;
+        }
+        try {
+          long position = new InterpolationSearchLogSeeker(
+              logFile.toFile(),
+              EqLogEvent.LINE_PATTERN,
+              EqLogEvent.TIMESTAMP_FORMAT,
+              timezone)
+              .seekPosition(parseStart);
+          LogLineReader reader = new LogLineReader(logFile.toFile(), READ_BUFFER_SIZE);
+          reader.seek(position);
+          tailedLogs.add(new TailedLog(maybeSource.get(), logFile, reader));
+          knownLogFiles.add(logFile);
+        } catch (IOException e) {
+          // Left out of knownLogFiles, so it's retried on the next scan.
+          e.printStackTrace();
+        }
+      }
+    } catch (IOException e) {
+      // TODO: Handle this more gracefully.
+      e.printStackTrace();
+    }
+  }
+
+  // Reads and dispatches up to MAX_LINES_PER_PASS lines appended to a log
+  // since it was last read. Returns whether anything was read.
+  private boolean read(TailedLog tailedLog) {
+    boolean readAny = false;
+    try {
+      if (Files.size(tailedLog.logFile) < tailedLog.reader.getPosition()) {
+        // The log was truncated, so start over.
+        tailedLog.reader.seek(0);
+      }
+      for (int i = 0; i < MAX_LINES_PER_PASS && !tailedLog.finished; i++) {
+        CharSequence line = tailedLog.reader.readLine();
+        if (line == null) {
+          break;
+        }
+        readAny = true;
+        dispatch(tailedLog, line);
+      }
+    } catch (ClosedByInterruptException e) {
+      // The thread was interrupted mid-read, so run() stops.
+    } catch (IOException e) {
+      // TODO: Handle this more gracefully.
+      e.printStackTrace();
+      tailedLog.finished = true;
+      close(tailedLog);
+    }
+    return readAny;
+  }
+
+  private void dispatch(TailedLog tailedLog, CharSequence line) {
+    // Checked on the reader's view first so that malformed lines are skipped
+    // without being copied out.
+    long localEpochSecond = tailedLog.timestampCache.getEpochSecond(line);
+    if (localEpochSecond == EqLogTimestampParser.INVALID) {
+      return;
+    }
+    // See EqLog.run().
+    if (!parseEnd.equals(Instant.MAX)
+        && tailedLog.timestampCache.getInstant(localEpochSecond, timezone)
+            .isAfter(parseEnd)) {
+      tailedLog.finished = true;
+      close(tailedLog);
+      return;
+    }
+    dispatcher.dispatch(
+        EqLogEvent.of(line.toString(), localEpochSecond, tailedLog.source));
+  }
+
+  private void close(TailedLog tailedLog) {
+    try {
+      tailedLog.reader.close();
+    } catch (IOException e) {
+      // TODO: Handle this more gracefully.
+      e.printStackTrace();
+    }
+  }
+
+  // Per-log read state.
+  private static class TailedLog {
+
+    private final EqLogSource source;
+    private final Path logFile;
+    private final LogLineReader reader;
+    // Each log gets its own cache since lines from different logs interleave.
+    private final EqLogTimestampCache timestampCache = new EqLogTimestampCache();
+    private boolean finished = false;
+
+    private TailedLog(EqLogSource source, Path logFile, LogLineReader reader) {
+      this.source = source;
+      this.logFile = logFile;
+      this.reader = reader;
+    }
+
+  }
+
+}
@@ -0,0 +1,190 @@
+package com.edmazur.eqlp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calls listeners with events, skipping listeners whose filters don't match.
+ *
+ * <p>All prefix and contains filters are compiled into a single Aho-Corasick
+ * automaton, so each payload is scanned once no matter how many listeners
+ * there are. Regex filters (and literals with non-ASCII characters) are then
+ * only evaluated for listeners that haven't matched yet.
+ *
+ * <p>Adding listeners isn't thread-safe, but dispatching is, as long as
+ * listeners aren't being added at the same time.
+ */
+class EqLogDispatcher {
+
+  private final List<EqLogListener> eqLogListeners =
+      new ArrayList<EqLogListener>();
+  private final List<EqLogFilter[]> eqLogFilters = new ArrayList<EqLogFilter[]>();
+  // Null if listeners aren't being timed.
+  private final EqLogMetrics metrics;
+  private final List<EqLogHistogram> latencies = new ArrayList<EqLogHistogram>();
+
+  private Compiled compiled = new Compiled(eqLogListeners, eqLogFilters, latencies);
+
+  EqLogDispatcher() {
+    this(null);
+  }
+
+  /**
+   * Creates a dispatcher that records how long each listener takes in
+   * metrics.
+   */
+  EqLogDispatcher(EqLogMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Adds a listener. If filters are given, it's only called with events whose
+   * payloads match at least one of them. Listeners are called in the order
+   * they were added.
+   */
+  void addListener(EqLogListener eqLogListener, EqLogFilter... filters) {
+    addListener(null, eqLogListener, filters);
+  }
+
+  // Like addListener(EqLogListener, EqLogFilter...), but names the listener in
+  // metrics. A null name uses a default based on the listener.
+  void addListener(String name, EqLogListener eqLogListener, EqLogFilter... filters) {
+    eqLogListeners.add(eqLogListener);
+    eqLogFilters.add(filters.clone());
+    latencies.add(metrics == null ? null : metrics.addListener(name, eqLogListener));
+    compiled = new Compiled(eqLogListeners, eqLogFilters, latencies);
+  }
+
+  void dispatch(EqLogEvent eqLogEvent) {
+    compiled.dispatch(eqLogEvent);
+  }
+
+  void dispatch(List<EqLogEvent> eqLogEvents) {
+    Compiled compiled = this.compiled;
+    for (EqLogEvent eqLogEvent : eqLogEvents) {
+      compiled.dispatch(eqLogEvent);
+    }
+  }
+
+  private static class Compiled {
+
+    private final EqLogListener[] eqLogListeners;
+    // Null entries for listeners that aren't timed.
+    private final EqLogHistogram[] latencies;
+    // Whether each listener is called with every event.
+    private final boolean[] unfiltered;
+    private final boolean anyFiltered;
+
+    private final AhoCorasick automaton;
+    // Which listener each literal in the automaton belongs to.
+    private final int[] literalListeners;
+
+    // Filters not in the automaton, and which listener each belongs to.
+    private final EqLogFilter[] otherFilters;
+    private final int[] otherFilterListeners;
+
+    Compiled(
+        List<EqLogListener> eqLogListeners,
+        List<EqLogFilter[]> eqLogFilters,
+        List<EqLogHistogram> latencies) {
+      this.eqLogListeners = eqLogListeners.toArray(new EqLogListener[0]);
+      this.latencies = latencies.toArray(new EqLogHistogram[0]);
+      this.unfiltered = new boolean[this.eqLogListeners.length];
+      List<String> literals = new ArrayList<String>();
+      List<Boolean> anchored = new ArrayList<Boolean>();
+      List<Integer> literalListeners = new ArrayList<Integer>();
+      List<EqLogFilter> otherFilters = new ArrayList<EqLogFilter>();
+      List<Integer> otherFilterListeners = new ArrayList<Integer>();
+      boolean anyFiltered = false;
+      for (int listener = 0; listener < unfiltered.length; listener++) {
+        EqLogFilter[] filters = eqLogFilters.get(listener);
+        unfiltered[listener] = filters.length == 0;
+        anyFiltered |= filters.length != 0;
+        for (EqLogFilter filter : filters) {
+          if (filter.getType() != EqLogFilter.Type.REGEX
+              && isAscii(filter.getLiteral())) {
+            literals.add(filter.getLiteral());
+            anchored.add(filter.getType() == EqLogFilter.Type.PREFIX);
+            literalListeners.add(listener);
+          } else {
+            otherFilters.add(filter);
+            otherFilterListeners.add(listener);
+          }
+        }
+      }
+      this.anyFiltered = anyFiltered;
+      boolean[] anchoredArray = new boolean[anchored.size()];
+      for (int i = 0; i < anchoredArray.length; i++) {
+        anchoredArray[i] = anchored.get(i);
+      }
+      this.automaton = new AhoCorasick(literals, anchoredArray);
+      this.literalListeners = toArray(literalListeners);
+      this.otherFilters = otherFilters.toArray(new EqLogFilter[0]);
+      this.otherFilterListeners = toArray(otherFilterListeners);
+    }
+
+    void dispatch(EqLogEvent eqLogEvent) {
+      if (!anyFiltered) {
+        for (int listener = 0; listener < eqLogListeners.length; listener++) {
+          call(listener, eqLogEvent);
+        }
+        return;
+      }
+
+      // Literals are matched against the full line so that the payload is only
+      // materialized if a regex needs it.
+      boolean[] matchedLiterals = new boolean[literalListeners.length];
+      automaton.match(
+          eqLogEvent.getFullLine(), EqLogTimestampParser.PAYLOAD_START, matchedLiterals);
+      boolean[] matched = Arrays.copyOf(unfiltered, unfiltered.length);
+      for (int i = 0; i < matchedLiterals.length; i++) {
+        if (matchedLiterals[i]) {
+          matched[literalListeners[i]] = true;
+        }
+      }
+      for (int i = 0; i < otherFilters.length; i++) {
+        int listener = otherFilterListeners[i];
+        if (!matched[listener] && otherFilters[i].matches(eqLogEvent.getPayload())) {
+          matched[listener] = true;
+        }
+      }
+
+      for (int listener = 0; listener < eqLogListeners.length; listener++) {
+        if (matched[listener]) {
+          call(listener, eqLogEvent);
+        }
+      }
+    }
+
+    private void call(int listener, EqLogEvent eqLogEvent) {
+      EqLogHistogram latency = latencies[listener];
+      if (latency == null) {
+        eqLogListeners[listener].onEvent(eqLogEvent);
+        return;
+      }
+      long start = System.nanoTime();
+      eqLogListeners[listener].onEvent(eqLogEvent);
+      latency.record(System.nanoTime() - start);
+    }
+
+    private static boolean isAscii(String string) {
+      for (int i = 0; i < string.length(); i++) {
+        if (string.charAt(i) >= 128) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+      int[] array = new int[list.size()];
+      for (int i = 0; i < array.length; i++) {
+        array[i] = list.get(i);
+      }
+      return array;
+    }
+
+  }
+
+}
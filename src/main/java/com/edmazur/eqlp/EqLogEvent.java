@@ -1,10 +1,10 @@
 package com.edmazur.eqlp;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -13,22 +13,44 @@ import java.util.regex.Pattern;
  */
 public class EqLogEvent {
 
+  // These describe the line format for general-purpose tools like LogSeeker.
+  // Parsing within this library goes through EqLogTimestampParser, which is
+  // equivalent but much cheaper.
   public static final Pattern LINE_PATTERN =
       Pattern.compile("^\\[(.+?)\\] (.+)$");
   public static final DateTimeFormatter TIMESTAMP_FORMAT =
       DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss yyyy");
 
+  // For rebuilding lines. Log timestamps are always in English.
+  private static final DateTimeFormatter HEADER_FORMAT =
+      TIMESTAMP_FORMAT.withLocale(Locale.US);
+
+  // Backs parseFromLine(String) for callers that don't manage their own cache.
+  private static final ThreadLocal<EqLogTimestampCache> DEFAULT_TIMESTAMP_CACHE =
+      ThreadLocal.withInitial(EqLogTimestampCache::new);
+
   // Example: "[Fri Oct 25 18:58:06 2019] Stanvern says out of character, 'hi'"
   private final String fullLine;
+  // Example: "Fri Oct 25 18:58:06 2019" as seconds since the epoch, as if the
+  // local time were UTC.
+  private final long localEpochSecond;
+  // Null if the line wasn't read from a known log file.
+  private final EqLogSource source;
+
+  // The timestamp, payload and type aren't materialized until first asked
+  // for, since most listeners ignore most events. All are immutable, so racing
+  // threads at worst each materialize their own equal copy.
   // Example: LocalDateTime representation of "Fri Oct 25 18:58:06 2019"
-  private final LocalDateTime timestamp;
+  private LocalDateTime timestamp;
   // Example: "Stanvern says out of character, 'hi'"
-  private final String payload;
+  private String payload;
+  // Example: EqLogEventType.OOC
+  private EqLogEventType type;
 
-  private EqLogEvent(String fullLine, LocalDateTime timestamp, String payload) {
+  private EqLogEvent(String fullLine, long localEpochSecond, EqLogSource source) {
     this.fullLine = fullLine;
-    this.timestamp = timestamp;
-    this.payload = payload;
+    this.localEpochSecond = localEpochSecond;
+    this.source = source;
   }
 
   /**
@@ -39,22 +61,46 @@ public class EqLogEvent {
    *     parsed.
    */
   public static Optional<EqLogEvent> parseFromLine(String line) {
-    // TODO: Make this more robust against bad input.
-    Matcher matcher = LINE_PATTERN.matcher(line);
-    if (matcher.matches() && matcher.groupCount() == 2) {
-      LocalDateTime timestamp = null;
-      try {
-        timestamp = LocalDateTime.parse(matcher.group(1), TIMESTAMP_FORMAT);
-      } catch (DateTimeParseException e) {
-        // TODO: Handle this more gracefully.
-        return Optional.empty();
-      }
-      String payload = matcher.group(2);
-      return Optional.of(new EqLogEvent(line, timestamp, payload));
-    } else {
+    return parseFromLine(line, DEFAULT_TIMESTAMP_CACHE.get());
+  }
+
+  /**
+   * Parses an EQ log event from a single log line, reusing the timestamp of
+   * the previously parsed line if it has the same header.
+   *
+   * @param line The line to parse.
+   * @param timestampCache Cache to look up the line's timestamp in.
+   * @return The parsed line, or Optional.empty() if the input could not be
+   *     parsed.
+   */
+  public static Optional<EqLogEvent> parseFromLine(
+      String line, EqLogTimestampCache timestampCache) {
+    return parseFromLine(line, timestampCache, null);
+  }
+
+  // Like parseFromLine(String, EqLogTimestampCache), but tags the event with
+  // the log it was read from.
+  static Optional<EqLogEvent> parseFromLine(
+      String line, EqLogTimestampCache timestampCache, EqLogSource source) {
+    long localEpochSecond = timestampCache.getEpochSecond(line);
+    if (localEpochSecond == EqLogTimestampParser.INVALID) {
       // TODO: Handle this more gracefully.
       return Optional.empty();
     }
+    return Optional.of(new EqLogEvent(line, localEpochSecond, source));
+  }
+
+  // Creates an event from a line that's already known to be valid, e.g. one
+  // rebuilt from stored parts.
+  static EqLogEvent of(String line, long localEpochSecond, EqLogSource source) {
+    return new EqLogEvent(line, localEpochSecond, source);
+  }
+
+  // Formats a line header (e.g. "[Fri Oct 25 18:58:06 2019] ") for a
+  // timestamp.
+  static String formatHeader(long localEpochSecond) {
+    return "[" + HEADER_FORMAT.format(
+        LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC)) + "] ";
   }
 
   @Override
@@ -66,12 +112,65 @@ public class EqLogEvent {
     return fullLine;
   }
 
+  long getLocalEpochSecond() {
+    return localEpochSecond;
+  }
+
+  /**
+   * Returns the line's timestamp, creating it on first call.
+   */
   public LocalDateTime getTimestamp() {
+    LocalDateTime timestamp = this.timestamp;
+    if (timestamp == null) {
+      timestamp =
+          LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC);
+      this.timestamp = timestamp;
+    }
     return timestamp;
   }
 
+  /**
+   * Returns the line's payload, creating it on first call.
+   */
   public String getPayload() {
+    String payload = this.payload;
+    if (payload == null) {
+      // Short payloads are mostly system and combat messages that repeat
+      // throughout the log, so events share one copy of each.
+      payload = EqLogStringPool.SHARED.intern(
+          fullLine, EqLogTimestampParser.PAYLOAD_START, fullLine.length());
+      this.payload = payload;
+    }
     return payload;
   }
 
+  /**
+   * Returns the kind of message this is, classifying it on first call.
+   */
+  public EqLogEventType getType() {
+    EqLogEventType type = this.type;
+    if (type == null) {
+      type = EqLogEventClassifier.getType(getPayload());
+      this.type = type;
+    }
+    return type;
+  }
+
+  /**
+   * Classifies the payload, including its fields (speaker, target, etc.).
+   * Use EqLogEventClassifier directly to reuse a classification across
+   * events.
+   */
+  public EqLogEventClassification classify() {
+    return EqLogEventClassifier.classify(getPayload());
+  }
+
+  /**
+   * Returns the character and server whose log this event was read from, or
+   * Optional.empty() if it wasn't read from a log file.
+   */
+  public Optional<EqLogSource> getSource() {
+    return Optional.ofNullable(source);
+  }
+
 }
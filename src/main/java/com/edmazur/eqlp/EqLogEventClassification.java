@@ -0,0 +1,101 @@
+package com.edmazur.eqlp;
+
+/**
+ * The result of classifying an event's payload: its type, plus whichever of
+ * actor, target, amount and text apply to that type (see EqLogEventType).
+ * Names are pooled, so retaining them is cheap, but compare them with
+ * equals() since the pool is bounded. Text is given as offsets into the
+ * payload so that reading it is optional.
+ *
+ * <p>Instances are mutable so that they can be reused across events, and are
+ * not thread-safe.
+ */
+public class EqLogEventClassification {
+
+  /**
+   * Returned by getAmount() for types without an amount.
+   */
+  public static final long NO_AMOUNT = -1;
+
+  private CharSequence payload;
+  private EqLogEventType type = EqLogEventType.OTHER;
+  private String actor;
+  private String target;
+  private long amount = NO_AMOUNT;
+  private int textStart = -1;
+  private int textEnd = -1;
+
+  public EqLogEventType getType() {
+    return type;
+  }
+
+  /**
+   * Returns who spoke, attacked, cast, looted, etc., or null if not
+   * applicable. "You" when it's the player whose log this is.
+   */
+  public String getActor() {
+    return actor;
+  }
+
+  /**
+   * Returns who was told, attacked, slain, etc., or null if not applicable.
+   * "You" when it's the player whose log this is.
+   */
+  public String getTarget() {
+    return target;
+  }
+
+  /**
+   * Returns the amount of damage, or NO_AMOUNT if not applicable.
+   */
+  public long getAmount() {
+    return amount;
+  }
+
+  /**
+   * Returns the message, item, zone or spell name, or null if not applicable.
+   * Short text is pooled, so repeated item and zone names share an instance.
+   */
+  public String getText() {
+    return textStart < 0 ? null : EqLogStringPool.SHARED.intern(payload, textStart, textEnd);
+  }
+
+  /**
+   * Returns the offset of the text in the payload, or -1 if there is none.
+   */
+  public int getTextStart() {
+    return textStart;
+  }
+
+  /**
+   * Returns the offset just past the end of the text in the payload, or -1 if
+   * there is none.
+   */
+  public int getTextEnd() {
+    return textEnd;
+  }
+
+  @Override
+  public String toString() {
+    return type + " actor=" + actor + " target=" + target + " amount=" + amount
+        + " text=" + getText();
+  }
+
+  void set(
+      CharSequence payload,
+      EqLogEventType type,
+      String actor,
+      String target,
+      long amount,
+      int textStart,
+      int textEnd) {
+    this.payload = payload;
+    this.type = type;
+    this.actor = actor;
+    this.target = target;
+    this.amount = amount;
+    this.textStart = textStart;
+    this.textEnd = textEnd;
+  }
+
+}
@@ -0,0 +1,437 @@
+package com.edmazur.eqlp;
+
+import java.util.Arrays;
+
+/**
+ * Works out what kind of message a payload is (see EqLogEventType) and picks
+ * out its fields, so that listeners don't each need their own regexes.
+ *
+ * <p>Payloads are classified in a single pass: each space is checked for a
+ * following marker (e.g. " tells you, '"), with the character after the space
+ * selecting which few markers to try. The first marker found decides the type,
+ * so e.g. a tell quoting a melee message is still a tell.
+ */
+public final class EqLogEventClassifier {
+
+  private static final String YOU = "You";
+
+  // Melee verbs as they follow an attacker other than you.
+  private static final String[] VERBS = {
+    "backstabs", "bashes", "bites", "claws", "crushes", "gores", "hits",
+    "kicks", "mauls", "pierces", "punches", "rends", "slashes", "slices",
+    "smashes", "stings", "strikes",
+  };
+  // Melee verbs as they follow "You ".
+  private static final String[] YOU_VERBS = {
+    "backstab", "bash", "bite", "claw", "crush", "gore", "hit", "kick", "maul",
+    "pierce", "punch", "rend", "slash", "slice", "smash", "sting", "strike",
+  };
+  // Known messages for spells landing on you, following "You ". Plenty of
+  // other messages start "You feel ", so only these are matched.
+  private static final String[] LANDED_ON_YOU = {
+    "feel a little better.", "feel better.", "feel much better.", "feel quick.",
+    "feel stronger.", "feel the spirit of wolf enter you.",
+  };
+  // Known messages for spells landing on someone else, following "<name>'s ".
+  private static final String[] LANDED_ON_OTHER = {
+    "skin turns hard as steel.", "skin turns to diamond.", "skin turns to steel.",
+    "skin turns to stone.", "skin turns to wood.",
+  };
+  // VERBS as " verb ", grouped by first letter.
+  private static final String[][] VERB_MARKERS = groupByFirstLetter(VERBS);
+
+  private EqLogEventClassifier() {
+  }
+
+  /**
+   * Classifies a payload.
+   *
+   * @return A new classification of the payload.
+   */
+  public static EqLogEventClassification classify(CharSequence payload) {
+    EqLogEventClassification classification = new EqLogEventClassification();
+    classify(payload, classification);
+    return classification;
+  }
+
+  /**
+   * Classifies a payload into an existing classification, replacing its
+   * contents.
+   *
+   * @return The payload's type.
+   */
+  public static EqLogEventType classify(
+      CharSequence payload, EqLogEventClassification into) {
+    return classifyInto(payload, into);
+  }
+
+  /**
+   * Returns a payload's type without extracting any of its fields.
+   */
+  public static EqLogEventType getType(CharSequence payload) {
+    return classifyInto(payload, null);
+  }
+
+  // Fields are only extracted if into is non-null.
+  private static EqLogEventType classifyInto(
+      CharSequence payload, EqLogEventClassification into) {
+    EqLogEventType type = null;
+    if (startsWith(payload, 0, "--")) {
+      type = classifyLoot(payload, into);
+    } else if (startsWith(payload, 0, "You ")) {
+      type = classifyYou(payload, into);
+    } else {
+      for (int space = indexOf(payload, ' ', 0);
+          space >= 0 && type == null;
+          space = indexOf(payload, ' ', space + 1)) {
+        type = classifyAt(payload, space, into);
+      }
+    }
+    if (type == null) {
+      type = found(into, payload, EqLogEventType.OTHER, -1, -1, -1, -1, -1, -1, -1);
+    }
+    return type;
+  }
+
+  // Checks for a marker starting at the space at the given offset. Returns
+  // null if there isn't one.
+  private static EqLogEventType classifyAt(
+      CharSequence payload, int space, EqLogEventClassification into) {
+    if (space + 1 >= payload.length()) {
+      return null;
+    }
+    switch (payload.charAt(space + 1)) {
+      case 't':
+        if (startsWith(payload, space, " tells you, '")) {
+          return chat(into, payload, EqLogEventType.TELL, space, space + 7, space + 10,
+              space + 13);
+        }
+        if (startsWith(payload, space, " tells the guild, '")) {
+          return chat(into, payload, EqLogEventType.GUILD, space, -1, -1, space + 19);
+        }
+        if (startsWith(payload, space, " tells the group, '")) {
+          return chat(into, payload, EqLogEventType.GROUP, space, -1, -1, space + 19);
+        }
+        if (startsWith(payload, space, " tries to ")) {
+          return miss(into, payload, 0, space, space + 10);
+        }
+        break;
+      case 's':
+        if (startsWith(payload, space, " says, '")) {
+          return chat(into, payload, EqLogEventType.SAY, space, -1, -1, space + 8);
+        }
+        if (startsWith(payload, space, " says out of character, '")) {
+          return chat(into, payload, EqLogEventType.OOC, space, -1, -1, space + 25);
+        }
+        if (startsWith(payload, space, " shouts, '")) {
+          return chat(into, payload, EqLogEventType.SHOUT, space, -1, -1, space + 10);
+        }
+        if (startsWith(payload, space - 2, "'s skin ")
+            && endsWithAny(payload, space + 1, LANDED_ON_OTHER)) {
+          return found(into, payload, EqLogEventType.SPELL_LANDED, -1, -1, 0, space - 2,
+              -1, space + 1, trimEnd(payload, '.'));
+        }
+        break;
+      case 'a':
+        if (startsWith(payload, space, " auctions, '")) {
+          return chat(into, payload, EqLogEventType.AUCTION, space, -1, -1, space + 12);
+        }
+        break;
+      case 'b':
+        if (startsWith(payload, space, " begins to cast a spell.")) {
+          return found(into, payload, EqLogEventType.SPELL, 0, space, -1, -1, -1, -1, -1);
+        }
+        break;
+      case 'w':
+        if (startsWith(payload, space, " was hit by non-melee for ")) {
+          int damage = findDamage(payload);
+          if (damage >= 0) {
+            return found(into, payload, EqLogEventType.NON_MELEE, -1, -1, 0, space,
+                parseAmount(payload, damage), -1, -1);
+          }
+        }
+        break;
+      case 'h':
+        if (startsWith(payload, space, " has been slain by ")) {
+          return found(into, payload, EqLogEventType.SLAIN, space + 19,
+              trimEnd(payload, '!'), 0, space, -1, -1, -1);
+        }
+        break;
+      default:
+        break;
+    }
+    char letter = payload.charAt(space + 1);
+    String[] verbMarkers = letter < VERB_MARKERS.length ? VERB_MARKERS[letter] : null;
+    if (verbMarkers != null) {
+      for (String verbMarker : verbMarkers) {
+        if (startsWith(payload, space, verbMarker)) {
+          return melee(into, payload, 0, space, space + verbMarker.length());
+        }
+      }
+    }
+    return null;
+  }
+
+  // Classifies payloads starting with "You ". Returns null if none match.
+  private static EqLogEventType classifyYou(
+      CharSequence payload, EqLogEventClassification into) {
+    if (startsWith(payload, 0, "You have entered ")) {
+      return found(into, payload, EqLogEventType.ZONE, 0, 3, -1, -1, -1, 17,
+          trimEnd(payload, '.'));
+    }
+    if (startsWith(payload, 0, "You have slain ")) {
+      return found(into, payload, EqLogEventType.SLAIN, 0, 3, 15, trimEnd(payload, '!'),
+          -1, -1, -1);
+    }
+    if (startsWith(payload, 0, "You have been slain by ")) {
+      return found(into, payload, EqLogEventType.SLAIN, 23, trimEnd(payload, '!'), 0, 3,
+          -1, -1, -1);
+    }
+    if (startsWith(payload, 0, "You told ")) {
+      int comma = indexOf(payload, ", '", 9);
+      if (comma >= 0) {
+        return chat(into, payload, EqLogEventType.TELL, 3, 9, comma, comma + 3);
+      }
+    }
+    if (startsWith(payload, 0, "You say, '")) {
+      return chat(into, payload, EqLogEventType.SAY, 3, -1, -1, 10);
+    }
+    if (startsWith(payload, 0, "You say out of character, '")) {
+      return chat(into, payload, EqLogEventType.OOC, 3, -1, -1, 27);
+    }
+    if (startsWith(payload, 0, "You shout, '")) {
+      return chat(into, payload, EqLogEventType.SHOUT, 3, -1, -1, 12);
+    }
+    if (startsWith(payload, 0, "You auction, '")) {
+      return chat(into, payload, EqLogEventType.AUCTION, 3, -1, -1, 14);
+    }
+    if (startsWith(payload, 0, "You say to your guild, '")) {
+      return chat(into, payload, EqLogEventType.GUILD, 3, -1, -1, 24);
+    }
+    if (startsWith(payload, 0, "You tell your party, '")) {
+      return chat(into, payload, EqLogEventType.GROUP, 3, -1, -1, 22);
+    }
+    if (startsWith(payload, 0, "You begin casting ")) {
+      return found(into, payload, EqLogEventType.SPELL, 0, 3, -1, -1, -1, 18,
+          trimEnd(payload, '.'));
+    }
+    if (startsWith(payload, 0, "You feel ") && endsWithAny(payload, 4, LANDED_ON_YOU)) {
+      return found(into, payload, EqLogEventType.SPELL_LANDED, -1, -1, 0, 3, -1, 4,
+          trimEnd(payload, '.'));
+    }
+    if (startsWith(payload, 0, "You try to ")) {
+      return miss(into, payload, 0, 3, 11);
+    }
+    for (String verb : YOU_VERBS) {
+      if (startsWith(payload, 4, verb)
+          && startsWith(payload, 4 + verb.length(), " ")) {
+        return melee(into, payload, 0, 3, 4 + verb.length() + 1);
+      }
+    }
+    return null;
+  }
+
+  // "--Soandso has looted a Bone Chip.--"
+  private static EqLogEventType classifyLoot(
+      CharSequence payload, EqLogEventClassification into) {
+    if (!endsWith(payload, ".--")) {
+      return null;
+    }
+    int marker = indexOf(payload, " has looted ", 2);
+    int itemStart = marker + 12;
+    if (marker < 0) {
+      marker = indexOf(payload, " have looted ", 2);
+      itemStart = marker + 13;
+    }
+    if (marker < 0) {
+      return null;
+    }
+    if (startsWith(payload, itemStart, "a ")) {
+      itemStart += 2;
+    } else if (startsWith(payload, itemStart, "an ")) {
+      itemStart += 3;
+    }
+    return found(into, payload, EqLogEventType.LOOT, 2, marker, -1, -1, -1, itemStart,
+        payload.length() - 3);
+  }
+
+  // Chat text runs from textStart to the closing quote.
+  private static EqLogEventType chat(
+      EqLogEventClassification into,
+      CharSequence payload,
+      EqLogEventType type,
+      int actorEnd,
+      int targetStart,
+      int targetEnd,
+      int textStart) {
+    return found(into, payload, type, 0, actorEnd, targetStart, targetEnd, -1, textStart,
+        trimEnd(payload, '\''));
+  }
+
+  // "<actor> <verb> <target> for <amount> points of damage."
+  private static EqLogEventType melee(
+      EqLogEventClassification into,
+      CharSequence payload,
+      int actorStart,
+      int actorEnd,
+      int targetStart) {
+    int damage = findDamage(payload);
+    if (damage < targetStart) {
+      return null;
+    }
+    return found(into, payload, EqLogEventType.MELEE_HIT, actorStart, actorEnd, targetStart,
+        damage, parseAmount(payload, damage), -1, -1);
+  }
+
+  // "<actor> tries to <verb> <target>, but misses!"
+  private static EqLogEventType miss(
+      EqLogEventClassification into,
+      CharSequence payload,
+      int actorStart,
+      int actorEnd,
+      int verbStart) {
+    int targetStart = indexOf(payload, ' ', verbStart) + 1;
+    int targetEnd = targetStart > 0 ? indexOf(payload, ", but ", targetStart) : -1;
+    if (targetEnd < 0) {
+      return null;
+    }
+    return found(into, payload, EqLogEventType.MELEE_MISS, actorStart, actorEnd,
+        targetStart, targetEnd, -1, -1, -1);
+  }
+
+  // Returns the offset of " for " in a payload ending with " for <amount>
+  // point(s) of damage.", or -1 if it doesn't end that way.
+  private static int findDamage(CharSequence payload) {
+    int suffix;
+    if (endsWith(payload, " points of damage.")) {
+      suffix = payload.length() - 18;
+    } else if (endsWith(payload, " point of damage.")) {
+      suffix = payload.length() - 17;
+    } else {
+      return -1;
+    }
+    int digits = suffix;
+    while (digits > 0 && Character.isDigit(payload.charAt(digits - 1))) {
+      digits--;
+    }
+    if (digits == suffix || !startsWith(payload, digits - 5, " for ")) {
+      return -1;
+    }
+    return digits - 5;
+  }
+
+  // Parses the amount following " for " at the given offset.
+  private static long parseAmount(CharSequence payload, int damage) {
+    long amount = 0;
+    for (int i = damage + 5; i < payload.length(); i++) {
+      char c = payload.charAt(i);
+      if (c < '0' || c > '9') {
+        break;
+      }
+      amount = amount * 10 + (c - '0');
+    }
+    return amount;
+  }
+
+  // Sets fields given as offsets into the payload, with -1 for fields that
+  // don't apply.
+  private static EqLogEventType found(
+      EqLogEventClassification into,
+      CharSequence payload,
+      EqLogEventType type,
+      int actorStart,
+      int actorEnd,
+      int targetStart,
+      int targetEnd,
+      long amount,
+      int textStart,
+      int textEnd) {
+    if (into != null) {
+      into.set(
+          payload,
+          type,
+          getName(payload, actorStart, actorEnd),
+          getName(payload, targetStart, targetEnd),
+          amount,
+          textStart,
+          textStart < 0 ? -1 : Math.max(textStart, textEnd));
+    }
+    return type;
+  }
+
+  private static String getName(CharSequence payload, int start, int end) {
+    if (start < 0 || end <= start) {
+      return null;
+    }
+    if (end - start == YOU.length()
+        && (startsWith(payload, start, "You")
+            || startsWith(payload, start, "YOU")
+            || startsWith(payload, start, "you"))) {
+      return YOU;
+    }
+    return EqLogStringPool.SHARED.intern(payload, start, end);
+  }
+
+  // Returns the offset of the end of the payload, excluding a trailing c.
+  private static int trimEnd(CharSequence payload, char c) {
+    int length = payload.length();
+    return length > 0 && payload.charAt(length - 1) == c ? length - 1 : length;
+  }
+
+  private static boolean startsWith(CharSequence payload, int offset, String prefix) {
+    if (offset < 0 || offset + prefix.length() > payload.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (payload.charAt(offset + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean endsWith(CharSequence payload, String suffix) {
+    return startsWith(payload, payload.length() - suffix.length(), suffix);
+  }
+
+  // Whether the payload from offset on is exactly one of the options.
+  private static boolean endsWithAny(CharSequence payload, int offset, String[] options) {
+    for (String option : options) {
+      if (offset + option.length() == payload.length() && startsWith(payload, offset, option)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int indexOf(CharSequence payload, char c, int from) {
+    for (int i = from; i < payload.length(); i++) {
+      if (payload.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int indexOf(CharSequence payload, String string, int from) {
+    for (int i = from; i + string.length() <= payload.length(); i++) {
+      if (startsWith(payload, i, string)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String[][] groupByFirstLetter(String[] verbs) {
+    String[][] markers = new String[128][];
+    for (String verb : verbs) {
+      char letter = verb.charAt(0);
+      String[] existing = markers[letter] == null ? new String[0] : markers[letter];
+      String[] grown = Arrays.copyOf(existing, existing.length + 1);
+      grown[existing.length] = " " + verb + " ";
+      markers[letter] = grown;
+    }
+    return markers;
+  }
+
+}
@@ -0,0 +1,349 @@
+package com.edmazur.eqlp;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps recent events in memory for querying by time range, e.g. for "who was
+ * around in the last hour" or DKP lookups. Add it as a listener to fill it.
+ *
+ * <p>Events are stored column-wise in primitive arrays rather than as
+ * EqLogEvent objects: timestamps as local epoch seconds, payloads as Latin-1
+ * bytes in a shared arena, and types as codes. That's around 20 bytes per
+ * event on top of the payload itself. Events are rebuilt when queried.
+ * Payloads with characters outside Latin-1 are stored as UTF-8 instead, so
+ * they still come back unchanged.
+ *
+ * <p>Events are kept sorted by timestamp, so events arriving out of order
+ * (e.g. from several logs) are slotted into place. Timestamps are local times,
+ * as with EqLogEvent.getTimestamp().
+ *
+ * <p>Instances are thread-safe.
+ */
+public class EqLogEventStore implements EqLogListener {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int INITIAL_ARENA_SIZE = 64 * 1024;
+
+  private final long maxAgeSeconds;
+
+  // Column i holds the i-th oldest event. Live events are those in
+  // [head, tail); evicted ones before head are dropped when the columns are
+  // next compacted.
+  private long[] localEpochSeconds = new long[INITIAL_CAPACITY];
+  private int[] payloadOffsets = new int[INITIAL_CAPACITY];
+  private int[] payloadLengths = new int[INITIAL_CAPACITY];
+  private byte[] types = new byte[INITIAL_CAPACITY];
+  // Whether the payload is stored as UTF-8 rather than Latin-1.
+  private boolean[] utf8Payloads = new boolean[INITIAL_CAPACITY];
+  // Indexes into sourceTable, or -1 for events without a source.
+  private short[] sources = new short[INITIAL_CAPACITY];
+  private final List<EqLogSource> sourceTable = new ArrayList<EqLogSource>();
+  private int head = 0;
+  private int tail = 0;
+
+  private byte[] arena = new byte[INITIAL_ARENA_SIZE];
+  // Bytes of the arena written to so far, including payloads since evicted.
+  private int arenaUsed = 0;
+  // Bytes of the arena holding payloads of live events.
+  private long arenaLive = 0;
+
+  private long newestLocalEpochSecond = Long.MIN_VALUE;
+
+  /**
+   * Creates a store that keeps events until they're evicted with
+   * evictBefore().
+   */
+  public EqLogEventStore() {
+    this.maxAgeSeconds = Long.MAX_VALUE;
+  }
+
+  /**
+   * Creates a store that automatically evicts events that are more than maxAge
+   * older than the newest event.
+   */
+  public EqLogEventStore(Duration maxAge) {
+    this.maxAgeSeconds = maxAge.getSeconds();
+  }
+
+  @Override
+  public synchronized void onEvent(EqLogEvent eqLogEvent) {
+    long localEpochSecond = eqLogEvent.getLocalEpochSecond();
+    if (maxAgeSeconds != Long.MAX_VALUE
+        && newestLocalEpochSecond != Long.MIN_VALUE
+        && localEpochSecond < newestLocalEpochSecond - maxAgeSeconds) {
+      // Already too old to keep.
+      return;
+    }
+    String payload = eqLogEvent.getPayload();
+    // Null if the payload fits in Latin-1, which is almost always.
+    byte[] utf8Payload = isLatin1(payload) ? null : payload.getBytes(StandardCharsets.UTF_8);
+    int payloadLength = utf8Payload == null ? payload.length() : utf8Payload.length;
+    ensureColumnCapacity();
+    ensureArenaCapacity(payloadLength);
+
+    int index = tail;
+    if (tail > head && localEpochSeconds[tail - 1] > localEpochSecond) {
+      // Rare, so it's fine to shift everything after it along.
+      index = upperBound(localEpochSecond);
+      int moved = tail - index;
+      System.arraycopy(localEpochSeconds, index, localEpochSeconds, index + 1, moved);
+      System.arraycopy(payloadOffsets, index, payloadOffsets, index + 1, moved);
+      System.arraycopy(payloadLengths, index, payloadLengths, index + 1, moved);
+      System.arraycopy(types, index, types, index + 1, moved);
+      System.arraycopy(utf8Payloads, index, utf8Payloads, index + 1, moved);
+      System.arraycopy(sources, index, sources, index + 1, moved);
+    }
+    localEpochSeconds[index] = localEpochSecond;
+    payloadOffsets[index] = arenaUsed;
+    payloadLengths[index] = payloadLength;
+    types[index] = (byte) eqLogEvent.getType().ordinal();
+    utf8Payloads[index] = utf8Payload != null;
+    sources[index] = getSourceIndex(eqLogEvent.getSource().orElse(null));
+    tail++;
+
+    if (utf8Payload == null) {
+      for (int i = 0; i < payloadLength; i++) {
+        arena[arenaUsed++] = (byte) payload.charAt(i);
+      }
+    } else {
+      System.arraycopy(utf8Payload, 0, arena, arenaUsed, payloadLength);
+      arenaUsed += payloadLength;
+    }
+    arenaLive += payloadLength;
+
+    if (localEpochSecond > newestLocalEpochSecond) {
+      newestLocalEpochSecond = localEpochSecond;
+      if (maxAgeSeconds != Long.MAX_VALUE) {
+        evict(localEpochSecond - maxAgeSeconds);
+      }
+    }
+  }
+
+  /**
+   * Gets the events in a time range, oldest first.
+   *
+   * @param from The start of the range, inclusive.
+   * @param to The end of the range, exclusive.
+   */
+  public synchronized List<EqLogEvent> getEvents(LocalDateTime from, LocalDateTime to) {
+    return getEvents(from, to, null);
+  }
+
+  /**
+   * Gets the events of a given type in a time range, oldest first. Events of
+   * other types aren't rebuilt.
+   *
+   * @param from The start of the range, inclusive.
+   * @param to The end of the range, exclusive.
+   * @param type The type of events to get, or null for all types.
+   */
+  public synchronized List<EqLogEvent> getEvents(
+      LocalDateTime from, LocalDateTime to, EqLogEventType type) {
+    int start = lowerBound(toLocalEpochSecond(from));
+    int end = Math.max(start, lowerBound(toLocalEpochSecond(to)));
+    List<EqLogEvent> eqLogEvents = new ArrayList<EqLogEvent>();
+    // Consecutive events mostly share a header, so only format it once.
+    long headerLocalEpochSecond = Long.MIN_VALUE;
+    String header = null;
+    for (int i = start; i < end; i++) {
+      if (type != null && types[i] != type.ordinal()) {
+        continue;
+      }
+      if (localEpochSeconds[i] != headerLocalEpochSecond) {
+        headerLocalEpochSecond = localEpochSeconds[i];
+        header = EqLogEvent.formatHeader(headerLocalEpochSecond);
+      }
+      String payload = new String(arena, payloadOffsets[i], payloadLengths[i],
+          utf8Payloads[i] ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+      eqLogEvents.add(EqLogEvent.of(
+          header + payload,
+          localEpochSeconds[i],
+          sources[i] == -1 ? null : sourceTable.get(sources[i])));
+    }
+    return eqLogEvents;
+  }
+
+  /**
+   * Counts the events in a time range without rebuilding them.
+   *
+   * @param from The start of the range, inclusive.
+   * @param to The end of the range, exclusive.
+   * @param type The type of events to count, or null for all types.
+   */
+  public synchronized int count(LocalDateTime from, LocalDateTime to, EqLogEventType type) {
+    int start = lowerBound(toLocalEpochSecond(from));
+    int end = Math.max(start, lowerBound(toLocalEpochSecond(to)));
+    if (type == null) {
+      return end - start;
+    }
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      if (types[i] == type.ordinal()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Evicts all events from before a given time.
+   */
+  public synchronized void evictBefore(LocalDateTime timestamp) {
+    evict(toLocalEpochSecond(timestamp));
+  }
+
+  /**
+   * Returns the number of events in the store.
+   */
+  public synchronized int size() {
+    return tail - head;
+  }
+
+  // Evicts events older than the given time. Their columns and payloads are
+  // reclaimed lazily, when more space is next needed.
+  private void evict(long localEpochSecond) {
+    int end = lowerBound(localEpochSecond);
+    for (int i = head; i < end; i++) {
+      arenaLive -= payloadLengths[i];
+    }
+    head = end;
+    if (head == tail) {
+      head = 0;
+      tail = 0;
+      arenaUsed = 0;
+    }
+  }
+
+  // Makes room for one more event at the end of the columns, first by
+  // dropping evicted events and then by growing.
+  private void ensureColumnCapacity() {
+    int capacity = localEpochSeconds.length;
+    if (tail < capacity) {
+      return;
+    }
+    int size = tail - head;
+    int newCapacity = size < capacity / 2 ? capacity : capacity * 2;
+    localEpochSeconds = compact(localEpochSeconds, newCapacity);
+    payloadOffsets = compact(payloadOffsets, newCapacity);
+    payloadLengths = compact(payloadLengths, newCapacity);
+    types = compact(types, newCapacity);
+    utf8Payloads = compact(utf8Payloads, newCapacity);
+    sources = compact(sources, newCapacity);
+    head = 0;
+    tail = size;
+  }
+
+  private long[] compact(long[] column, int newCapacity) {
+    long[] compacted = newCapacity == column.length ? column : new long[newCapacity];
+    System.arraycopy(column, head, compacted, 0, tail - head);
+    return compacted;
+  }
+
+  private int[] compact(int[] column, int newCapacity) {
+    int[] compacted = newCapacity == column.length ? column : new int[newCapacity];
+    System.arraycopy(column, head, compacted, 0, tail - head);
+    return compacted;
+  }
+
+  private byte[] compact(byte[] column, int newCapacity) {
+    byte[] compacted = newCapacity == column.length ? column : new byte[newCapacity];
+    System.arraycopy(column, head, compacted, 0, tail - head);
+    return compacted;
+  }
+
+  private boolean[] compact(boolean[] column, int newCapacity) {
+    boolean[] compacted = newCapacity == column.length ? column : new boolean[newCapacity];
+    System.arraycopy(column, head, compacted, 0, tail - head);
+    return compacted;
+  }
+
+  private short[] compact(short[] column, int newCapacity) {
+    short[] compacted = newCapacity == column.length ? column : new short[newCapacity];
+    System.arraycopy(column, head, compacted, 0, tail - head);
+    return compacted;
+  }
+
+  // Makes room for length more bytes at the end of the arena by copying the
+  // live payloads to a new arena, at least twice their size so that copying
+  // stays amortized constant time per byte.
+  private void ensureArenaCapacity(int length) {
+    if (arenaUsed + length <= arena.length) {
+      return;
+    }
+    long needed = arenaLive + length;
+    long newLength = arena.length;
+    while (newLength < needed * 2) {
+      newLength *= 2;
+    }
+    if (newLength > Integer.MAX_VALUE - 8) {
+      newLength = Integer.MAX_VALUE - 8;
+      if (needed > newLength) {
+        throw new IllegalStateException("Event store is full");
+      }
+    }
+    byte[] compacted = new byte[(int) newLength];
+    int used = 0;
+    for (int i = head; i < tail; i++) {
+      System.arraycopy(arena, payloadOffsets[i], compacted, used, payloadLengths[i]);
+      payloadOffsets[i] = used;
+      used += payloadLengths[i];
+    }
+    arena = compacted;
+    arenaUsed = used;
+  }
+
+  private short getSourceIndex(EqLogSource source) {
+    if (source == null) {
+      return -1;
+    }
+    int index = sourceTable.indexOf(source);
+    if (index == -1) {
+      if (sourceTable.size() == Short.MAX_VALUE) {
+        throw new IllegalStateException("Too many sources");
+      }
+      index = sourceTable.size();
+      sourceTable.add(source);
+    }
+    return (short) index;
+  }
+
+  // Returns the index of the first live event at or after a time.
+  private int lowerBound(long localEpochSecond) {
+    int low = head;
+    int high = tail;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (localEpochSeconds[middle] < localEpochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  // Returns the index of the first live event after a time.
+  private int upperBound(long localEpochSecond) {
+    return lowerBound(localEpochSecond == Long.MAX_VALUE
+        ? localEpochSecond : localEpochSecond + 1);
+  }
+
+  private static boolean isLatin1(String payload) {
+    for (int i = 0; i < payload.length(); i++) {
+      if (payload.charAt(i) > 0xff) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long toLocalEpochSecond(LocalDateTime timestamp) {
+    return timestamp.toEpochSecond(ZoneOffset.UTC);
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.edmazur.eqlp;
+
+/**
+ * Kinds of log events recognized by EqLogEventClassifier. The comments show
+ * example payloads, along with how the actor, target, amount and text of
+ * each are filled in.
+ */
+public enum EqLogEventType {
+
+  // "Soandso tells you, 'hi'" (actor Soandso, target You, text hi)
+  // "You told Soandso, 'hi'" (actor You, target Soandso, text hi)
+  TELL,
+  // "Soandso says, 'hi'" (actor Soandso, text hi)
+  SAY,
+  // "Soandso says out of character, 'hi'" (actor Soandso, text hi)
+  OOC,
+  // "Soandso shouts, 'hi'" (actor Soandso, text hi)
+  SHOUT,
+  // "Soandso auctions, 'WTS Jade Shard'" (actor Soandso, text WTS Jade Shard)
+  AUCTION,
+  // "Soandso tells the guild, 'hi'" (actor Soandso, text hi)
+  GUILD,
+  // "Soandso tells the group, 'hi'" (actor Soandso, text hi)
+  GROUP,
+  // "A gnoll hits YOU for 5 points of damage." (actor A gnoll, target You,
+  // amount 5)
+  MELEE_HIT,
+  // "A gnoll tries to hit YOU, but misses!" (actor A gnoll, target You)
+  MELEE_MISS,
+  // "A gnoll was hit by non-melee for 12 points of damage." (target A gnoll,
+  // amount 12)
+  NON_MELEE,
+  // "Soandso begins to cast a spell." (actor Soandso)
+  // "You begin casting Gate." (actor You, text Gate)
+  SPELL,
+  // "You feel quick." (target You, text feel quick)
+  // "Soandso's skin turns to wood." (target Soandso, text skin turns to wood)
+  // Only known landing messages, since e.g. "You feel a sharp pain." isn't
+  // one.
+  SPELL_LANDED,
+  // "--Soandso has looted a Bone Chip.--" (actor Soandso, text Bone Chip)
+  LOOT,
+  // "You have entered East Commonlands." (actor You, text East Commonlands)
+  ZONE,
+  // "A gnoll has been slain by Soandso!" (actor Soandso, target A gnoll)
+  SLAIN,
+  // Anything else.
+  OTHER,
+
+}
@@ -0,0 +1,88 @@
+package com.edmazur.eqlp;
+
+import java.util.regex.Pattern;
+
+/**
+ * Describes which event payloads a listener is interested in. See
+ * EqLog.addListener(EqLogListener, EqLogFilter...).
+ */
+public class EqLogFilter {
+
+  enum Type {
+    PREFIX,
+    CONTAINS,
+    REGEX,
+  }
+
+  private final Type type;
+  // Set for PREFIX and CONTAINS.
+  private final String literal;
+  // Set for REGEX.
+  private final Pattern pattern;
+
+  private EqLogFilter(Type type, String literal, Pattern pattern) {
+    this.type = type;
+    this.literal = literal;
+    this.pattern = pattern;
+  }
+
+  /**
+   * Matches payloads starting with prefix, e.g. "You have entered ".
+   */
+  public static EqLogFilter prefix(String prefix) {
+    return new EqLogFilter(Type.PREFIX, prefix, null);
+  }
+
+  /**
+   * Matches payloads containing text anywhere, e.g. " tells you, '".
+   */
+  public static EqLogFilter contains(String text) {
+    return new EqLogFilter(Type.CONTAINS, text, null);
+  }
+
+  /**
+   * Matches payloads in which pattern can be found (as with Matcher.find()).
+   * Prefer prefix() or contains() where possible, since those are evaluated
+   * together in a single pass over the payload.
+   */
+  public static EqLogFilter regex(Pattern pattern) {
+    return new EqLogFilter(Type.REGEX, null, pattern);
+  }
+
+  /**
+   * Same as regex(Pattern.compile(regex)).
+   */
+  public static EqLogFilter regex(String regex) {
+    return regex(Pattern.compile(regex));
+  }
+
+  /**
+   * Checks a payload against this filter on its own.
+   */
+  public boolean matches(String payload) {
+    switch (type) {
+      case PREFIX:
+        return payload.startsWith(literal);
+      case CONTAINS:
+        return payload.contains(literal);
+      case REGEX:
+        return pattern.matcher(payload).find();
+      default:
+        throw new IllegalStateException("Unknown filter type " + type);
+    }
+  }
+
+  Type getType() {
+    return type;
+  }
+
+  String getLiteral() {
+    return literal;
+  }
+
+  @Override
+  public String toString() {
+    return type + "(" + (type == Type.REGEX ? pattern.pattern() : literal) + ")";
+  }
+
+}
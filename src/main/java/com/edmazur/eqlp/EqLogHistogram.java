@@ -0,0 +1,94 @@
+package com.edmazur.eqlp;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative values (e.g. durations in nanoseconds) in
+ * power-of-two buckets. Recording is cheap and safe from any thread;
+ * percentiles are approximate, reported as the upper bound of their bucket.
+ */
+public class EqLogHistogram {
+
+  // Bucket i holds values in [2^(i-1), 2^i), and bucket 0 holds 0.
+  private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  EqLogHistogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  void record(long value) {
+    value = Math.max(value, 0);
+    buckets[Long.SIZE - Long.numberOfLeadingZeros(value)].increment();
+    sum.add(value);
+    max.accumulate(value);
+  }
+
+  /**
+   * Returns the number of values recorded.
+   */
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the mean of the values recorded, or 0 if there are none.
+   */
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0 : (double) sum.sum() / count;
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public long getP50() {
+    return getPercentile(50);
+  }
+
+  public long getP99() {
+    return getPercentile(99);
+  }
+
+  /**
+   * Returns an upper bound on the given percentile of the values recorded, or
+   * 0 if there are none.
+   *
+   * @param percentile Between 0 and 100.
+   */
+  public long getPercentile(double percentile) {
+    long[] counts = new long[buckets.length];
+    long count = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      counts[i] = buckets[i].sum();
+      count += counts[i];
+    }
+    long rank = (long) Math.ceil(count * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank && seen > 0) {
+        // Never overstates the largest value actually recorded.
+        return Math.min(i == 0 ? 0 : (1L << i) - 1, getMax());
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "count=%d mean=%.1f p50=%d p99=%d max=%d",
+        getCount(), getMean(), getP50(), getP99(), getMax());
+  }
+
+}
@@ -0,0 +1,253 @@
+package com.edmazur.eqlp;
+
+import com.edmazur.eqlp.file.InterpolationSearchLogSeeker;
+import com.edmazur.eqlp.file.LogLineReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Replays several characters' logs over the same time window as one stream
+ * in timestamp order, e.g. to reconstruct a raid from everyone's point of
+ * view. Events are tagged with the log they came from (see
+ * EqLogEvent.getSource()).
+ *
+ * <p>Each log is read ahead on its own thread into a bounded queue, and the
+ * logs are merged on the calling thread by always dispatching the earliest
+ * next event, so memory use doesn't grow with the length of the window.
+ * Events with the same timestamp are dispatched in the order the logs were
+ * given, and each log's events stay in log order.
+ */
+public class EqLogMerge {
+
+  // Events are handed between threads in batches to keep queue overhead low.
+  private static final int BATCH_SIZE = 256;
+  // How many batches each log may read ahead of the merge.
+  private static final int BATCHES_IN_FLIGHT = 16;
+  // Marks the end of a log's events.
+  private static final List<EqLogEvent> END = new ArrayList<EqLogEvent>(0);
+
+  private final Path eqInstallDirectory;
+  private final ZoneId timezone;
+  private final List<EqLogSource> sources;
+  private final Instant parseStart;
+  private final Instant parseEnd;
+
+  private final EqLogDispatcher dispatcher = new EqLogDispatcher();
+
+  /**
+   * Creates a merged replay of some characters' logs.
+   *
+   * @param eqInstallDirectory Path to where EQ is installed.
+   * @param timezone Timezone to interpret log timestamps in.
+   * @param sources Which characters' logs to read.
+   * @param parseStart Timestamp to start reading each log at. Set to
+   *     Instant.MIN to read from start of file.
+   * @param parseEnd Timestamp to stop reading each log at. Set to Instant.MAX
+   *     to read to the current end of each file.
+   */
+  public EqLogMerge(
+      Path eqInstallDirectory,
+      ZoneId timezone,
+      List<EqLogSource> sources,
+      Instant parseStart,
+      Instant parseEnd) {
+    this.eqInstallDirectory = eqInstallDirectory;
+    this.timezone = timezone;
+    this.sources = List.copyOf(sources);
+    this.parseStart = parseStart;
+    this.parseEnd = parseEnd;
+  }
+
+  /**
+   * Adds a listener. It will be called with each event from every log.
+   *
+   * @param eqLogListener The listener to add.
+   */
+  public void addListener(EqLogListener eqLogListener) {
+    dispatcher.addListener(eqLogListener);
+  }
+
+  /**
+   * Adds a listener that's only called with events (from every log) whose
+   * payloads match at least one of the given filters.
+   *
+   * @param eqLogListener The listener to add.
+   * @param filters Filters to match payloads against.
+   */
+  public void addListener(EqLogListener eqLogListener, EqLogFilter... filters) {
+    dispatcher.addListener(eqLogListener, filters);
+  }
+
+  /**
+   * Reads every log from parseStart to parseEnd (or to the current end of the
+   * file, whichever comes first), calling listeners on the calling thread, and
+   * returns once every event has been dispatched.
+   *
+   * @throws IOException If any log is missing or can't be read.
+   */
+  public void replay() throws IOException {
+    List<MergedLog> mergedLogs = new ArrayList<MergedLog>();
+    try {
+      for (int i = 0; i < sources.size(); i++) {
+        File logFile = eqInstallDirectory
+            .resolve(EqLog.LOGS_DIRECTORY)
+            .resolve(sources.get(i).getLogFileName())
+            .toFile();
+        if (!logFile.isFile()) {
+          throw new NoSuchFileException(logFile.getPath());
+        }
+        mergedLogs.add(new MergedLog(i, sources.get(i), logFile));
+      }
+      for (MergedLog mergedLog : mergedLogs) {
+        mergedLog.thread.start();
+      }
+
+      PriorityQueue<MergedLog> heap = new PriorityQueue<MergedLog>(
+          Math.max(1, mergedLogs.size()),
+          Comparator
+              .comparingLong((MergedLog mergedLog) -> mergedLog.next().getLocalEpochSecond())
+              .thenComparingInt(mergedLog -> mergedLog.index));
+      for (MergedLog mergedLog : mergedLogs) {
+        if (mergedLog.advance()) {
+          heap.add(mergedLog);
+        }
+      }
+      while (!heap.isEmpty()) {
+        MergedLog mergedLog = heap.poll();
+        dispatcher.dispatch(mergedLog.next());
+        if (mergedLog.advance()) {
+          heap.add(mergedLog);
+        }
+      }
+    } finally {
+      // Stops any readers still running, e.g. if a listener threw.
+      for (MergedLog mergedLog : mergedLogs) {
+        mergedLog.thread.interrupt();
+      }
+    }
+  }
+
+  // A log being read ahead on its own thread.
+  private class MergedLog implements Runnable {
+
+    private final int index;
+    private final EqLogSource source;
+    private final File logFile;
+    private final Thread thread;
+    private final BlockingQueue<List<EqLogEvent>> queue =
+        new ArrayBlockingQueue<List<EqLogEvent>>(BATCHES_IN_FLIGHT);
+    // Set by the reader thread before it queues END.
+    private volatile Throwable failure = null;
+
+    // Only used by the merging thread.
+    private List<EqLogEvent> batch = END;
+    private int batchIndex = 0;
+
+    private MergedLog(int index, EqLogSource source, File logFile) {
+      this.index = index;
+      this.source = source;
+      this.logFile = logFile;
+      this.thread = new Thread(this, "EqLogMerge-" + source.getCharacter());
+      this.thread.setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        read();
+      } catch (InterruptedException e) {
+        // The merge was abandoned.
+        return;
+      } catch (Throwable t) {
+        // Anything at all, so END still gets queued and the merge doesn't wait
+        // on this log forever.
+        failure = t;
+      }
+      try {
+        queue.put(END);
+      } catch (InterruptedException e) {
+        // The merge was abandoned.
+      }
+    }
+
+    private void read() throws IOException, InterruptedException {
+      long position = new InterpolationSearchLogSeeker(
+          logFile,
+          EqLogEvent.LINE_PATTERN,
+          EqLogEvent.TIMESTAMP_FORMAT,
+          timezone)
+          .seekPosition(parseStart);
+      EqLogTimestampCache timestampCache = new EqLogTimestampCache();
+      List<EqLogEvent> eqLogEvents = new ArrayList<EqLogEvent>(BATCH_SIZE);
+      try (LogLineReader reader = new LogLineReader(logFile)) {
+        reader.seek(position);
+        CharSequence line;
+        while ((line = reader.readLine(true)) != null) {
+          long localEpochSecond = timestampCache.getEpochSecond(line);
+          if (localEpochSecond == EqLogTimestampParser.INVALID) {
+            continue;
+          }
+          // See EqLog.run().
+          if (!parseEnd.equals(Instant.MAX)
+              && timestampCache.getInstant(localEpochSecond, timezone).isAfter(parseEnd)) {
+            break;
+          }
+          eqLogEvents.add(EqLogEvent.of(line.toString(), localEpochSecond, source));
+          if (eqLogEvents.size() == BATCH_SIZE) {
+            queue.put(eqLogEvents);
+            eqLogEvents = new ArrayList<EqLogEvent>(BATCH_SIZE);
+          }
+        }
+      }
+      if (!eqLogEvents.isEmpty()) {
+        queue.put(eqLogEvents);
+      }
+    }
+
+    // Moves to the log's next event, waiting for it to be read if need be.
+    // Returns false once the log has no more events.
+    private boolean advance() throws IOException {
+      batchIndex++;
+      if (batchIndex < batch.size()) {
+        return true;
+      }
+      try {
+        batch = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while merging " + source);
+      }
+      batchIndex = 0;
+      if (batch == END) {
+        if (failure instanceof IOException) {
+          throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+          throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+          throw (Error) failure;
+        } else if (failure != null) {
+          throw new IOException("Failed to read " + source, failure);
+        }
+        return false;
+      }
+      return true;
+    }
+
+    private EqLogEvent next() {
+      return batch.get(batchIndex);
+    }
+
+  }
+
+}
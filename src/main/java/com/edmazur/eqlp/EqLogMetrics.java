@@ -0,0 +1,225 @@
+package com.edmazur.eqlp;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timings for an EqLog, for finding where time goes under load.
+ * Readable from any thread, and over JMX once registered. Durations are in
+ * nanoseconds.
+ */
+public class EqLogMetrics implements EqLogStatistics {
+
+  private final ZoneId timezone;
+
+  private final LongAdder linesRead = new LongAdder();
+  private final LongAdder linesParsed = new LongAdder();
+  private final LongAdder bytesRead = new LongAdder();
+  private final Rate linesPerSecond = new Rate(linesRead::sum);
+  private final Rate bytesPerSecond = new Rate(bytesRead::sum);
+  // Timestamp of the most recently read event, as returned by
+  // EqLogTimestampParser. Converted to an Instant only when read.
+  private volatile long lastEventLocalEpochSecond = EqLogTimestampParser.INVALID;
+
+  private final Map<String, EqLogHistogram> seekDurations =
+      new ConcurrentHashMap<String, EqLogHistogram>();
+  private final Map<String, EqLogHistogram> listenerLatencies =
+      Collections.synchronizedMap(new LinkedHashMap<String, EqLogHistogram>());
+
+  private ObjectName objectName = null;
+
+  EqLogMetrics(ZoneId timezone) {
+    this.timezone = timezone;
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server, under
+   * com.edmazur.eqlp:type=EqLog,name=(name).
+   */
+  public synchronized void register(String name) throws JMException {
+    objectName = new ObjectName("com.edmazur.eqlp:type=EqLog,name=" + ObjectName.quote(name));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+  }
+
+  /**
+   * Undoes register(), if it was called.
+   */
+  public synchronized void unregister() throws JMException {
+    if (objectName != null) {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      objectName = null;
+    }
+  }
+
+  /**
+   * Returns the number of lines read, including blank and malformed ones.
+   */
+  @Override
+  public long getLinesRead() {
+    return linesRead.sum();
+  }
+
+  /**
+   * Returns the number of lines that parsed into events.
+   */
+  @Override
+  public long getLinesParsed() {
+    return linesParsed.sum();
+  }
+
+  /**
+   * Returns the number of lines that didn't parse into events.
+   */
+  @Override
+  public long getLinesRejected() {
+    return getLinesRead() - getLinesParsed();
+  }
+
+  @Override
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  /**
+   * Returns lines read per second, measured between this call and the
+   * previous one at least a second earlier.
+   */
+  @Override
+  public double getLinesPerSecond() {
+    return linesPerSecond.get();
+  }
+
+  /**
+   * Returns bytes read per second, measured like getLinesPerSecond().
+   */
+  @Override
+  public double getBytesPerSecond() {
+    return bytesPerSecond.get();
+  }
+
+  /**
+   * Returns how far behind the wall clock the most recently read event is,
+   * or 0 if no events have been read. When tailing a live log this is how
+   * stale listeners' view of the game is (to within a second, since log
+   * timestamps only have one-second resolution).
+   */
+  @Override
+  public long getTailLagMillis() {
+    long localEpochSecond = lastEventLocalEpochSecond;
+    if (localEpochSecond == EqLogTimestampParser.INVALID) {
+      return 0;
+    }
+    long eventMillis = LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC)
+        .atZone(timezone)
+        .toInstant()
+        .toEpochMilli();
+    return System.currentTimeMillis() - eventMillis;
+  }
+
+  /**
+   * Returns how long seeks took, by LogSeeker strategy.
+   */
+  @Override
+  public Map<String, EqLogHistogram> getSeekDurations() {
+    return Collections.unmodifiableMap(seekDurations);
+  }
+
+  /**
+   * Returns how long each listener's onEvent() took, by listener. Listeners
+   * are named by the order they were added and either the name they were
+   * added with, their toString() (if their class defines one), or their
+   * class.
+   */
+  @Override
+  public Map<String, EqLogHistogram> getListenerLatencies() {
+    synchronized (listenerLatencies) {
+      return Collections.unmodifiableMap(
+          new LinkedHashMap<String, EqLogHistogram>(listenerLatencies));
+    }
+  }
+
+  void recordLines(long lines, long parsedLines, long bytes) {
+    linesRead.add(lines);
+    linesParsed.add(parsedLines);
+    bytesRead.add(bytes);
+  }
+
+  void recordEvent(long localEpochSecond) {
+    lastEventLocalEpochSecond = localEpochSecond;
+  }
+
+  void recordSeek(String strategyDescription, long nanos) {
+    seekDurations
+        .computeIfAbsent(strategyDescription, key -> new EqLogHistogram())
+        .record(nanos);
+  }
+
+  // Returns the histogram to record the listener's latency in. A null name
+  // uses a default based on the listener.
+  EqLogHistogram addListener(String name, EqLogListener eqLogListener) {
+    if (name == null) {
+      name = getDefaultName(eqLogListener);
+    }
+    EqLogHistogram latency = new EqLogHistogram();
+    synchronized (listenerLatencies) {
+      listenerLatencies.put(listenerLatencies.size() + ": " + name, latency);
+    }
+    return latency;
+  }
+
+  // Uses toString() if the listener's class defines it. Otherwise uses the
+  // class name, except that lambdas are named after the class declaring them,
+  // since their own class names change from run to run.
+  private static String getDefaultName(EqLogListener eqLogListener) {
+    try {
+      if (eqLogListener.getClass().getMethod("toString").getDeclaringClass()
+          != Object.class) {
+        return eqLogListener.toString();
+      }
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+    String className = eqLogListener.getClass().getName();
+    int lambda = className.indexOf("$$Lambda");
+    return lambda == -1 ? className : className.substring(0, lambda) + " (lambda)";
+  }
+
+  // Rate of change of a counter, sampled when read so that counting stays as
+  // cheap as possible.
+  private static class Rate {
+
+    private static final long MIN_SAMPLE_NANOS = 1_000_000_000;
+
+    private final LongSupplier counter;
+    private long sampleCount = 0;
+    private long sampleNanos = System.nanoTime();
+    private double rate = 0;
+
+    private Rate(LongSupplier counter) {
+      this.counter = counter;
+    }
+
+    private synchronized double get() {
+      long nanos = System.nanoTime();
+      if (nanos - sampleNanos >= MIN_SAMPLE_NANOS) {
+        long count = counter.getAsLong();
+        rate = (count - sampleCount) * 1e9 / (nanos - sampleNanos);
+        sampleCount = count;
+        sampleNanos = nanos;
+      }
+      return rate;
+    }
+
+  }
+
+}
@@ -0,0 +1,192 @@
+package com.edmazur.eqlp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Replays a byte range of a log by splitting it into chunks and parsing them
+ * in parallel. Each chunk owns the lines that start within it.
+ */
+class EqLogReplay {
+
+  private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  // How many chunks may be parsed ahead of the one being dispatched, per
+  // thread in the pool. Bounds memory use when listeners are slow.
+  private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+  private final Path log;
+  private final EqLogSource source;
+  private final long start;
+  private final long end;
+  private final EqLogDispatcher dispatcher;
+  private final EqLogMetrics metrics;
+  private final int chunkSize;
+
+  /**
+   * Creates a replay of a log.
+   *
+   * @param start Offset of the first line to replay.
+   * @param end Offset to stop replaying at. Must be a line start or the end of
+   *     the file.
+   */
+  EqLogReplay(
+      Path log,
+      EqLogSource source,
+      long start,
+      long end,
+      EqLogDispatcher dispatcher,
+      EqLogMetrics metrics) {
+    this(log, source, start, end, dispatcher, metrics, DEFAULT_CHUNK_SIZE);
+  }
+
+  EqLogReplay(
+      Path log,
+      EqLogSource source,
+      long start,
+      long end,
+      EqLogDispatcher dispatcher,
+      EqLogMetrics metrics,
+      int chunkSize) {
+    this.log = log;
+    this.source = source;
+    this.start = start;
+    this.end = end;
+    this.dispatcher = dispatcher;
+    this.metrics = metrics;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Replays the log, returning once every event has been dispatched.
+   *
+   * @param forkJoinPool Pool to parse chunks on.
+   * @param ordered If true, events are dispatched on the calling thread in
+   *     log order. If false, events are dispatched on the pool's threads as
+   *     soon as their chunk is parsed, so listeners are called concurrently and
+   *     in no particular order.
+   */
+  void run(ForkJoinPool forkJoinPool, boolean ordered) throws IOException {
+    int maxChunksInFlight =
+        forkJoinPool.getParallelism() * CHUNKS_IN_FLIGHT_PER_THREAD;
+    try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+      Deque<ForkJoinTask<List<EqLogEvent>>> chunksInFlight =
+          new ArrayDeque<ForkJoinTask<List<EqLogEvent>>>();
+      long nextChunkStart = start;
+      while (nextChunkStart < end || !chunksInFlight.isEmpty()) {
+        while (nextChunkStart < end
+            && chunksInFlight.size() < maxChunksInFlight) {
+          long chunkStart = nextChunkStart;
+          long chunkEnd = Math.min(chunkStart + chunkSize, end);
+          chunksInFlight.add(forkJoinPool.submit(() -> {
+            List<EqLogEvent> eqLogEvents =
+                parseChunk(channel, chunkStart, chunkEnd);
+            if (!ordered) {
+              dispatcher.dispatch(eqLogEvents);
+              eqLogEvents.clear();
+            }
+            return eqLogEvents;
+          }));
+          nextChunkStart = chunkEnd;
+        }
+        List<EqLogEvent> eqLogEvents;
+        try {
+          eqLogEvents = chunksInFlight.removeFirst().join();
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+        dispatcher.dispatch(eqLogEvents);
+      }
+    }
+  }
+
+  private List<EqLogEvent> parseChunk(
+      FileChannel channel, long chunkStart, long chunkEnd) {
+    // Reads one byte before the chunk to tell whether it starts mid-line, and
+    // past the end of the chunk to finish its last line.
+    long readStart = chunkStart == start ? chunkStart : chunkStart - 1;
+    int chunkLength = (int) (chunkEnd - readStart);
+    byte[] bytes = new byte[chunkLength];
+    int length;
+    try {
+      length = read(channel, readStart, bytes, 0);
+      int newline = chunkLength - 1;
+      while (chunkEnd < end) {
+        while (newline < length && bytes[newline] != '\n') {
+          newline++;
+        }
+        if (newline < length || length < bytes.length) {
+          // Found the end of the last line, or the end of the file.
+          break;
+        }
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        length += read(channel, readStart + length, bytes, length);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    int lineStart = 0;
+    if (readStart < chunkStart) {
+      // The line spanning the chunk boundary belongs to the previous chunk.
+      while (lineStart < length && bytes[lineStart] != '\n') {
+        lineStart++;
+      }
+      lineStart++;
+    }
+    List<EqLogEvent> eqLogEvents = new ArrayList<EqLogEvent>();
+    EqLogTimestampCache timestampCache = new EqLogTimestampCache();
+    int firstLineStart = lineStart;
+    int lineCount = 0;
+    while (lineStart < length && readStart + lineStart < chunkEnd) {
+      int lineEnd = lineStart;
+      while (lineEnd < length && bytes[lineEnd] != '\n') {
+        lineEnd++;
+      }
+      int contentEnd = lineEnd;
+      if (contentEnd > lineStart && bytes[contentEnd - 1] == '\r') {
+        contentEnd--;
+      }
+      String line = new String(
+          bytes, lineStart, contentEnd - lineStart, StandardCharsets.ISO_8859_1);
+      Optional<EqLogEvent> maybeEqLogEvent =
+          EqLogEvent.parseFromLine(line, timestampCache, source);
+      if (maybeEqLogEvent.isPresent()) {
+        eqLogEvents.add(maybeEqLogEvent.get());
+      }
+      lineCount++;
+      lineStart = lineEnd + 1;
+    }
+    metrics.recordLines(
+        lineCount, eqLogEvents.size(), Math.min(lineStart, length) - firstLineStart);
+    return eqLogEvents;
+  }
+
+  // Reads until the array is full or the end of the file. Returns the number
+  // of bytes read.
+  private int read(FileChannel channel, long position, byte[] bytes, int offset)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, bytes.length - offset);
+    while (buffer.hasRemaining()) {
+      int bytesRead = channel.read(buffer, position + buffer.position() - offset);
+      if (bytesRead == -1) {
+        break;
+      }
+    }
+    return buffer.position() - offset;
+  }
+
+}
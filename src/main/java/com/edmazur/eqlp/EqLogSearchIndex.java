@@ -0,0 +1,630 @@
+package com.edmazur.eqlp;
+
+import com.edmazur.eqlp.file.LogFingerprint;
+import com.edmazur.eqlp.file.LogLineReader;
+import com.edmazur.eqlp.file.LogWatcher;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Full-text index of a log's payloads, for finding events by what they say
+ * (e.g. "cloak of flames") without scanning the whole log. Payloads are split
+ * into terms, which are lowercased runs of letters and digits, and each term
+ * maps to a posting list of the byte offsets of the lines containing it.
+ *
+ * <p>The index is persisted in a file of its own and is built incrementally.
+ * Lines are indexed into an in-memory partition covering a fixed span of log
+ * time (a day by default), which is appended to the file as a segment once
+ * the log moves on to the next partition. Reopening the index resumes from the
+ * end of the last segment, and the index is rebuilt from scratch if the log
+ * has been replaced since (see LogFingerprint).
+ *
+ * <p>The format is:
+ * <ul>
+ *   <li>Header: magic, version, log offset indexed up to, segment count,
+ *       partition length in seconds, log fingerprint.
+ *   <li>Segments: first and last local epoch second, dictionary and posting
+ *       lengths, then the dictionary and the posting lists. The dictionary
+ *       holds each term in sorted order along with where its posting list
+ *       is. Posting lists are varint-encoded deltas between ascending offsets.
+ * </ul>
+ *
+ * <p>update() indexes whatever has been appended to the log, and start()
+ * calls it from a background thread whenever the log grows, so that indexing
+ * keeps up with a live log without slowing down the thread reading it. All
+ * methods are thread-safe.
+ */
+public class EqLogSearchIndex implements Closeable {
+
+  private static final int MAGIC = 0x45514c53; // "EQLS"
+  private static final int VERSION = 1;
+  // Offset of the indexedLength and segment count header fields, which are
+  // rewritten in place whenever a segment is appended.
+  private static final long MUTABLE_HEADER_OFFSET = 8;
+  private static final int FIXED_HEADER_LENGTH = 28;
+  private static final int SEGMENT_HEADER_LENGTH = 24;
+
+  static final Duration DEFAULT_PARTITION = Duration.ofDays(1);
+  // Caps the size of the in-memory partition. It's written out as a segment
+  // early if it gets this many postings.
+  private static final int MAX_PENDING_POSTINGS = 1 << 20;
+  // How many lines update() indexes between letting searches in.
+  private static final int BATCH_SIZE = 4096;
+  private static final int MAX_TERM_LENGTH = 64;
+
+  private final Path log;
+  private final EqLogSource source;
+  private final long partitionSeconds;
+  private final FileChannel channel;
+  private final LogLineReader indexReader;
+  private final LogLineReader lookupReader;
+  private final EqLogTimestampCache indexTimestampCache = new EqLogTimestampCache();
+  private final EqLogTimestampCache lookupTimestampCache = new EqLogTimestampCache();
+
+  // Guarded by this.
+  private final Segments segments = new Segments();
+  private long segmentsEnd;
+  private final Map<String, PostingList> pending = new HashMap<String, PostingList>();
+  private long pendingPartition;
+  private long pendingFirstLocalEpochSecond;
+  private long pendingLastLocalEpochSecond;
+  private int pendingPostings = 0;
+  private Thread thread = null;
+
+  // Only set while holding this, but read without it by update().
+  private volatile boolean closed = false;
+  // Why the thread started by start() stopped early, if it did.
+  private volatile Throwable failure = null;
+
+  private EqLogSearchIndex(
+      Path log, Path index, EqLogSource source, Duration partition) throws IOException {
+    this.log = log;
+    this.source = source;
+    this.partitionSeconds = partition.getSeconds();
+    this.channel = FileChannel.open(
+        index, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      LogFingerprint fingerprint = LogFingerprint.of(log);
+      long indexedLength = load(fingerprint, log.toFile().length());
+      if (indexedLength == -1) {
+        indexedLength = 0;
+        reset(fingerprint);
+      } else {
+        // Drops anything after the last complete segment, e.g. from a crash
+        // part way through appending one.
+        channel.truncate(segmentsEnd);
+      }
+      this.indexReader = new LogLineReader(log.toFile());
+      this.indexReader.seek(indexedLength);
+      this.lookupReader = new LogLineReader(log.toFile(), 4096);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens the index of a log, creating it if it doesn't exist yet. Nothing
+   * more is indexed until update() or start() is called.
+   *
+   * @param log The log to index.
+   * @param index Where to keep the index.
+   */
+  public static EqLogSearchIndex open(Path log, Path index) throws IOException {
+    return open(log, index, null, DEFAULT_PARTITION);
+  }
+
+  // Like open(Path, Path), but tags found events with a source and uses a
+  // different partition length.
+  static EqLogSearchIndex open(
+      Path log, Path index, EqLogSource source, Duration partition) throws IOException {
+    if (partition.getSeconds() <= 0 || partition.getNano() != 0) {
+      throw new IllegalArgumentException("Partition must be whole seconds: " + partition);
+    }
+    return new EqLogSearchIndex(log, index, source, partition);
+  }
+
+  /**
+   * Indexes the complete lines appended to the log since the last call.
+   */
+  public void update() throws IOException {
+    checkFailure();
+    while (indexBatch()) {
+      // Keep going until the end of the log.
+    }
+  }
+
+  /**
+   * Calls update() from a new daemon thread now and whenever the log grows,
+   * until close() is called. If the thread fails, indexing stops and the
+   * failure is thrown from later calls to search(), update() and close().
+   */
+  public synchronized void start() {
+    if (thread != null || closed) {
+      return;
+    }
+    thread = new Thread(this::tail, "EqLogSearchIndex");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Returns events in a time range that contain every term in a query, in log
+   * order. Terms are matched in any order and case-insensitively, so "Cloak of
+   * Flames" also finds "flames of cloak". Only the segments overlapping the
+   * range are read, and lines are read from the log by offset.
+   *
+   * @param query Text to split into terms to look for.
+   * @param start Timestamp to start at, inclusive.
+   * @param end Timestamp to stop at, inclusive.
+   */
+  public synchronized List<EqLogEvent> search(
+      String query, LocalDateTime start, LocalDateTime end) throws IOException {
+    checkFailure();
+    long startLocalEpochSecond = start.toEpochSecond(ZoneOffset.UTC);
+    long endLocalEpochSecond = end.toEpochSecond(ZoneOffset.UTC);
+    TreeSet<String> terms = new TreeSet<String>();
+    tokenize(query, 0, query.length(), terms::add);
+    List<EqLogEvent> eqLogEvents = new ArrayList<EqLogEvent>();
+    if (terms.isEmpty() || closed) {
+      return eqLogEvents;
+    }
+    for (int segment = 0; segment < segments.count; segment++) {
+      if (segments.firstLocalEpochSeconds[segment] <= endLocalEpochSecond
+          && segments.lastLocalEpochSeconds[segment] >= startLocalEpochSecond) {
+        lookUp(
+            searchSegment(segment, terms), startLocalEpochSecond, endLocalEpochSecond,
+            eqLogEvents);
+      }
+    }
+    if (!pending.isEmpty()
+        && pendingFirstLocalEpochSecond <= endLocalEpochSecond
+        && pendingLastLocalEpochSecond >= startLocalEpochSecond) {
+      lookUp(searchPending(terms), startLocalEpochSecond, endLocalEpochSecond, eqLogEvents);
+    }
+    return eqLogEvents;
+  }
+
+  /**
+   * Stops the thread started by start(), if any, and writes out the
+   * in-memory partition so that reopening the index doesn't index it again.
+   */
+  @Override
+  public void close() throws IOException {
+    Thread indexThread;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      // Interrupting the thread while it's reading would close the log, so
+      // this waits for it to finish its batch, and it doesn't start another.
+      closed = true;
+      indexThread = thread;
+      if (indexThread != null) {
+        indexThread.interrupt();
+      }
+    }
+    if (indexThread != null) {
+      try {
+        indexThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    synchronized (this) {
+      try {
+        // The index may be part way through a failed write, so it's left as
+        // it was after the last complete segment.
+        checkFailure();
+        if (pending.isEmpty()) {
+          writeMutableHeader(indexReader.getPosition());
+        } else {
+          writeSegment(indexReader.getPosition());
+        }
+      } finally {
+        channel.close();
+        indexReader.close();
+        lookupReader.close();
+      }
+    }
+  }
+
+  synchronized int getSegmentCount() {
+    return segments.count;
+  }
+
+  private void tail() {
+    try (LogWatcher logWatcher = LogWatcher.create(log)) {
+      while (!closed) {
+        update();
+        logWatcher.await();
+      }
+    } catch (InterruptedException e) {
+      // Interrupted by close().
+    } catch (Throwable e) {
+      failure = e;
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    Throwable cause = failure;
+    if (cause != null) {
+      throw new IOException("Background indexing failed", cause);
+    }
+  }
+
+  // Indexes up to BATCH_SIZE lines. Returns false once the end of the log is
+  // reached (or the index is closed).
+  private synchronized boolean indexBatch() throws IOException {
+    if (closed) {
+      return false;
+    }
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      CharSequence line = indexReader.readLine();
+      if (line == null) {
+        return false;
+      }
+      indexLine(line, indexReader.getLineStart());
+    }
+    return true;
+  }
+
+  private void indexLine(CharSequence line, long lineStart) throws IOException {
+    long localEpochSecond = indexTimestampCache.getEpochSecond(line);
+    if (localEpochSecond == EqLogTimestampParser.INVALID) {
+      return;
+    }
+    long partition = Math.floorDiv(localEpochSecond, partitionSeconds);
+    if (!pending.isEmpty()
+        && (partition != pendingPartition || pendingPostings >= MAX_PENDING_POSTINGS)) {
+      writeSegment(lineStart);
+    }
+    if (pending.isEmpty()) {
+      pendingPartition = partition;
+      pendingFirstLocalEpochSecond = localEpochSecond;
+      pendingLastLocalEpochSecond = localEpochSecond;
+    }
+    // Timestamps can go backward (e.g. when clocks change), so the range
+    // isn't just the first and last lines'.
+    pendingFirstLocalEpochSecond = Math.min(pendingFirstLocalEpochSecond, localEpochSecond);
+    pendingLastLocalEpochSecond = Math.max(pendingLastLocalEpochSecond, localEpochSecond);
+    tokenize(line, EqLogTimestampParser.PAYLOAD_START, line.length(), term -> {
+      if (pending.computeIfAbsent(term, key -> new PostingList()).add(lineStart)) {
+        pendingPostings++;
+      }
+    });
+  }
+
+  // Appends the in-memory partition to the file as a segment, recording that
+  // the log has been indexed up to indexedLength.
+  private void writeSegment(long indexedLength) throws IOException {
+    String[] terms = pending.keySet().toArray(new String[0]);
+    Arrays.sort(terms);
+    ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream();
+    DataOutputStream dictionary = new DataOutputStream(dictionaryBytes);
+    ByteArrayOutputStream postings = new ByteArrayOutputStream();
+    for (String term : terms) {
+      PostingList postingList = pending.get(term);
+      dictionary.writeUTF(term);
+      dictionary.writeInt(postings.size());
+      dictionary.writeInt(postingList.length);
+      dictionary.writeInt(postingList.count);
+      postings.write(postingList.bytes, 0, postingList.length);
+    }
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_LENGTH)
+        .putLong(pendingFirstLocalEpochSecond)
+        .putLong(pendingLastLocalEpochSecond)
+        .putInt(dictionaryBytes.size())
+        .putInt(postings.size())
+        .flip();
+    // The segment goes in before the header is updated to include it, so a
+    // crash in between leaves a valid (if slightly stale) index.
+    long position = segmentsEnd;
+    position += write(position, header);
+    position += write(position, ByteBuffer.wrap(dictionaryBytes.toByteArray()));
+    position += write(position, ByteBuffer.wrap(postings.toByteArray()));
+    segments.add(
+        segmentsEnd, pendingFirstLocalEpochSecond, pendingLastLocalEpochSecond,
+        dictionaryBytes.size());
+    segmentsEnd = position;
+    writeMutableHeader(indexedLength);
+    pending.clear();
+    pendingPostings = 0;
+  }
+
+  private void writeMutableHeader(long indexedLength) throws IOException {
+    write(
+        MUTABLE_HEADER_OFFSET,
+        ByteBuffer.allocate(12).putLong(indexedLength).putInt(segments.count).flip());
+  }
+
+  // Returns the offsets of lines in a segment containing every term.
+  private long[] searchSegment(int segment, TreeSet<String> terms) throws IOException {
+    long dictionaryOffset = segments.offsets[segment] + SEGMENT_HEADER_LENGTH;
+    long postingsOffset = dictionaryOffset + segments.dictionaryLengths[segment];
+    DataInputStream dictionary = new DataInputStream(new ByteArrayInputStream(
+        read(channel, dictionaryOffset, segments.dictionaryLengths[segment]).array()));
+    // Both are sorted, so the dictionary only needs reading up to the last
+    // term in the query.
+    List<int[]> found = new ArrayList<int[]>();
+    while (dictionary.available() > 0 && found.size() < terms.size()) {
+      String term = dictionary.readUTF();
+      int[] postingList = {dictionary.readInt(), dictionary.readInt(), dictionary.readInt()};
+      if (term.compareTo(terms.last()) > 0) {
+        break;
+      }
+      if (terms.contains(term)) {
+        found.add(postingList);
+      }
+    }
+    if (found.size() < terms.size()) {
+      return new long[0];
+    }
+    // Intersecting the shortest posting lists first keeps the rest cheap.
+    found.sort((a, b) -> Integer.compare(a[2], b[2]));
+    long[] offsets = null;
+    for (int[] postingList : found) {
+      byte[] bytes = read(channel, postingsOffset + postingList[0], postingList[1]).array();
+      long[] decoded = decode(bytes, postingList[2]);
+      offsets = offsets == null ? decoded : intersect(offsets, decoded);
+      if (offsets.length == 0) {
+        break;
+      }
+    }
+    return offsets;
+  }
+
+  private long[] searchPending(TreeSet<String> terms) {
+    List<PostingList> found = new ArrayList<PostingList>();
+    for (String term : terms) {
+      PostingList postingList = pending.get(term);
+      if (postingList == null) {
+        return new long[0];
+      }
+      found.add(postingList);
+    }
+    found.sort((a, b) -> Integer.compare(a.count, b.count));
+    long[] offsets = null;
+    for (PostingList postingList : found) {
+      long[] decoded = decode(postingList.bytes, postingList.count);
+      offsets = offsets == null ? decoded : intersect(offsets, decoded);
+    }
+    return offsets;
+  }
+
+  // Reads the lines at offsets, adding the events in the time range.
+  private void lookUp(
+      long[] offsets,
+      long startLocalEpochSecond,
+      long endLocalEpochSecond,
+      List<EqLogEvent> eqLogEvents) throws IOException {
+    for (long offset : offsets) {
+      lookupReader.seek(offset);
+      CharSequence line = lookupReader.readLine();
+      if (line == null) {
+        continue;
+      }
+      Optional<EqLogEvent> maybeEqLogEvent =
+          EqLogEvent.parseFromLine(line.toString(), lookupTimestampCache, source);
+      if (maybeEqLogEvent.isPresent()
+          && maybeEqLogEvent.get().getLocalEpochSecond() >= startLocalEpochSecond
+          && maybeEqLogEvent.get().getLocalEpochSecond() <= endLocalEpochSecond) {
+        eqLogEvents.add(maybeEqLogEvent.get());
+      }
+    }
+  }
+
+  // Loads the header and segment list, returning the log offset indexed up to,
+  // or -1 if there is no usable index for the log.
+  private long load(LogFingerprint fingerprint, long logLength) throws IOException {
+    try {
+      ByteBuffer header = read(channel, 0, FIXED_HEADER_LENGTH);
+      if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+        return -1;
+      }
+      long indexedLength = header.getLong();
+      int count = header.getInt();
+      long headerPartitionSeconds = header.getLong();
+      int fingerprintLength = read(channel, FIXED_HEADER_LENGTH, Integer.BYTES).getInt();
+      if (headerPartitionSeconds != partitionSeconds
+          || fingerprintLength < 0
+          || fingerprintLength > 1024
+          || indexedLength > logLength) {
+        return -1;
+      }
+      byte[] fingerprintBytes =
+          read(channel, FIXED_HEADER_LENGTH, Integer.BYTES + fingerprintLength).array();
+      if (!LogFingerprint.read(new DataInputStream(new ByteArrayInputStream(fingerprintBytes)))
+          .matches(fingerprint)) {
+        return -1;
+      }
+      long position = FIXED_HEADER_LENGTH + fingerprintBytes.length;
+      for (int segment = 0; segment < count; segment++) {
+        ByteBuffer segmentHeader = read(channel, position, SEGMENT_HEADER_LENGTH);
+        long firstLocalEpochSecond = segmentHeader.getLong();
+        long lastLocalEpochSecond = segmentHeader.getLong();
+        int dictionaryLength = segmentHeader.getInt();
+        int postingsLength = segmentHeader.getInt();
+        segments.add(position, firstLocalEpochSecond, lastLocalEpochSecond, dictionaryLength);
+        position += SEGMENT_HEADER_LENGTH + dictionaryLength + postingsLength;
+      }
+      if (position > channel.size()) {
+        segments.count = 0;
+        return -1;
+      }
+      segmentsEnd = position;
+      return indexedLength;
+    } catch (EOFException e) {
+      // Treat a partially-written index the same as a missing one.
+      segments.count = 0;
+      return -1;
+    }
+  }
+
+  private void reset(LogFingerprint fingerprint) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream header = new DataOutputStream(bytes);
+    header.writeInt(MAGIC);
+    header.writeInt(VERSION);
+    header.writeLong(0);
+    header.writeInt(0);
+    header.writeLong(partitionSeconds);
+    fingerprint.write(header);
+    channel.truncate(0);
+    segmentsEnd = write(0, ByteBuffer.wrap(bytes.toByteArray()));
+  }
+
+  private int write(long position, ByteBuffer buffer) throws IOException {
+    int length = buffer.remaining();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + length - buffer.remaining());
+    }
+    return length;
+  }
+
+  // Calls consumer with each term in text[start, end).
+  static void tokenize(CharSequence text, int start, int end, Consumer<String> consumer) {
+    StringBuilder term = new StringBuilder();
+    for (int i = start; i <= end; i++) {
+      char c = i < end ? text.charAt(i) : ' ';
+      if (Character.isLetterOrDigit(c)) {
+        term.append(Character.toLowerCase(c));
+      } else if (term.length() > 0) {
+        if (term.length() <= MAX_TERM_LENGTH) {
+          consumer.accept(term.toString());
+        }
+        term.setLength(0);
+      }
+    }
+  }
+
+  private static long[] decode(byte[] bytes, int count) {
+    long[] offsets = new long[count];
+    long offset = 0;
+    int position = 0;
+    for (int i = 0; i < count; i++) {
+      long delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[position++];
+        delta |= (long) (b & 0x7f) << shift;
+        shift += 7;
+      } while (b < 0);
+      offset += delta;
+      offsets[i] = offset;
+    }
+    return offsets;
+  }
+
+  private static long[] intersect(long[] a, long[] b) {
+    long[] intersection = new long[Math.min(a.length, b.length)];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        intersection[count++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(intersection, count);
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) == -1) {
+        throw new EOFException();
+      }
+    }
+    return buffer.flip();
+  }
+
+  // Ascending offsets of the lines containing a term, as varint-encoded
+  // deltas.
+  private static class PostingList {
+
+    private byte[] bytes = new byte[8];
+    private int length = 0;
+    private int count = 0;
+    private long last = -1;
+
+    // Returns false if the offset was already added, i.e. the term appears
+    // more than once in a line.
+    private boolean add(long offset) {
+      if (offset == last) {
+        return false;
+      }
+      if (length + 10 > bytes.length) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      long delta = count == 0 ? offset : offset - last;
+      while ((delta & ~0x7fL) != 0) {
+        bytes[length++] = (byte) ((delta & 0x7f) | 0x80);
+        delta >>>= 7;
+      }
+      bytes[length++] = (byte) delta;
+      last = offset;
+      count++;
+      return true;
+    }
+
+  }
+
+  // In-memory list of the segments in the file.
+  private static class Segments {
+
+    private long[] offsets = new long[64];
+    private long[] firstLocalEpochSeconds = new long[64];
+    private long[] lastLocalEpochSeconds = new long[64];
+    private int[] dictionaryLengths = new int[64];
+    private int count = 0;
+
+    private void add(
+        long offset,
+        long firstLocalEpochSecond,
+        long lastLocalEpochSecond,
+        int dictionaryLength) {
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+        firstLocalEpochSeconds = Arrays.copyOf(firstLocalEpochSeconds, count * 2);
+        lastLocalEpochSeconds = Arrays.copyOf(lastLocalEpochSeconds, count * 2);
+        dictionaryLengths = Arrays.copyOf(dictionaryLengths, count * 2);
+      }
+      offsets[count] = offset;
+      firstLocalEpochSeconds[count] = firstLocalEpochSecond;
+      lastLocalEpochSeconds[count] = lastLocalEpochSecond;
+      dictionaryLengths[count] = dictionaryLength;
+      count++;
+    }
+
+  }
+
+}
@@ -0,0 +1,111 @@
+package com.edmazur.eqlp;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies whose log an event came from.
+ */
+public class EqLogSource {
+
+  private static final String BLUE_SUFFIX = "project1999";
+  private static final String GREEN_SUFFIX = "P1999Green";
+  private static final String RED_SUFFIX = "P1999PVP";
+
+  private static final Pattern LOG_FILE_NAME_PATTERN =
+      Pattern.compile("^eqlog_([^_]+)_(.+)\\.txt$");
+
+  private final String server;
+  private final String character;
+
+  /**
+   * Creates a log source.
+   *
+   * @param server One of "blue", "red", or "green".
+   * @param character Character name.
+   */
+  public EqLogSource(String server, String character) {
+    // Fails fast on unknown servers.
+    getLogFileSuffix(server);
+    this.server = server;
+    this.character = character;
+  }
+
+  /**
+   * Determines the source of a log file from its name.
+   *
+   * @param logFileName Name of the log file, e.g. eqlog_Stanvern_P1999Green.txt.
+   * @return The source, or Optional.empty() if the name isn't that of an EQ log
+   *     for a known server.
+   */
+  public static Optional<EqLogSource> parseFromLogFileName(String logFileName) {
+    Matcher matcher = LOG_FILE_NAME_PATTERN.matcher(logFileName);
+    if (!matcher.matches()) {
+      return Optional.empty();
+    }
+    String server;
+    switch (matcher.group(2)) {
+      case BLUE_SUFFIX:
+        server = "blue";
+        break;
+      case GREEN_SUFFIX:
+        server = "green";
+        break;
+      case RED_SUFFIX:
+        server = "red";
+        break;
+      default:
+        return Optional.empty();
+    }
+    return Optional.of(new EqLogSource(server, matcher.group(1)));
+  }
+
+  public String getServer() {
+    return server;
+  }
+
+  public String getCharacter() {
+    return character;
+  }
+
+  public String getLogFileName() {
+    return "eqlog_" + character + "_" + getLogFileSuffix(server) + ".txt";
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof EqLogSource)) {
+      return false;
+    }
+    EqLogSource otherSource = (EqLogSource) other;
+    return server.equals(otherSource.server)
+        && character.equals(otherSource.character);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(server, character);
+  }
+
+  @Override
+  public String toString() {
+    return character + " (" + server + ")";
+  }
+
+  private static String getLogFileSuffix(String server) {
+    switch (server) {
+      case "blue":
+        return BLUE_SUFFIX;
+      case "green":
+        return GREEN_SUFFIX;
+      case "red":
+        return RED_SUFFIX;
+      default:
+        throw new IllegalArgumentException(
+            "Unknown log file suffix for server " + server);
+    }
+  }
+
+}
@@ -0,0 +1,30 @@
+package com.edmazur.eqlp;
+
+import java.util.Map;
+import javax.management.MXBean;
+
+/**
+ * JMX view of an EqLog's metrics. See EqLogMetrics.
+ */
+@MXBean
+public interface EqLogStatistics {
+
+  long getLinesRead();
+
+  long getLinesParsed();
+
+  long getLinesRejected();
+
+  long getBytesRead();
+
+  double getLinesPerSecond();
+
+  double getBytesPerSecond();
+
+  long getTailLagMillis();
+
+  Map<String, EqLogHistogram> getSeekDurations();
+
+  Map<String, EqLogHistogram> getListenerLatencies();
+
+}
@@ -0,0 +1,194 @@
+package com.edmazur.eqlp;
+
+/**
+ * Bounded pool of short strings that repeat across log lines (names, zones,
+ * common system messages, etc.), so that events kept around by listeners
+ * share one instance of each instead of holding millions of equal copies.
+ *
+ * <p>Unlike String.intern(), the pool has a fixed capacity. Lookups take a
+ * range of any CharSequence, so a hit doesn't allocate. The pool is split into
+ * independently locked stripes, each an open-addressing table where a miss
+ * evicts the least recently used entry near its slot (approximated CLOCK-style
+ * with a referenced bit per entry).
+ *
+ * <p>Instances are thread-safe.
+ */
+class EqLogStringPool {
+
+  // Shared by the parser and classifier.
+  static final EqLogStringPool SHARED = new EqLogStringPool(16, 2048);
+
+  // Longer strings are rarely repeated, so they're returned unpooled.
+  static final int MAX_LENGTH = 64;
+
+  // How many slots from its hashed slot a string can be stored in.
+  private static final int PROBE_LIMIT = 8;
+
+  private final Stripe[] stripes;
+  private final int stripeBits;
+
+  /**
+   * Creates an empty pool holding up to stripes * slotsPerStripe strings.
+   *
+   * @throws IllegalArgumentException If either argument isn't a power of two.
+   */
+  EqLogStringPool(int stripes, int slotsPerStripe) {
+    if (Integer.bitCount(stripes) != 1 || Integer.bitCount(slotsPerStripe) != 1) {
+      throw new IllegalArgumentException(
+          "Sizes must be powers of two: " + stripes + ", " + slotsPerStripe);
+    }
+    this.stripes = new Stripe[stripes];
+    for (int i = 0; i < stripes; i++) {
+      this.stripes[i] = new Stripe(slotsPerStripe);
+    }
+    this.stripeBits = Integer.numberOfTrailingZeros(stripes);
+  }
+
+  String intern(CharSequence string) {
+    return intern(string, 0, string.length());
+  }
+
+  /**
+   * Returns a pooled string equal to string.subSequence(start, end), adding
+   * it to the pool if it isn't already there. Strings longer than MAX_LENGTH
+   * are copied without being pooled.
+   */
+  String intern(CharSequence string, int start, int end) {
+    if (end - start > MAX_LENGTH) {
+      return copy(string, start, end);
+    }
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + string.charAt(i);
+    }
+    // Spreads the hash since similar names differ only in their low bits.
+    hash *= 0x9e3779b9;
+    hash ^= hash >>> 15;
+    Stripe stripe = stripes[hash & (stripes.length - 1)];
+    return stripe.intern(string, start, end, hash, hash >>> stripeBits);
+  }
+
+  /**
+   * Returns the number of lookups that found a pooled string.
+   */
+  long getHits() {
+    long hits = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        hits += stripe.hits;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Returns the number of lookups that added a string to the pool.
+   */
+  long getMisses() {
+    long misses = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        misses += stripe.misses;
+      }
+    }
+    return misses;
+  }
+
+  /**
+   * Returns the number of strings in the pool.
+   */
+  int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        for (String string : stripe.strings) {
+          if (string != null) {
+            size++;
+          }
+        }
+      }
+    }
+    return size;
+  }
+
+  private static String copy(CharSequence string, int start, int end) {
+    if (string instanceof String) {
+      return ((String) string).substring(start, end);
+    }
+    return new StringBuilder(end - start).append(string, start, end).toString();
+  }
+
+  private static class Stripe {
+
+    private final String[] strings;
+    private final int[] hashes;
+    // Set on every hit and cleared as eviction passes over the entry, so
+    // entries used since the last pass get a second chance.
+    private final boolean[] referenced;
+    private long hits = 0;
+    private long misses = 0;
+
+    private Stripe(int slots) {
+      this.strings = new String[slots];
+      this.hashes = new int[slots];
+      this.referenced = new boolean[slots];
+    }
+
+    private synchronized String intern(
+        CharSequence string, int start, int end, int hash, int slot) {
+      int mask = strings.length - 1;
+      int probes = Math.min(PROBE_LIMIT, strings.length);
+      int victim = -1;
+      for (int probe = 0; probe < probes; probe++) {
+        int i = (slot + probe) & mask;
+        String pooled = strings[i];
+        if (pooled == null) {
+          // Entries are replaced but never removed, so nothing with this hash
+          // can be stored past an empty slot.
+          victim = i;
+          break;
+        }
+        if (hashes[i] == hash && contentEquals(pooled, string, start, end)) {
+          referenced[i] = true;
+          hits++;
+          return pooled;
+        }
+      }
+      if (victim == -1) {
+        for (int probe = 0; probe < probes && victim == -1; probe++) {
+          int i = (slot + probe) & mask;
+          if (referenced[i]) {
+            referenced[i] = false;
+          } else {
+            victim = i;
+          }
+        }
+        if (victim == -1) {
+          // Everything was referenced, and the pass above just cleared it all.
+          victim = slot & mask;
+        }
+      }
+      String copy = copy(string, start, end);
+      strings[victim] = copy;
+      hashes[victim] = hash;
+      referenced[victim] = false;
+      misses++;
+      return copy;
+    }
+
+    private static boolean contentEquals(
+        String pooled, CharSequence string, int start, int end) {
+      if (pooled.length() != end - start) {
+        return false;
+      }
+      for (int i = 0; i < pooled.length(); i++) {
+        if (pooled.charAt(i) != string.charAt(start + i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+  }
+
+}
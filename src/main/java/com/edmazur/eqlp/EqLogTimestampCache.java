@@ -0,0 +1,133 @@
+package com.edmazur.eqlp;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Remembers the most recently decoded log line header. Log lines only have
+ * one-second resolution, so during heavy spam (e.g. raid combat) most lines
+ * have the same header as the line before them and can reuse its decoded
+ * timestamp instead of parsing it again.
+ *
+ * <p>Instances are not thread-safe, except that getHits() and getMisses() may
+ * be called from any thread.
+ */
+public class EqLogTimestampCache {
+
+  private final char[] header = new char[EqLogTimestampParser.HEADER_LENGTH];
+  private boolean hasHeader = false;
+  private long epochSecond;
+  // Decoded lazily from epochSecond.
+  private LocalDateTime timestamp;
+  private Instant instant;
+  private ZoneId instantTimezone;
+
+  // Only written by the thread using the cache, but volatile so that other
+  // threads (e.g. reporting metrics) can read them.
+  private volatile long hits = 0;
+  private volatile long misses = 0;
+
+  /**
+   * Gets a line's timestamp. Equivalent to EqLogTimestampParser.parse().
+   */
+  public long getEpochSecond(CharSequence line) {
+    if (hasSameHeader(line)) {
+      hits++;
+      return epochSecond;
+    }
+    misses++;
+    long parsed = EqLogTimestampParser.parse(line);
+    if (parsed != EqLogTimestampParser.INVALID) {
+      for (int i = 0; i < header.length; i++) {
+        header[i] = line.charAt(i);
+      }
+      hasHeader = true;
+      epochSecond = parsed;
+      timestamp = null;
+      instant = null;
+    }
+    return parsed;
+  }
+
+  /**
+   * Gets a line's timestamp.
+   *
+   * @return The timestamp, or null if the line doesn't have a valid header.
+   */
+  public LocalDateTime getTimestamp(CharSequence line) {
+    if (getEpochSecond(line) == EqLogTimestampParser.INVALID) {
+      return null;
+    }
+    if (timestamp == null) {
+      timestamp = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+    return timestamp;
+  }
+
+  /**
+   * Gets a line's timestamp, interpreted in the given timezone.
+   *
+   * @return The timestamp, or null if the line doesn't have a valid header.
+   */
+  public Instant getInstant(CharSequence line, ZoneId timezone) {
+    LocalDateTime timestamp = getTimestamp(line);
+    if (timestamp == null) {
+      return null;
+    }
+    if (instant == null || !timezone.equals(instantTimezone)) {
+      instant = timestamp.atZone(timezone).toInstant();
+      instantTimezone = timezone;
+    }
+    return instant;
+  }
+
+  // Like getInstant(CharSequence, ZoneId), but for a timestamp that
+  // getEpochSecond() just returned, so the header isn't looked up (and
+  // counted as a hit) again.
+  Instant getInstant(long epochSecond, ZoneId timezone) {
+    if (!hasHeader || epochSecond != this.epochSecond) {
+      return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC)
+          .atZone(timezone)
+          .toInstant();
+    }
+    if (instant == null || !timezone.equals(instantTimezone)) {
+      instant = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC)
+          .atZone(timezone)
+          .toInstant();
+      instantTimezone = timezone;
+    }
+    return instant;
+  }
+
+  /**
+   * Returns the number of lookups that reused the previous header.
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of lookups that had to parse the header.
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  private boolean hasSameHeader(CharSequence line) {
+    if (!hasHeader
+        || line.length() <= EqLogTimestampParser.PAYLOAD_START
+        || line.charAt(EqLogTimestampParser.HEADER_LENGTH) != ' ') {
+      return false;
+    }
+    // Compares back to front since the seconds are most likely to differ.
+    for (int i = header.length - 1; i >= 0; i--) {
+      if (line.charAt(i) != header[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,156 @@
+package com.edmazur.eqlp;
+
+/**
+ * Parses the fixed-width "[EEE MMM dd HH:mm:ss yyyy] " header that starts each
+ * EQ log line. Accepts the same lines as matching EqLogEvent.LINE_PATTERN and
+ * parsing the timestamp with EqLogEvent.TIMESTAMP_FORMAT, but reads the fields
+ * in place without building intermediate Strings or Matchers.
+ */
+public final class EqLogTimestampParser {
+
+  /**
+   * Returned by parse() for lines without a valid header.
+   */
+  public static final long INVALID = Long.MIN_VALUE;
+
+  /**
+   * Length of the header, excluding the space separating it from the payload.
+   */
+  public static final int HEADER_LENGTH = 26;
+
+  /**
+   * Index of the first character of the payload.
+   */
+  public static final int PAYLOAD_START = HEADER_LENGTH + 1;
+
+  private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+  // Three-letter names packed into longs (see pack()). Days of week are in ISO
+  // order, i.e. index 0 is Monday.
+  private static final long[] DAYS_OF_WEEK = packAll(
+      "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun");
+  private static final long[] MONTHS = packAll(
+      "Jan", "Feb", "Mar", "Apr", "May", "Jun",
+      "Jul", "Aug", "Sep", "Oct", "Nov", "Dec");
+  private static final int[] DAYS_IN_MONTH = {
+      31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+  private EqLogTimestampParser() {}
+
+  /**
+   * Parses the timestamp from a log line's header.
+   *
+   * @param line The line to parse.
+   * @return The timestamp as seconds since the epoch, treating the (zoneless)
+   *     local time as if it were UTC. Returns INVALID if the line doesn't start
+   *     with a valid header followed by a non-empty payload.
+   */
+  public static long parse(CharSequence line) {
+    if (line.length() <= PAYLOAD_START
+        || line.charAt(0) != '['
+        || line.charAt(4) != ' '
+        || line.charAt(8) != ' '
+        || line.charAt(11) != ' '
+        || line.charAt(14) != ':'
+        || line.charAt(17) != ':'
+        || line.charAt(20) != ' '
+        || line.charAt(HEADER_LENGTH - 1) != ']'
+        || line.charAt(HEADER_LENGTH) != ' ') {
+      return INVALID;
+    }
+    int dayOfWeek = lookup(DAYS_OF_WEEK, line, 1);
+    int month = lookup(MONTHS, line, 5) + 1;
+    int dayOfMonth = parseDigits(line, 9, 2);
+    int hour = parseDigits(line, 12, 2);
+    int minute = parseDigits(line, 15, 2);
+    int second = parseDigits(line, 18, 2);
+    int year = parseDigits(line, 21, 4);
+    if (dayOfWeek < 0
+        || month < 1
+        || dayOfMonth < 1
+        || dayOfMonth > 31
+        || hour < 0
+        || hour > 23
+        || minute < 0
+        || minute > 59
+        || second < 0
+        || second > 59
+        || year < 1) {
+      return INVALID;
+    }
+    // Out-of-range days are clamped to the end of the month, matching
+    // DateTimeFormatter's default (smart) resolver.
+    dayOfMonth = Math.min(dayOfMonth, getDaysInMonth(year, month));
+    long epochDay = getEpochDay(year, month, dayOfMonth);
+    // The formatter rejects day-of-week names that disagree with the date.
+    if (Math.floorMod(epochDay + 3, 7) != dayOfWeek) {
+      return INVALID;
+    }
+    return epochDay * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+  }
+
+  // Returns the index of the three-letter name at line[start], or -1.
+  private static int lookup(long[] names, CharSequence line, int start) {
+    long packed = pack(line.charAt(start), line.charAt(start + 1),
+        line.charAt(start + 2));
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] == packed) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // Returns the value of the digits at line[start, start + count), or -1 if
+  // any of them is not a digit.
+  private static int parseDigits(CharSequence line, int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      int digit = line.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  private static int getDaysInMonth(int year, int month) {
+    if (month == 2 && isLeapYear(year)) {
+      return 29;
+    }
+    return DAYS_IN_MONTH[month - 1];
+  }
+
+  private static boolean isLeapYear(int year) {
+    return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+  }
+
+  // Days since 1970-01-01 in the proleptic Gregorian calendar. See
+  // http://howardhinnant.github.io/date_algorithms.html#days_from_civil.
+  private static long getEpochDay(int year, int month, int dayOfMonth) {
+    if (month <= 2) {
+      year--;
+    }
+    int era = year / 400;
+    int yearOfEra = year - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5
+        + dayOfMonth - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+        + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
+  private static long[] packAll(String... names) {
+    long[] packed = new long[names.length];
+    for (int i = 0; i < names.length; i++) {
+      packed[i] = pack(names[i].charAt(0), names[i].charAt(1), names[i].charAt(2));
+    }
+    return packed;
+  }
+
+  private static long pack(char first, char second, char third) {
+    return ((long) first << 32) | ((long) second << 16) | third;
+  }
+
+}
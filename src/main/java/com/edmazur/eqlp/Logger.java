@@ -10,13 +10,25 @@ public class Logger {
 
   private static final Format DATE_FORMAT = new SimpleDateFormat("MMdd HH:mm:ss.SSS");
 
+  /**
+   * Returns whether messages are printed. Check this before building
+   * expensive messages on hot paths.
+   */
+  public boolean isEnabled() {
+    return DEBUG;
+  }
+
+  /**
+   * Prints a message, if enabled, along with where it was logged from.
+   */
   public void log(String message) {
     if (DEBUG) {
+      StackTraceElement caller = Thread.currentThread().getStackTrace()[2];
       System.out.println(String.format("%s [%s] [%s:%d] %s",
           DATE_FORMAT.format(new Date()),
           Thread.currentThread().getName(),
-          Thread.currentThread().getStackTrace()[2].getClassName(),
-          Thread.currentThread().getStackTrace()[2].getLineNumber(),
+          caller.getClassName(),
+          caller.getLineNumber(),
           message));
     }
   }
@@ -0,0 +1,145 @@
+package com.edmazur.eqlp;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from objects to a fixed number of long columns,
+ * stored unboxed. Entries are addressed by slot, so updating several columns
+ * of an entry only hashes its key once. Slots are only valid until the next
+ * add() or remove().
+ *
+ * <p>Instances are not thread-safe.
+ */
+class ObjectLongHashMap<K> {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int columns;
+  private Object[] keys = new Object[INITIAL_CAPACITY];
+  // The columns of slot i are values[i * columns, (i + 1) * columns).
+  private long[] values;
+  private int size = 0;
+
+  ObjectLongHashMap(int columns) {
+    this.columns = columns;
+    this.values = new long[INITIAL_CAPACITY * columns];
+  }
+
+  /**
+   * Returns the slot of a key, or -1 if it's absent.
+   */
+  int find(K key) {
+    int mask = keys.length - 1;
+    for (int slot = hash(key) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot].equals(key)) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the slot of a key, adding it with every column zero if it's
+   * absent.
+   */
+  int add(K key) {
+    if ((size + 1) * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    int mask = keys.length - 1;
+    int slot = hash(key) & mask;
+    for (; keys[slot] != null; slot = (slot + 1) & mask) {
+      if (keys[slot].equals(key)) {
+        return slot;
+      }
+    }
+    keys[slot] = key;
+    size++;
+    return slot;
+  }
+
+  long get(int slot, int column) {
+    return values[slot * columns + column];
+  }
+
+  void set(int slot, int column, long value) {
+    values[slot * columns + column] = value;
+  }
+
+  /**
+   * Returns the key in a slot, or null if the slot is empty. Slots range from
+   * 0 to getCapacity() - 1.
+   */
+  @SuppressWarnings("unchecked")
+  K getKey(int slot) {
+    return (K) keys[slot];
+  }
+
+  int getCapacity() {
+    return keys.length;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Removes the entry in a slot. Later entries in its probe sequence are
+   * shifted back to fill the gap, rather than leaving a tombstone.
+   */
+  void remove(int slot) {
+    int mask = keys.length - 1;
+    int gap = slot;
+    int next = slot;
+    while (true) {
+      next = (next + 1) & mask;
+      if (keys[next] == null) {
+        break;
+      }
+      int home = hash(keys[next]) & mask;
+      // Entries whose home slot is cyclically in (gap, next] can't move
+      // before their home.
+      boolean stays = gap <= next
+          ? gap < home && home <= next
+          : gap < home || home <= next;
+      if (!stays) {
+        keys[gap] = keys[next];
+        System.arraycopy(values, next * columns, values, gap * columns, columns);
+        gap = next;
+      }
+    }
+    keys[gap] = null;
+    Arrays.fill(values, gap * columns, (gap + 1) * columns, 0);
+    size--;
+  }
+
+  void clear() {
+    Arrays.fill(keys, null);
+    Arrays.fill(values, 0);
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    Object[] oldKeys = keys;
+    long[] oldValues = values;
+    keys = new Object[capacity];
+    values = new long[capacity * columns];
+    int mask = capacity - 1;
+    for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+      if (oldKeys[oldSlot] != null) {
+        int slot = hash(oldKeys[oldSlot]) & mask;
+        while (keys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[oldSlot];
+        System.arraycopy(oldValues, oldSlot * columns, values, slot * columns, columns);
+      }
+    }
+  }
+
+  private static int hash(Object key) {
+    int hash = key.hashCode() * 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.edmazur.eqlp.file;
+
+import java.io.File;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Pattern;
+
+/**
+ * Implements binary search for searching through a log file. Bisects on byte
+ * offsets of a memory mapping of the file, so reaching any timestamp only
+ * touches O(log n) pages.
+ */
+public class BinarySearchLogSeeker extends MappedLogSeeker {
+
+  public BinarySearchLogSeeker(
+      File log,
+      Pattern timestampExtractor,
+      DateTimeFormatter timestampFormatter,
+      ZoneId timezone) {
+    super(log, timestampExtractor, timestampFormatter, timezone);
+  }
+
+  @Override
+  long search(MappedLogFile mappedLog, Instant seekStart) {
+    // Invariants:
+    // - Every timestamped line starting before low is before seekStart.
+    // - The first timestamped line at or after high is not before seekStart
+    //   (or doesn't exist).
+    long low = 0;
+    long high = mappedLog.size();
+    while (low < high) {
+      long middle = low + (high - low) / 2;
+      TimestampedLine line = findTimestampedLine(mappedLog, middle);
+      if (line == null || !seekStart.isAfter(line.timestamp)) {
+        high = middle;
+      } else {
+        low = line.next;
+      }
+    }
+    TimestampedLine line = findTimestampedLine(mappedLog, low);
+    return line == null ? mappedLog.size() : line.start;
+  }
+
+  @Override
+  public String getStrategyDescription() {
+    return "Binary search";
+  }
+
+}
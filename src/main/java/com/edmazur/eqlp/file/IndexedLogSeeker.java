@@ -0,0 +1,240 @@
+package com.edmazur.eqlp.file;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.io.UTFDataFormatException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Searches through a log file using a sparse timestamp index persisted in a
+ * sidecar file next to the log (e.g. eqlog_Stanvern_P1999Green.txt.idx).
+ *
+ * <p>The index records the offset of the first line of each indexInterval
+ * worth of log, so a seek is a binary search over the index followed by a
+ * scan of at most one interval. The first seek against a log has to read the
+ * whole file to build the index. After that, each seek only indexes whatever
+ * has been appended since the last one, and the index is rebuilt from
+ * scratch if the log has been truncated or rotated.
+ */
+public class IndexedLogSeeker extends MappedLogSeeker {
+
+  private static final String INDEX_SUFFIX = ".idx";
+
+  private static final Duration DEFAULT_INDEX_INTERVAL = Duration.ofMinutes(1);
+
+  private static final int MAGIC = 0x45514c49; // "EQLI"
+  private static final int VERSION = 1;
+  // Offset of the indexedLength and entryCount header fields, which are
+  // rewritten in place whenever the index is extended.
+  private static final long MUTABLE_HEADER_OFFSET = 8;
+  // A timestamp and an offset.
+  private static final int ENTRY_SIZE = 16;
+
+  private final File index;
+  private final Duration indexInterval;
+
+  public IndexedLogSeeker(
+      File log,
+      Pattern timestampExtractor,
+      DateTimeFormatter timestampFormatter,
+      ZoneId timezone) {
+    this(
+        log,
+        timestampExtractor,
+        timestampFormatter,
+        timezone,
+        new File(log.getPath() + INDEX_SUFFIX),
+        DEFAULT_INDEX_INTERVAL);
+  }
+
+  public IndexedLogSeeker(
+      File log,
+      Pattern timestampExtractor,
+      DateTimeFormatter timestampFormatter,
+      ZoneId timezone,
+      File index,
+      Duration indexInterval) {
+    super(log, timestampExtractor, timestampFormatter, timezone);
+    this.index = index;
+    this.indexInterval = indexInterval;
+  }
+
+  @Override
+  long search(MappedLogFile mappedLog, Instant seekStart) throws IOException {
+    LogFingerprint fingerprint = LogFingerprint.of(log.toPath());
+    Entries entries = readIndex(mappedLog, fingerprint);
+    boolean rebuild = entries == null;
+    if (rebuild) {
+      entries = new Entries();
+    }
+    int previousCount = entries.count;
+    extend(mappedLog, entries);
+    if (rebuild) {
+      writeIndex(entries, fingerprint);
+    } else if (entries.indexedLength != entries.previousIndexedLength) {
+      appendToIndex(entries, previousCount);
+    }
+
+    TimestampedLine line =
+        findTimestampedLine(mappedLog, entries.floor(seekStart));
+    while (line != null && seekStart.isAfter(line.timestamp)) {
+      line = findTimestampedLine(mappedLog, line.next);
+    }
+    return line == null ? mappedLog.size() : line.start;
+  }
+
+  // Indexes complete lines appended since the index was last written.
+  private void extend(MappedLogFile mappedLog, Entries entries) {
+    long intervalSeconds = indexInterval.getSeconds();
+    long lineStart = entries.indexedLength;
+    while (lineStart < mappedLog.size()) {
+      long lineEnd = mappedLog.lineEnd(lineStart);
+      if (lineEnd == mappedLog.size()) {
+        // The last line may still be in the middle of being written.
+        break;
+      }
+      Optional<Instant> maybeTimestamp =
+          getInstant(mappedLog.getLine(lineStart, lineEnd));
+      if (maybeTimestamp.isPresent()) {
+        long timestamp = maybeTimestamp.get().getEpochSecond();
+        if (entries.count == 0
+            || timestamp >= entries.lastTimestamp() + intervalSeconds) {
+          entries.add(timestamp, lineStart);
+        }
+      }
+      lineStart = lineEnd + 1;
+    }
+    entries.indexedLength = lineStart;
+  }
+
+  // Returns null if there is no usable index for the log.
+  private Entries readIndex(MappedLogFile mappedLog, LogFingerprint fingerprint)
+      throws IOException {
+    if (!index.exists()) {
+      return null;
+    }
+    try (RandomAccessFile file = new RandomAccessFile(index, "r")) {
+      if (file.readInt() != MAGIC || file.readInt() != VERSION) {
+        return null;
+      }
+      Entries entries = new Entries();
+      entries.indexedLength = file.readLong();
+      entries.previousIndexedLength = entries.indexedLength;
+      int count = file.readInt();
+      if (file.readLong() != indexInterval.getSeconds()
+          || !file.readUTF().equals(timezone.getId())
+          || !LogFingerprint.read(file).matches(fingerprint)
+          || entries.indexedLength > mappedLog.size()) {
+        return null;
+      }
+      entries.entriesOffset = file.getFilePointer();
+      for (int i = 0; i < count; i++) {
+        entries.add(file.readLong(), file.readLong());
+      }
+      return entries;
+    } catch (EOFException | StreamCorruptedException | UTFDataFormatException e) {
+      // Treat a partially-written or corrupt index the same as a missing one.
+      return null;
+    }
+  }
+
+  private void writeIndex(Entries entries, LogFingerprint fingerprint)
+      throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+      file.setLength(0);
+      file.writeInt(MAGIC);
+      file.writeInt(VERSION);
+      file.writeLong(entries.indexedLength);
+      file.writeInt(entries.count);
+      file.writeLong(indexInterval.getSeconds());
+      file.writeUTF(timezone.getId());
+      fingerprint.write(file);
+      entries.entriesOffset = file.getFilePointer();
+      for (int i = 0; i < entries.count; i++) {
+        file.writeLong(entries.timestamps[i]);
+        file.writeLong(entries.offsets[i]);
+      }
+    }
+  }
+
+  private void appendToIndex(Entries entries, int previousCount)
+      throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+      // Entries go in before the header is updated to include them, so a
+      // crash in between leaves a valid (if slightly stale) index. Anything
+      // past the counted entries was left by such a crash, so is dropped.
+      long entriesEnd = entries.entriesOffset + (long) previousCount * ENTRY_SIZE;
+      file.setLength(entriesEnd);
+      file.seek(entriesEnd);
+      for (int i = previousCount; i < entries.count; i++) {
+        file.writeLong(entries.timestamps[i]);
+        file.writeLong(entries.offsets[i]);
+      }
+      file.seek(MUTABLE_HEADER_OFFSET);
+      file.writeLong(entries.indexedLength);
+      file.writeInt(entries.count);
+    }
+  }
+
+  @Override
+  public String getStrategyDescription() {
+    return "Indexed search with indexInterval=" + indexInterval;
+  }
+
+  // In-memory copy of the index.
+  private static class Entries {
+
+    // Epoch seconds of each indexed line, ascending.
+    private long[] timestamps = new long[1024];
+    // Offsets of each indexed line.
+    private long[] offsets = new long[1024];
+    private int count = 0;
+    // Offset of the first line not yet indexed.
+    private long indexedLength = 0;
+    // Value of indexedLength when the index was read from disk.
+    private long previousIndexedLength = 0;
+    // Offset of the first entry in the index file.
+    private long entriesOffset = 0;
+
+    private void add(long timestamp, long offset) {
+      if (count == timestamps.length) {
+        timestamps = Arrays.copyOf(timestamps, count * 2);
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      timestamps[count] = timestamp;
+      offsets[count] = offset;
+      count++;
+    }
+
+    private long lastTimestamp() {
+      return timestamps[count - 1];
+    }
+
+    // Returns the offset of the last indexed line before seekStart, or 0 if
+    // there isn't one.
+    private long floor(Instant seekStart) {
+      int low = 0;
+      int high = count;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (Instant.ofEpochSecond(timestamps[middle]).isBefore(seekStart)) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low == 0 ? 0 : offsets[low - 1];
+    }
+
+  }
+
+}
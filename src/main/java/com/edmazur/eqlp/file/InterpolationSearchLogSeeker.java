@@ -0,0 +1,109 @@
+package com.edmazur.eqlp.file;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Implements interpolation search for searching through a log file. EQ logs
+ * are close to uniform in time while a character is logged in, so the offset
+ * of a timestamp can usually be estimated to within a page or two from the
+ * timestamps at either end of the search range.
+ */
+public class InterpolationSearchLogSeeker extends MappedLogSeeker {
+
+  // Once the search range is this small, scan it line by line rather than
+  // probing further.
+  private static final long LINEAR_SCAN_SIZE = 8 * 1024;
+
+  public InterpolationSearchLogSeeker(
+      File log,
+      Pattern timestampExtractor,
+      DateTimeFormatter timestampFormatter,
+      ZoneId timezone) {
+    super(log, timestampExtractor, timestampFormatter, timezone);
+  }
+
+  @Override
+  long search(MappedLogFile mappedLog, Instant seekStart) {
+    TimestampedLine first = findTimestampedLine(mappedLog, 0);
+    if (first == null || !seekStart.isAfter(first.timestamp)) {
+      return first == null ? mappedLog.size() : first.start;
+    }
+    TimestampedLine last = findLastTimestampedLine(mappedLog);
+    if (seekStart.isAfter(last.timestamp)) {
+      return mappedLog.size();
+    }
+
+    // Same invariants as BinarySearchLogSeeker, plus lowTimestamp and
+    // highTimestamp bracketing seekStart.
+    long low = first.next;
+    Instant lowTimestamp = first.timestamp;
+    long high = last.start;
+    Instant highTimestamp = last.timestamp;
+    // Falls back to bisecting whenever an estimate fails to at least halve the
+    // search range, which bounds the worst case (e.g. a multi-day gap between
+    // sessions) at about twice the probes of binary search.
+    boolean bisect = false;
+    while (high - low > LINEAR_SCAN_SIZE) {
+      long previousRange = high - low;
+      long probe;
+      if (bisect) {
+        probe = low + (high - low) / 2;
+      } else {
+        double fraction =
+            (double) Duration.between(lowTimestamp, seekStart).getSeconds()
+            / Duration.between(lowTimestamp, highTimestamp).getSeconds();
+        probe = low + (long) (fraction * (high - low));
+        probe = Math.max(low, Math.min(high - 1, probe));
+      }
+      TimestampedLine line = findTimestampedLine(mappedLog, probe);
+      if (line == null || !seekStart.isAfter(line.timestamp)) {
+        high = probe;
+        if (line != null) {
+          highTimestamp = line.timestamp;
+        }
+      } else {
+        low = line.next;
+        lowTimestamp = line.timestamp;
+      }
+      bisect = high - low > previousRange / 2;
+    }
+
+    TimestampedLine line = findTimestampedLine(mappedLog, low);
+    while (line != null && seekStart.isAfter(line.timestamp)) {
+      line = findTimestampedLine(mappedLog, line.next);
+    }
+    return line == null ? mappedLog.size() : line.start;
+  }
+
+  // Like findTimestampedLine(), but scans backwards from the end of the file.
+  private TimestampedLine findLastTimestampedLine(MappedLogFile mappedLog) {
+    long lineEnd = mappedLog.size();
+    while (lineEnd > 0) {
+      long lineStart = mappedLog.lineStart(lineEnd - 1);
+      // Excludes the newline terminating the line, if any.
+      long contentEnd = mappedLog.lineEnd(lineStart);
+      Optional<Instant> maybeTimestamp =
+          getInstant(mappedLog.getLine(lineStart, contentEnd));
+      if (maybeTimestamp.isPresent()) {
+        return new TimestampedLine(
+            lineStart,
+            Math.min(contentEnd + 1, mappedLog.size()),
+            maybeTimestamp.get());
+      }
+      lineEnd = lineStart;
+    }
+    return null;
+  }
+
+  @Override
+  public String getStrategyDescription() {
+    return "Interpolation search";
+  }
+
+}
@@ -1,10 +1,7 @@
 package com.edmazur.eqlp.file;
 
 import com.edmazur.eqlp.Logger;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -43,86 +40,48 @@ public class JumpSearchLogSeeker extends LogSeeker {
     this.jumpSize = jumpSize;
   }
 
-  // TODO: Simplify this algorithm. I'm fairly confident of its correctness
-  // based on fairly extensive unit tests, but the logic is super hard to follow
-  // and it's plausible an edge case was missed.
   @Override
-  public BufferedReader seek(Instant seekStart) throws IOException {
-    BufferedReader bufferedReader = null;
-    try {
-      bufferedReader = new BufferedReader(new FileReader(log));
-    } catch (FileNotFoundException e) {
-      // TODO: Handle this more gracefully.
-      e.printStackTrace();
-      System.exit(-1);
-    }
-    logger.log("Beginning search");
-    while (true) {
-      String line;
-      bufferedReader.mark(jumpSize + LONGEST_SUPPORTED_LINE);
-
-      // If we reach the end of the file without finding an entry past
-      // seekStart, then return the buffer.
-      if ((line = bufferedReader.readLine()) == null) {
-        logger.log("Reached end of file");
-        return bufferedReader;
-      }
-
-      // Determine whether the target line is in jump range.
-
-      bufferedReader.skip(jumpSize);
-      // Skip possibly-partial line.
-      bufferedReader.readLine();
-
-      // Get info about the upper end of the jump range. In most cases, one line
-      // is enough, but in edge cases where the next line is blank or malformed,
-      // we need to keep going.
-      boolean reachedEndOfFile = false;
-      Instant timestamp = null;
+  public long seekPosition(Instant seekStart) throws IOException {
+    try (LogLineReader reader = new LogLineReader(log)) {
+      logger.log("Beginning search");
+      // Start of the current jump range. Everything before it is known to be
+      // before seekStart.
+      long rangeStart = 0;
       while (true) {
-        line = bufferedReader.readLine();
-        logger.log("Jump search stage: " + line);
-        if (line == null) {
-          reachedEndOfFile = true;
-          break;
-        }
-        Optional<Instant> maybeTimestamp = getInstant(line);
-        if (maybeTimestamp.isPresent()) {
-          timestamp = maybeTimestamp.get();
-          break;
+        reader.seek(rangeStart);
+        if (reader.readLine(true) == null) {
+          logger.log("Reached end of file");
+          return reader.getPosition();
         }
-      }
 
-      if (reachedEndOfFile || !seekStart.isAfter(timestamp)) {
-        // Target line is in jump range, rewind and do linear search.
-        // TODO: Re-use LinearSearchLogSeeker here somehow instead of
-        // essentially repeating its logic.
-        logger.log("Target is in jump range, doing linear search");
-        bufferedReader.reset();
-        while (true) {
-          bufferedReader.mark(LONGEST_SUPPORTED_LINE);
+        // Determine whether the target line is in jump range.
 
-          // If we reach the end of the file without finding an entry past
-          // seekStart, then return the buffer.
-          if ((line = bufferedReader.readLine()) == null) {
-            return bufferedReader;
-          }
-          logger.log("Linear search stage: " + line);
+        reader.seek(reader.getPosition() + jumpSize);
+        // Skip possibly-partial line.
+        reader.readLine(true);
 
-          Optional<Instant> maybeTimestamp = getInstant(line);
-          if (maybeTimestamp.isEmpty()) {
-            continue;
+        // Get info about the upper end of the jump range. In most cases, one
+        // line is enough, but in edge cases where the next line is blank or
+        // malformed, we need to keep going.
+        CharSequence line;
+        Instant timestamp = null;
+        while ((line = reader.readLine(true)) != null) {
+          if (logger.isEnabled()) {
+            logger.log("Jump search stage: " + line);
           }
-          timestamp = maybeTimestamp.get();
-          if (!seekStart.isAfter(timestamp)) {
-            logger.log(
-                "Found a line comes before (or is same as) seekStart, "
-                + "resetting to line before: " + line);
-            bufferedReader.reset();
-            return bufferedReader;
+          Optional<Instant> maybeTimestamp = getInstant(line);
+          if (maybeTimestamp.isPresent()) {
+            timestamp = maybeTimestamp.get();
+            break;
           }
-          logger.log("Moving forward a line");
         }
+
+        if (timestamp == null || !seekStart.isAfter(timestamp)) {
+          // Target line is in jump range, rewind and do linear search.
+          logger.log("Target is in jump range, doing linear search");
+          return scanForward(reader, rangeStart, seekStart);
+        }
+        rangeStart = reader.getPosition();
       }
     }
   }
@@ -0,0 +1,73 @@
+package com.edmazur.eqlp.file;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Identifies a log file by its leading bytes. Logs are only ever appended to,
+ * so this is enough to tell a log that has grown apart from one that has been
+ * rotated or recreated since the fingerprint was taken.
+ */
+public class LogFingerprint {
+
+  private static final int LENGTH = 64;
+
+  private final byte[] leadingBytes;
+
+  private LogFingerprint(byte[] leadingBytes) {
+    this.leadingBytes = leadingBytes;
+  }
+
+  /**
+   * Takes the fingerprint of a log as it currently is.
+   */
+  public static LogFingerprint of(Path log) throws IOException {
+    try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(LENGTH);
+      while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+        // Keep reading until the buffer is full or the file ends.
+      }
+      return new LogFingerprint(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+  }
+
+  /**
+   * Reads a fingerprint previously written with write().
+   *
+   * @throws StreamCorruptedException If what's read isn't a fingerprint.
+   */
+  public static LogFingerprint read(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > LENGTH) {
+      throw new StreamCorruptedException("Invalid fingerprint length " + length);
+    }
+    byte[] leadingBytes = new byte[length];
+    in.readFully(leadingBytes);
+    return new LogFingerprint(leadingBytes);
+  }
+
+  public void write(DataOutput out) throws IOException {
+    out.writeInt(leadingBytes.length);
+    out.write(leadingBytes);
+  }
+
+  /**
+   * Checks whether current could be a later version of the log this
+   * fingerprint was taken from, i.e. whether this fingerprint's bytes are a
+   * prefix of current's.
+   */
+  public boolean matches(LogFingerprint current) {
+    return leadingBytes.length <= current.leadingBytes.length
+        && Arrays.equals(
+            leadingBytes,
+            Arrays.copyOf(current.leadingBytes, leadingBytes.length));
+  }
+
+}
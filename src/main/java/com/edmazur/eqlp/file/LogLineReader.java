@@ -0,0 +1,236 @@
+package com.edmazur.eqlp.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads lines from a log file by byte offset. Line boundaries are found on the
+ * raw bytes in a reusable direct buffer, and lines are returned as views over
+ * that buffer with bytes decoded as Latin-1, so reading a line doesn't copy or
+ * allocate anything. The buffer stays a fixed size: a line too long to fit in
+ * it is copied into a separate heap buffer as it's read, which grows as
+ * needed and is released again after unusually long lines.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public class LogLineReader implements Closeable {
+
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  // Spill buffers bigger than this aren't kept around for the next long line.
+  private static final int MAX_RETAINED_SPILL_SIZE = 1024 * 1024;
+  private static final byte[] EMPTY = new byte[0];
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer;
+  // File offset of the first byte in the buffer.
+  private long bufferOffset = 0;
+  // Index in the buffer of the first byte not yet returned as part of a line.
+  private int next = 0;
+  // Index in the buffer up to which there's known to be no newline.
+  private int scanned = 0;
+  // File offset of the most recently returned line.
+  private long lineStart = 0;
+  // Start of a line that didn't fit in the buffer, which has been copied
+  // here as far as the start of the buffer.
+  private byte[] spill = EMPTY;
+  private int spillLength = 0;
+  private long spillStart = 0;
+  private final LineView lineView = new LineView();
+
+  public LogLineReader(File log) throws IOException {
+    this(log, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Opens a log file for reading from its start.
+   *
+   * @param log The log to read.
+   * @param bufferSize Size of the read buffer. Longer lines are still read,
+   *     by copying them into a separate buffer.
+   */
+  public LogLineReader(File log, int bufferSize) throws IOException {
+    this.channel = FileChannel.open(log.toPath(), StandardOpenOption.READ);
+    this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    this.buffer.limit(0);
+  }
+
+  /**
+   * Returns the next newline-terminated line, minus the newline and any
+   * carriage return before it. An unterminated line at the end of the file is
+   * not returned until it's completed, so this is safe to call repeatedly
+   * while the file is being written to.
+   *
+   * <p>The returned view is only valid until the next call to this reader.
+   * Use toString() to keep a copy.
+   *
+   * @return The line, or null if there are no more complete lines yet.
+   */
+  public CharSequence readLine() throws IOException {
+    return readLine(false);
+  }
+
+  /**
+   * Like readLine(), but optionally also returns an unterminated line at the
+   * end of the file.
+   */
+  public CharSequence readLine(boolean includeUnterminated) throws IOException {
+    while (true) {
+      int limit = buffer.limit();
+      for (int i = scanned; i < limit; i++) {
+        if (buffer.get(i) == '\n') {
+          return takeLine(i, i + 1);
+        }
+      }
+      scanned = limit;
+      if (!fill()) {
+        if (includeUnterminated && (next < buffer.limit() || spillLength > 0)) {
+          return takeLine(buffer.limit(), buffer.limit());
+        }
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Returns the file offset of the line most recently returned by readLine().
+   */
+  public long getLineStart() {
+    return lineStart;
+  }
+
+  /**
+   * Returns the file offset that the next readLine() will start reading from.
+   */
+  public long getPosition() {
+    return spillLength > 0 ? spillStart : bufferOffset + next;
+  }
+
+  /**
+   * Moves to a file offset. If it's not the start of a line, the next
+   * readLine() returns the rest of the line it's in.
+   */
+  public void seek(long position) {
+    bufferOffset = position;
+    next = 0;
+    scanned = 0;
+    spillLength = 0;
+    buffer.clear().limit(0);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private CharSequence takeLine(int lineEnd, int nextLineStart) {
+    if (spillLength > 0) {
+      spill(next, lineEnd);
+      lineStart = spillStart;
+      lineView.spilled = spill;
+      lineView.start = 0;
+      lineView.length = spillLength;
+      spillLength = 0;
+      if (spill.length > MAX_RETAINED_SPILL_SIZE) {
+        // The view keeps its own reference until the next line.
+        spill = EMPTY;
+      }
+    } else {
+      lineStart = bufferOffset + next;
+      lineView.spilled = null;
+      lineView.start = next;
+      lineView.length = lineEnd - next;
+    }
+    if (lineView.length > 0 && lineView.byteAt(lineView.length - 1) == '\r') {
+      lineView.length--;
+    }
+    next = nextLineStart;
+    scanned = nextLineStart;
+    return lineView;
+  }
+
+  // Reads more of the file into the buffer, first discarding bytes already
+  // returned and spilling the buffer if it's full of a single line. Returns
+  // false if there was nothing more to read.
+  private boolean fill() throws IOException {
+    if (next > 0) {
+      buffer.position(next);
+      buffer.compact();
+      bufferOffset += next;
+      scanned -= next;
+      next = 0;
+    } else {
+      buffer.position(buffer.limit());
+      buffer.limit(buffer.capacity());
+    }
+    if (!buffer.hasRemaining()) {
+      if (spillLength == 0) {
+        spillStart = bufferOffset;
+      }
+      spill(0, buffer.limit());
+      bufferOffset += buffer.limit();
+      scanned = 0;
+      buffer.clear();
+    }
+    int bytesRead = channel.read(buffer, bufferOffset + buffer.position());
+    buffer.flip();
+    return bytesRead > 0;
+  }
+
+  // Appends buffer[from, to) to the spill buffer.
+  private void spill(int from, int to) {
+    int length = to - from;
+    if (spillLength + length > spill.length) {
+      spill = Arrays.copyOf(spill, Math.max(spill.length * 2, spillLength + length));
+    }
+    buffer.get(from, spill, spillLength, length);
+    spillLength += length;
+  }
+
+  private class LineView implements CharSequence {
+
+    // The spill buffer the line is in, or null if it's in the read buffer.
+    private byte[] spilled;
+    private int start;
+    private int length;
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      return (char) (byteAt(index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+      if (spilled != null) {
+        return new String(spilled, start, length, StandardCharsets.ISO_8859_1);
+      }
+      byte[] bytes = new byte[length];
+      buffer.get(start, bytes);
+      return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private byte byteAt(int index) {
+      return spilled != null ? spilled[start + index] : buffer.get(start + index);
+    }
+
+  }
+
+}
@@ -1,8 +1,13 @@
 package com.edmazur.eqlp.file;
 
+import com.edmazur.eqlp.EqLogEvent;
+import com.edmazur.eqlp.EqLogTimestampCache;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -15,24 +20,18 @@ import java.util.regex.Pattern;
 /**
  * Parent class for log file search implementations.
  */
-// TODO: Consider adding binary search or interpolation search. Jump search is
-// pretty fast (~2 seconds to reach the end of a ~750MB file). Other algorithms
-// would probably be even faster, but more annoying to implement.
 public abstract class LogSeeker {
 
-  // The length of the longest supported line. Important for implementations
-  // that need lookback to be able to set buffer sizes.
-  // Currently set to well above the length of the longest line in the log of
-  // what I plan to use this generic utility for (EQ log parsing, Telin
-  // Darkforest epic spam is 802 characters).
-  protected static int LONGEST_SUPPORTED_LINE = 4096;
-
   protected final File log;
   // TODO: Generalize this further by replacing the pattern, formatter, and
   // timezone with a Function<String, Comparable> transformer.
   protected final Pattern timestampExtractor;
   protected final DateTimeFormatter timestampFormatter;
   protected final ZoneId timezone;
+  // Whether lines can be parsed with EqLogTimestampParser rather than the
+  // (much slower) pattern and formatter.
+  private final boolean isEqLogFormat;
+  private final EqLogTimestampCache timestampCache = new EqLogTimestampCache();
 
   public LogSeeker(
       File log,
@@ -43,13 +42,46 @@ public abstract class LogSeeker {
     this.timestampExtractor = timestampExtractor;
     this.timestampFormatter = timestampFormatter;
     this.timezone = timezone;
+    this.isEqLogFormat = timestampExtractor == EqLogEvent.LINE_PATTERN
+        && timestampFormatter == EqLogEvent.TIMESTAMP_FORMAT;
   }
 
-  public abstract BufferedReader seek(Instant seekStart) throws IOException;
+  /**
+   * Finds the byte offset of the first line whose timestamp is not before
+   * seekStart.
+   *
+   * @param seekStart Timestamp to search for.
+   * @return The offset of the matching line, or the size of the file if there
+   *     is no such line.
+   */
+  public abstract long seekPosition(Instant seekStart) throws IOException;
+
+  /**
+   * Opens the log positioned at the line described by seekPosition(). Prefer
+   * seekPosition() with a LogLineReader, which avoids decoding the file to
+   * chars.
+   */
+  public BufferedReader seek(Instant seekStart) throws IOException {
+    FileInputStream inputStream = new FileInputStream(log);
+    inputStream.getChannel().position(seekPosition(seekStart));
+    return new BufferedReader(
+        new InputStreamReader(inputStream, StandardCharsets.ISO_8859_1));
+  }
 
   public abstract String getStrategyDescription();
 
-  protected Optional<Instant> getInstant(String line) {
+  /**
+   * Returns the cache used to decode line timestamps, e.g. to check its hit
+   * rate. Only used for the EQ log format.
+   */
+  public EqLogTimestampCache getTimestampCache() {
+    return timestampCache;
+  }
+
+  protected Optional<Instant> getInstant(CharSequence line) {
+    if (isEqLogFormat) {
+      return Optional.ofNullable(timestampCache.getInstant(line, timezone));
+    }
     Matcher matcher = timestampExtractor.matcher(line);
     if (!matcher.matches() || matcher.groupCount() != 2) {
       return Optional.empty();
@@ -63,4 +95,25 @@ public abstract class LogSeeker {
     return Optional.of(timestamp.atZone(timezone).toInstant());
   }
 
+  /**
+   * Reads forward from position (which must be a line start) to the first
+   * line whose timestamp is not before seekStart.
+   *
+   * @return The offset of the matching line, or the end of the file if there
+   *     is no such line.
+   */
+  protected long scanForward(
+      LogLineReader reader, long position, Instant seekStart)
+      throws IOException {
+    reader.seek(position);
+    CharSequence line;
+    while ((line = reader.readLine(true)) != null) {
+      Optional<Instant> maybeTimestamp = getInstant(line);
+      if (maybeTimestamp.isPresent() && !seekStart.isAfter(maybeTimestamp.get())) {
+        return reader.getLineStart();
+      }
+    }
+    return reader.getPosition();
+  }
+
 }
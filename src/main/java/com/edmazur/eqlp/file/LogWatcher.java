@@ -0,0 +1,101 @@
+package com.edmazur.eqlp.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Waits for a log file (or any log in a directory) to grow after a reader has
+ * reached the end of it.
+ */
+public interface LogWatcher extends Closeable {
+
+  /**
+   * Blocks until the log may have grown. May return spuriously, so callers
+   * should treat a return as a hint to try reading again rather than as a
+   * guarantee that there is more to read.
+   */
+  void await() throws InterruptedException;
+
+  /**
+   * Creates a watcher for a log file. Prefers file system change notifications
+   * (e.g. inotify), falling back to polling on platforms where those are
+   * unavailable, are themselves implemented by (slow) polling, or wouldn't
+   * see changes (e.g. on network file systems).
+   */
+  static LogWatcher create(Path log) throws IOException {
+    Path absoluteLog = log.toAbsolutePath();
+    return create(
+        absoluteLog.getParent(),
+        absoluteLog.getFileName(),
+        PollingLogWatcher.forFile(absoluteLog));
+  }
+
+  /**
+   * Creates a watcher for every file in a directory, including files created
+   * after the watcher. See create(Path).
+   */
+  static LogWatcher createForDirectory(Path directory) throws IOException {
+    return create(
+        directory.toAbsolutePath(),
+        null,
+        PollingLogWatcher.forDirectory(directory));
+  }
+
+  private static LogWatcher create(
+      Path directory,
+      Path fileName,
+      PollingLogWatcher fallback) throws IOException {
+    if (!hasNativeNotifications(directory)) {
+      return fallback;
+    }
+    WatchService watchService;
+    try {
+      watchService = directory.getFileSystem().newWatchService();
+    } catch (UnsupportedOperationException e) {
+      return fallback;
+    }
+    // Linux reports writes as they happen, so the watcher can block until one
+    // does.
+    Duration maxWait = System.getProperty("os.name", "").startsWith("Linux")
+        ? WatchServiceLogWatcher.PROMPT_MAX_WAIT
+        : WatchServiceLogWatcher.LAZY_MAX_WAIT;
+    try {
+      return new WatchServiceLogWatcher(watchService, directory, fileName, maxWait);
+    } catch (IOException | UnsupportedOperationException e) {
+      watchService.close();
+      return fallback;
+    }
+  }
+
+  // Whether a WatchService would hear about changes to files in directory
+  // promptly. The JDK only implements WatchService natively on Linux
+  // (inotify) and Windows. Elsewhere (e.g. macOS, as of JDK 17 through 21) it
+  // polls with a multi-second interval, and polling ourselves is far more
+  // responsive. Native notifications also miss changes made from other
+  // machines (or from Windows, for WSL) to network file systems.
+  private static boolean hasNativeNotifications(Path directory) {
+    if (directory.getFileSystem() != FileSystems.getDefault()) {
+      return false;
+    }
+    String osName = System.getProperty("os.name", "");
+    if (!osName.startsWith("Linux") && !osName.startsWith("Windows")) {
+      return false;
+    }
+    // As in FileStore.type().
+    Set<String> networkFileStoreTypes = Set.of(
+        "9p", "cifs", "drvfs", "fuse.sshfs", "nfs", "nfs4", "smb2", "smb3", "smbfs");
+    try {
+      return !networkFileStoreTypes.contains(Files.getFileStore(directory).type());
+    } catch (IOException e) {
+      // Let creating the WatchService decide.
+      return true;
+    }
+  }
+
+}
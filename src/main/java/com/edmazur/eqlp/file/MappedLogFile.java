@@ -0,0 +1,144 @@
+package com.edmazur.eqlp.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only memory mapping of a log file. The file is mapped in fixed-size
+ * segments since a single MappedByteBuffer can't address more than 2GB.
+ */
+class MappedLogFile {
+
+  private static final int SEGMENT_BITS = 30;
+  private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+  private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  private final MappedByteBuffer[] segments;
+  private final long size;
+  private final LineView lineView = new LineView();
+
+  private MappedLogFile(MappedByteBuffer[] segments, long size) {
+    this.segments = segments;
+    this.size = size;
+  }
+
+  /**
+   * Maps the current contents of a log file. Anything appended to the file
+   * afterwards is not visible through the mapping.
+   */
+  static MappedLogFile map(File log) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      int segmentCount = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+      MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+        long segmentStart = i * SEGMENT_SIZE;
+        segments[i] = channel.map(
+            MapMode.READ_ONLY,
+            segmentStart,
+            Math.min(SEGMENT_SIZE, size - segmentStart));
+      }
+      return new MappedLogFile(segments, size);
+    }
+  }
+
+  long size() {
+    return size;
+  }
+
+  byte get(long position) {
+    return segments[(int) (position >>> SEGMENT_BITS)]
+        .get((int) (position & SEGMENT_MASK));
+  }
+
+  /**
+   * Returns the start of the first line at or after position, or the size of
+   * the file if there isn't one.
+   */
+  long nextLineStart(long position) {
+    if (position <= 0) {
+      return 0;
+    }
+    // position is itself a line start if the previous byte ends a line.
+    long newline = lineEnd(position - 1);
+    return newline == size ? size : newline + 1;
+  }
+
+  /**
+   * Returns the start of the line that contains position.
+   */
+  long lineStart(long position) {
+    while (position > 0 && get(position - 1) != '\n') {
+      position--;
+    }
+    return position;
+  }
+
+  /**
+   * Returns the position of the newline ending the line that contains
+   * position, or the size of the file if the line is unterminated.
+   */
+  long lineEnd(long position) {
+    while (position < size && get(position) != '\n') {
+      position++;
+    }
+    return position;
+  }
+
+  /**
+   * Returns the line spanning [lineStart, lineEnd), minus any trailing
+   * carriage return. Bytes are decoded as Latin-1.
+   *
+   * <p>The returned view reads directly from the mapping and is only valid
+   * until the next call. Use toString() to keep a copy.
+   */
+  CharSequence getLine(long lineStart, long lineEnd) {
+    if (lineEnd > lineStart && get(lineEnd - 1) == '\r') {
+      lineEnd--;
+    }
+    lineView.start = lineStart;
+    lineView.length = (int) (lineEnd - lineStart);
+    return lineView;
+  }
+
+  private class LineView implements CharSequence {
+
+    private long start;
+    private int length;
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      return (char) (get(start + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+      byte[] bytes = new byte[length];
+      for (int i = 0; i < length; i++) {
+        bytes[i] = get(start + i);
+      }
+      return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+  }
+
+}
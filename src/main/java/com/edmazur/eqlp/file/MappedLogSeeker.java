@@ -0,0 +1,80 @@
+package com.edmazur.eqlp.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Parent class for log file search implementations that probe a memory
+ * mapping of the log file by byte offset instead of reading through it.
+ */
+public abstract class MappedLogSeeker extends LogSeeker {
+
+  public MappedLogSeeker(
+      File log,
+      Pattern timestampExtractor,
+      DateTimeFormatter timestampFormatter,
+      ZoneId timezone) {
+    super(log, timestampExtractor, timestampFormatter, timezone);
+  }
+
+  @Override
+  public long seekPosition(Instant seekStart) throws IOException {
+    MappedLogFile mappedLog = MappedLogFile.map(log);
+    if (mappedLog.size() == 0) {
+      return 0;
+    }
+    return search(mappedLog, seekStart);
+  }
+
+  /**
+   * Searches a non-empty mapped log for the offset described by
+   * seekPosition().
+   */
+  abstract long search(MappedLogFile mappedLog, Instant seekStart)
+      throws IOException;
+
+  /**
+   * Finds the first line at or after position (resyncing to the next line
+   * boundary if position is mid-line) that has a parseable timestamp. Blank
+   * and malformed lines are skipped over.
+   *
+   * @return The line, or null if the end of the file is reached first.
+   */
+  TimestampedLine findTimestampedLine(MappedLogFile mappedLog, long position) {
+    long lineStart = mappedLog.nextLineStart(position);
+    while (lineStart < mappedLog.size()) {
+      long lineEnd = mappedLog.lineEnd(lineStart);
+      Optional<Instant> maybeTimestamp =
+          getInstant(mappedLog.getLine(lineStart, lineEnd));
+      long nextLineStart = Math.min(lineEnd + 1, mappedLog.size());
+      if (maybeTimestamp.isPresent()) {
+        return new TimestampedLine(
+            lineStart, nextLineStart, maybeTimestamp.get());
+      }
+      lineStart = nextLineStart;
+    }
+    return null;
+  }
+
+  static class TimestampedLine {
+
+    // Offset of the first byte of the line.
+    final long start;
+    // Offset of the first byte of the following line (or end of file).
+    final long next;
+    final Instant timestamp;
+
+    TimestampedLine(long start, long next, Instant timestamp) {
+      this.start = start;
+      this.next = next;
+      this.timestamp = timestamp;
+    }
+
+  }
+
+}
@@ -0,0 +1,77 @@
+package com.edmazur.eqlp.file;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Waits for a log file to grow by polling its size. The interval between
+ * polls starts small and backs off while the file is idle, so bursts of
+ * activity are picked up quickly without busy-waiting in between.
+ */
+class PollingLogWatcher implements LogWatcher {
+
+  private static final Duration MIN_INTERVAL = Duration.ofMillis(1);
+  private static final Duration MAX_INTERVAL = Duration.ofMillis(100);
+
+  // Returns a value that changes whenever there is more to read.
+  private final LongSupplier sizeSupplier;
+  private long lastSize;
+  private long intervalMillis = MIN_INTERVAL.toMillis();
+
+  private PollingLogWatcher(LongSupplier sizeSupplier) {
+    this.sizeSupplier = sizeSupplier;
+    this.lastSize = sizeSupplier.getAsLong();
+  }
+
+  static PollingLogWatcher forFile(Path log) {
+    return new PollingLogWatcher(() -> getSize(log));
+  }
+
+  // Logs only ever grow (or are replaced), so their total size changes
+  // whenever any one of them is written to.
+  static PollingLogWatcher forDirectory(Path directory) {
+    return new PollingLogWatcher(() -> {
+      long totalSize = 0;
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (Path file : files) {
+          totalSize += getSize(file);
+        }
+      } catch (IOException e) {
+        return 0;
+      }
+      return totalSize;
+    });
+  }
+
+  @Override
+  public void await() throws InterruptedException {
+    while (true) {
+      long size = sizeSupplier.getAsLong();
+      if (size != lastSize) {
+        lastSize = size;
+        intervalMillis = MIN_INTERVAL.toMillis();
+        return;
+      }
+      Thread.sleep(intervalMillis);
+      intervalMillis = Math.min(intervalMillis * 2, MAX_INTERVAL.toMillis());
+    }
+  }
+
+  @Override
+  public void close() {}
+
+  // Treats a missing or unreadable file as empty, so that it's picked up once
+  // it appears.
+  private static long getSize(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+}
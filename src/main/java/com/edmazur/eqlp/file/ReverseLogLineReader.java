@@ -0,0 +1,175 @@
+package com.edmazur.eqlp.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads lines from a log file backward, newest first, starting from the end of
+ * the file as of when it's opened. The file is read in fixed-size blocks from
+ * the end with positional reads, so finding the last few lines of a large log
+ * only reads its last few blocks. Like LogLineReader, lines are returned as
+ * views over a reusable buffer with bytes decoded as Latin-1.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public class ReverseLogLineReader implements Closeable {
+
+  private static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private final int blockSize;
+  private byte[] buffer;
+  // File offset of the first byte in the buffer.
+  private long bufferOffset;
+  // Index in the buffer of the newline ending the next line to return, or -1
+  // if there are no more lines.
+  private int end;
+  // File offset of the most recently returned line.
+  private long lineStart = -1;
+  private final LineView lineView = new LineView();
+
+  public ReverseLogLineReader(File log) throws IOException {
+    this(log, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Opens a log file for reading backward from its end.
+   *
+   * @param log The log to read.
+   * @param blockSize How many bytes to read at a time. The buffer grows past
+   *     this as needed to fit longer lines.
+   */
+  public ReverseLogLineReader(File log, int blockSize) throws IOException {
+    this.channel = FileChannel.open(log.toPath(), StandardOpenOption.READ);
+    this.blockSize = blockSize;
+    this.buffer = new byte[blockSize];
+    this.bufferOffset = channel.size();
+    this.end = findLastNewline();
+  }
+
+  /**
+   * Returns the line before the one most recently returned (or the last
+   * newline-terminated line of the file, on the first call), minus the newline
+   * and any carriage return before it.
+   *
+   * <p>The returned view is only valid until the next call to this reader.
+   * Use toString() to keep a copy.
+   *
+   * @return The line, or null if the start of the file has been reached.
+   */
+  public CharSequence readLine() throws IOException {
+    if (end == -1) {
+      return null;
+    }
+    int i = end - 1;
+    while (true) {
+      for (; i >= 0; i--) {
+        if (buffer[i] == '\n') {
+          return takeLine(i + 1);
+        }
+      }
+      if (bufferOffset == 0) {
+        return takeLine(0);
+      }
+      // Only the new block needs scanning.
+      i = fill(end) - 1;
+      end += i + 1;
+    }
+  }
+
+  /**
+   * Returns the file offset of the line most recently returned by readLine().
+   */
+  public long getLineStart() {
+    return lineStart;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private CharSequence takeLine(int start) {
+    lineStart = bufferOffset + start;
+    lineView.start = start;
+    lineView.length = end - start;
+    if (end > start && buffer[end - 1] == '\r') {
+      lineView.length--;
+    }
+    // -1 at the start of the file, since there's no newline before the line.
+    end = start - 1;
+    return lineView;
+  }
+
+  // An unterminated line at the end may still be being written, so reading
+  // starts from the last newline instead. Returns -1 if there isn't one.
+  private int findLastNewline() throws IOException {
+    while (bufferOffset > 0) {
+      for (int i = fill(0) - 1; i >= 0; i--) {
+        if (buffer[i] == '\n') {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  // Reads the block before the buffer into its start, keeping the first keep
+  // bytes already in it (shifted past the new block) and discarding the rest.
+  // Returns the number of bytes read, which is also how far the kept bytes
+  // moved.
+  private int fill(int keep) throws IOException {
+    int length = (int) Math.min(blockSize, bufferOffset);
+    if (keep + length > buffer.length) {
+      byte[] grown = new byte[Math.max(buffer.length * 2, keep + length)];
+      System.arraycopy(buffer, 0, grown, length, keep);
+      buffer = grown;
+    } else {
+      System.arraycopy(buffer, 0, buffer, length, keep);
+    }
+    bufferOffset -= length;
+    ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+    while (target.hasRemaining()) {
+      if (channel.read(target, bufferOffset + target.position()) < 0) {
+        throw new IOException("Log was truncated while reading");
+      }
+    }
+    return length;
+  }
+
+  private class LineView implements CharSequence {
+
+    private int start;
+    private int length;
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      return (char) (buffer[start + index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return new String(buffer, start, length, StandardCharsets.ISO_8859_1);
+    }
+
+  }
+
+}
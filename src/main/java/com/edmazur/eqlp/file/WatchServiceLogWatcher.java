@@ -0,0 +1,86 @@
+package com.edmazur.eqlp.file;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for a log file to grow using file system change notifications on the
+ * directory containing it. Can also watch every file in the directory.
+ */
+class WatchServiceLogWatcher implements LogWatcher {
+
+  /**
+   * How long to wait for a notification where writes are reported as they
+   * happen (e.g. inotify). Only a safety net, e.g. in case the directory is
+   * replaced and its watch key goes invalid, so an idle log doesn't wake the
+   * reader.
+   */
+  static final Duration PROMPT_MAX_WAIT = Duration.ofMinutes(1);
+
+  /**
+   * How long to wait for a notification on platforms that are lazy about
+   * reporting writes to files that another process holds open (e.g. Windows
+   * only updates the size when the writer flushes metadata). Keeps the worst
+   * case no worse than plain polling.
+   */
+  static final Duration LAZY_MAX_WAIT = Duration.ofMillis(100);
+
+  private final WatchService watchService;
+  // Null to watch every file in the directory.
+  private final Path fileName;
+  private final Duration maxWait;
+
+  WatchServiceLogWatcher(
+      WatchService watchService, Path directory, Path fileName, Duration maxWait)
+      throws IOException {
+    this.watchService = watchService;
+    this.fileName = fileName;
+    this.maxWait = maxWait;
+    directory.register(
+        watchService,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+  }
+
+  @Override
+  public void await() throws InterruptedException {
+    long deadline = System.nanoTime() + maxWait.toNanos();
+    while (true) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return;
+      }
+      WatchKey watchKey = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+      if (watchKey == null) {
+        return;
+      }
+      // Other characters' logs live in the same directory, so ignore events
+      // for them if only watching one file.
+      boolean changed = false;
+      for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+        if (fileName == null
+            || watchEvent.kind() == StandardWatchEventKinds.OVERFLOW
+            || fileName.equals(watchEvent.context())) {
+          changed = true;
+        }
+      }
+      // An invalid key won't be signalled again, so let the caller check the
+      // log itself.
+      if (!watchKey.reset() || changed) {
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+
+}
@@ -0,0 +1,166 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.edmazur.eqlp.AsyncEqLogListener.OverflowPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class AsyncEqLogListenerTest {
+
+  @Test
+  void deliversInOrder() {
+    List<String> payloads = Collections.synchronizedList(new ArrayList<String>());
+    AsyncEqLogListener listener = new AsyncEqLogListener(
+        eqLogEvent -> payloads.add(eqLogEvent.getPayload()),
+        4,
+        OverflowPolicy.BLOCK);
+    for (int i = 0; i < 100; i++) {
+      listener.onEvent(getEvent("line " + i));
+    }
+    listener.close();
+    assertEquals(100, payloads.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals("line " + i, payloads.get(i));
+    }
+    assertEquals(0, listener.getDroppedCount());
+  }
+
+  @Test
+  void dropNewest() throws InterruptedException {
+    BlockedListener blockedListener = new BlockedListener();
+    AsyncEqLogListener listener =
+        new AsyncEqLogListener(blockedListener, 2, OverflowPolicy.DROP_NEWEST);
+    listener.onEvent(getEvent("line 0"));
+    // Wait for the listener thread to take the first event and block on it.
+    blockedListener.started.await();
+    for (int i = 1; i <= 4; i++) {
+      listener.onEvent(getEvent("line " + i));
+    }
+    assertEquals(2, listener.getQueueDepth());
+    blockedListener.unblock.countDown();
+    listener.close();
+    assertEquals(List.of("line 0", "line 1", "line 2"), blockedListener.payloads);
+    assertEquals(2, listener.getDroppedCount());
+    assertEquals(2, listener.getMaxQueueDepth());
+  }
+
+  @Test
+  void dropOldest() throws InterruptedException {
+    BlockedListener blockedListener = new BlockedListener();
+    AsyncEqLogListener listener =
+        new AsyncEqLogListener(blockedListener, 2, OverflowPolicy.DROP_OLDEST);
+    listener.onEvent(getEvent("line 0"));
+    blockedListener.started.await();
+    for (int i = 1; i <= 4; i++) {
+      listener.onEvent(getEvent("line " + i));
+    }
+    blockedListener.unblock.countDown();
+    listener.close();
+    assertEquals(List.of("line 0", "line 3", "line 4"), blockedListener.payloads);
+    assertEquals(2, listener.getDroppedCount());
+  }
+
+  @Test
+  void survivesListenerExceptions() {
+    List<String> payloads = Collections.synchronizedList(new ArrayList<String>());
+    AsyncEqLogListener listener = new AsyncEqLogListener(
+        eqLogEvent -> {
+          if (eqLogEvent.getPayload().equals("bad")) {
+            throw new IllegalStateException("expected by test");
+          }
+          payloads.add(eqLogEvent.getPayload());
+        },
+        4,
+        OverflowPolicy.BLOCK);
+    listener.onEvent(getEvent("bad"));
+    listener.onEvent(getEvent("good"));
+    listener.close();
+    assertEquals(List.of("good"), payloads);
+  }
+
+  @Test
+  void blockFailsFastWhenListenerThreadDies() {
+    AsyncEqLogListener listener = new AsyncEqLogListener(
+        eqLogEvent -> {
+          throw new AssertionError("expected by test");
+        },
+        1,
+        OverflowPolicy.BLOCK,
+        runnable -> {
+          Thread thread = new Thread(runnable);
+          thread.setDaemon(true);
+          thread.setUncaughtExceptionHandler((t, e) -> {
+            // Expected, and checked below.
+          });
+          return thread;
+        });
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+      for (int i = 0; i < 3; i++) {
+        listener.onEvent(getEvent("line " + i));
+      }
+    });
+    assertTrue(e.getCause() instanceof AssertionError);
+  }
+
+  @Test
+  void blockedEventIsRejectedOnClose() throws InterruptedException {
+    BlockedListener blockedListener = new BlockedListener();
+    AsyncEqLogListener listener =
+        new AsyncEqLogListener(blockedListener, 1, OverflowPolicy.BLOCK);
+    listener.onEvent(getEvent("line 0"));
+    blockedListener.started.await();
+    listener.onEvent(getEvent("line 1"));
+    AtomicReference<RuntimeException> thrown = new AtomicReference<RuntimeException>();
+    Thread producer = new Thread(() -> {
+      try {
+        listener.onEvent(getEvent("line 2"));
+      } catch (RuntimeException e) {
+        thrown.set(e);
+      }
+    });
+    producer.start();
+    while (producer.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    Thread closer = new Thread(listener::close);
+    closer.start();
+    producer.join();
+    blockedListener.unblock.countDown();
+    closer.join();
+    assertTrue(thrown.get() instanceof IllegalStateException);
+    assertEquals(List.of("line 0", "line 1"), blockedListener.payloads);
+  }
+
+  private EqLogEvent getEvent(String payload) {
+    return EqLogEvent.parseFromLine("[Fri Oct 25 18:58:06 2019] " + payload).get();
+  }
+
+  // Blocks on the first event until unblocked.
+  private static class BlockedListener implements EqLogListener {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private final List<String> payloads =
+        Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    public void onEvent(EqLogEvent eqLogEvent) {
+      started.countDown();
+      try {
+        unblock.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      payloads.add(eqLogEvent.getPayload());
+    }
+
+  }
+
+}
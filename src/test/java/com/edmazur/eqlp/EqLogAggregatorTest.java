@@ -0,0 +1,142 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EqLogAggregatorTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2019, 10, 25, 18, 0);
+
+  private final List<String> windows = new ArrayList<String>();
+
+  @Test
+  void tumbling() {
+    EqLogAggregator<String> aggregator = EqLogAggregator.tumbling(
+        Duration.ofSeconds(6), EqLogAggregatorTest::getAttacker,
+        EqLogAggregatorTest::getDamage, this::record);
+    aggregator.onEvent(event(0, "Stanvern hits a gnoll for 10 points of damage."));
+    aggregator.onEvent(event(1, "Daox hits a gnoll for 4 points of damage."));
+    aggregator.onEvent(event(5, "Stanvern hits a gnoll for 20 points of damage."));
+    aggregator.onEvent(event(5, "Daox says, 'inc'"));
+    assertEquals(List.of(), windows);
+    aggregator.onEvent(event(6, "Stanvern hits a gnoll for 1 point of damage."));
+    windows.sort(null);
+    assertEquals(
+        List.of(
+            "18:00-18:00:06 Daox count=1 sum=4 min=4 max=4",
+            "18:00-18:00:06 Stanvern count=2 sum=30 min=10 max=20"),
+        windows);
+    windows.clear();
+    // Skips a window without events.
+    aggregator.onEvent(event(20, "Daox hits a gnoll for 2 points of damage."));
+    aggregator.flush();
+    assertEquals(
+        List.of(
+            "18:00:06-18:00:12 Stanvern count=1 sum=1 min=1 max=1",
+            "18:00:18-18:00:24 Daox count=1 sum=2 min=2 max=2"),
+        windows);
+  }
+
+  @Test
+  void lateEventsAreDropped() {
+    EqLogAggregator<String> aggregator = EqLogAggregator.tumbling(
+        Duration.ofSeconds(6), eqLogEvent -> "all", eqLogEvent -> 1, this::record);
+    aggregator.onEvent(event(7, "a"));
+    aggregator.onEvent(event(5, "late"));
+    aggregator.onEvent(event(6, "out of order but on time"));
+    aggregator.flush();
+    assertEquals(1, aggregator.getLateEventCount());
+    assertEquals(List.of("18:00:06-18:00:12 all count=2 sum=2 min=1 max=1"), windows);
+  }
+
+  @Test
+  void sliding() {
+    EqLogAggregator<String> aggregator = EqLogAggregator.sliding(
+        Duration.ofMinutes(1), Duration.ofSeconds(30), eqLogEvent -> "all",
+        eqLogEvent -> 1, this::record);
+    aggregator.onEvent(event(10, "a"));
+    aggregator.onEvent(event(40, "b"));
+    aggregator.onEvent(event(70, "c"));
+    aggregator.flush();
+    assertEquals(
+        List.of(
+            "17:59:30-18:00:30 all count=1 sum=1 min=1 max=1",
+            "18:00-18:01 all count=2 sum=2 min=1 max=1",
+            "18:00:30-18:01:30 all count=2 sum=2 min=1 max=1",
+            "18:01-18:02 all count=1 sum=1 min=1 max=1"),
+        windows);
+  }
+
+  @Test
+  void session() {
+    EqLogAggregator<String> aggregator = EqLogAggregator.session(
+        Duration.ofSeconds(10), EqLogAggregatorTest::getAttacker,
+        EqLogAggregatorTest::getDamage, this::record);
+    aggregator.onEvent(event(0, "Stanvern hits a gnoll for 10 points of damage."));
+    aggregator.onEvent(event(5, "Daox hits a gnoll for 4 points of damage."));
+    aggregator.onEvent(event(9, "Stanvern hits a gnoll for 20 points of damage."));
+    aggregator.onEvent(event(18, "Stanvern hits a gnoll for 5 points of damage."));
+    // Daox's session has ended, but Stanvern's is still going.
+    assertEquals(List.of("18:00:05-18:00:06 Daox count=1 sum=4 min=4 max=4"), windows);
+    windows.clear();
+    aggregator.onEvent(event(30, "Daox hits a gnoll for 3 points of damage."));
+    assertEquals(
+        List.of("18:00-18:00:19 Stanvern count=3 sum=35 min=5 max=20"), windows);
+    windows.clear();
+    aggregator.flush();
+    assertEquals(List.of("18:00:30-18:00:31 Daox count=1 sum=3 min=3 max=3"), windows);
+  }
+
+  @Test
+  void manyKeys() {
+    EqLogAggregator<String> aggregator = EqLogAggregator.tumbling(
+        Duration.ofHours(1), eqLogEvent -> eqLogEvent.getPayload(), eqLogEvent -> 1,
+        (start, end, key, aggregate) -> windows.add(key + "=" + aggregate.getCount()));
+    for (int second = 0; second < 7200; second++) {
+      aggregator.onEvent(event(second, "key" + second % 1000));
+    }
+    aggregator.flush();
+    assertEquals(2000, windows.size());
+    assertEquals(2, windows.stream().filter(window -> window.equals("key0=4")).count());
+  }
+
+  @Test
+  void invalidDurations() {
+    assertThrows(IllegalArgumentException.class, () -> EqLogAggregator.tumbling(
+        Duration.ZERO, eqLogEvent -> "", eqLogEvent -> 1, this::record));
+    assertThrows(IllegalArgumentException.class, () -> EqLogAggregator.tumbling(
+        Duration.ofMillis(1500), eqLogEvent -> "", eqLogEvent -> 1, this::record));
+    assertThrows(IllegalArgumentException.class, () -> EqLogAggregator.sliding(
+        Duration.ofSeconds(1), Duration.ofSeconds(2), eqLogEvent -> "", eqLogEvent -> 1,
+        this::record));
+  }
+
+  private void record(
+      LocalDateTime start, LocalDateTime end, String key, EqLogAggregator.Aggregate aggregate) {
+    windows.add(start.toLocalTime() + "-" + end.toLocalTime() + " " + key + " " + aggregate);
+  }
+
+  private static String getAttacker(EqLogEvent eqLogEvent) {
+    return eqLogEvent.getType() == EqLogEventType.MELEE_HIT
+        ? eqLogEvent.classify().getActor()
+        : null;
+  }
+
+  private static long getDamage(EqLogEvent eqLogEvent) {
+    EqLogEventClassification classification = eqLogEvent.classify();
+    return classification.getAmount();
+  }
+
+  private static EqLogEvent event(int second, String payload) {
+    return EqLogEvent.parseFromLine(
+        "[" + EqLogEvent.TIMESTAMP_FORMAT.format(START.plusSeconds(second)) + "] " + payload)
+        .get();
+  }
+
+}
@@ -0,0 +1,166 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EqLogArchiveTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2019, 10, 25, 18, 58, 6);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void extractRoundTrips() throws IOException {
+    Path log = writeRandomLog();
+    for (int blockSize : new int[] {1, 100, 4096, 1 << 20}) {
+      Path archive = directory.resolve("archive");
+      EqLogArchive.create(log, archive, blockSize);
+      Path extracted = directory.resolve("extracted");
+      try (EqLogArchive eqLogArchive = EqLogArchive.open(archive)) {
+        eqLogArchive.extract(extracted);
+      }
+      assertArrayEquals(
+          Files.readAllBytes(log), Files.readAllBytes(extracted), "blockSize=" + blockSize);
+    }
+  }
+
+  @Test
+  void replayMatchesSequentialParse() throws IOException {
+    Path log = writeRandomLog();
+    Path archive = directory.resolve("archive");
+    EqLogArchive.create(log, archive, 4096);
+    List<String> expected = parseSequentially(log, LocalDateTime.MIN, LocalDateTime.MAX);
+    assertEquals(expected, replay(archive, LocalDateTime.MIN, LocalDateTime.MAX));
+  }
+
+  @Test
+  void replaysRangeFromFewBlocks() throws IOException {
+    Path log = writeRandomLog();
+    Path archive = directory.resolve("archive");
+    EqLogArchive.create(log, archive, 4096);
+    LocalDateTime start = START.plusMinutes(10);
+    LocalDateTime end = START.plusMinutes(15);
+    List<String> expected = parseSequentially(log, start, end);
+    assertTrue(expected.size() > 0);
+
+    List<String> lines = new ArrayList<String>();
+    try (EqLogArchive eqLogArchive = EqLogArchive.open(archive)) {
+      assertTrue(eqLogArchive.getBlockCount() > 10);
+      eqLogArchive.replay(start, end, eqLogEvent -> lines.add(eqLogEvent.getFullLine()));
+      assertTrue(eqLogArchive.getBytesRead() < Files.size(archive) / 2);
+    }
+    assertEquals(expected, lines);
+  }
+
+  @Test
+  void emptyLog() throws IOException {
+    Path log = directory.resolve("log");
+    Files.writeString(log, "");
+    Path archive = directory.resolve("archive");
+    EqLogArchive.create(log, archive);
+    try (EqLogArchive eqLogArchive = EqLogArchive.open(archive)) {
+      assertEquals(0, eqLogArchive.getBlockCount());
+    }
+    assertEquals(List.of(), replay(archive, LocalDateTime.MIN, LocalDateTime.MAX));
+  }
+
+  @Test
+  void notAnArchive() throws IOException {
+    Path log = writeRandomLog();
+    assertThrows(IOException.class, () -> EqLogArchive.open(log));
+  }
+
+  @Test
+  void eqLogReplaysArchive() throws IOException {
+    Path log = writeRandomLog();
+    Path archive = directory.resolve("archive");
+    EqLogArchive.create(log, archive, 4096);
+    LocalDateTime start = START.plusMinutes(10);
+    LocalDateTime end = START.plusMinutes(15);
+    EqLog eqLog = new EqLog(
+        directory,
+        ZoneOffset.UTC,
+        "green",
+        "Stanvern",
+        start.toInstant(ZoneOffset.UTC),
+        end.toInstant(ZoneOffset.UTC));
+    List<String> lines = new ArrayList<String>();
+    eqLog.addListener(eqLogEvent -> {
+      assertEquals(new EqLogSource("green", "Stanvern"), eqLogEvent.getSource().get());
+      lines.add(eqLogEvent.getFullLine());
+    });
+    eqLog.replayArchive(archive);
+    assertEquals(parseSequentially(log, start, end), lines);
+  }
+
+  private Path writeRandomLog() throws IOException {
+    Random random = new Random(0);
+    LocalDateTime timestamp = START;
+    StringBuilder contents = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      String newline = random.nextBoolean() ? "\n" : "\r\n";
+      switch (random.nextInt(10)) {
+        case 0:
+          contents.append(newline);
+          break;
+        case 1:
+          contents.append("[Fri Oct 2").append(newline);
+          break;
+        default:
+          timestamp = timestamp.plusSeconds(random.nextInt(3));
+          contents
+              .append('[')
+              .append(EqLogEvent.TIMESTAMP_FORMAT.format(timestamp))
+              .append("] line ")
+              .append(i)
+              .append("x".repeat(random.nextInt(random.nextInt(100) == 0 ? 10000 : 100)))
+              .append(newline);
+      }
+    }
+    // Leave the last line unterminated.
+    contents.append("[Sat Oct 26 23:59:59 2019] last line");
+    Path log = directory.resolve("eqlog_Stanvern_P1999Green.txt");
+    Files.writeString(log, contents);
+    return log;
+  }
+
+  private List<String> parseSequentially(Path log, LocalDateTime start, LocalDateTime end)
+      throws IOException {
+    List<String> lines = new ArrayList<String>();
+    for (String line : Files.readAllLines(log)) {
+      Optional<EqLogEvent> maybeEqLogEvent = EqLogEvent.parseFromLine(line);
+      if (maybeEqLogEvent.isPresent()) {
+        LocalDateTime timestamp = maybeEqLogEvent.get().getTimestamp();
+        if (!timestamp.isBefore(start) && !timestamp.isAfter(end)) {
+          lines.add(maybeEqLogEvent.get().getFullLine());
+        }
+      }
+    }
+    return lines;
+  }
+
+  private List<String> replay(Path archive, LocalDateTime start, LocalDateTime end)
+      throws IOException {
+    List<String> lines = new ArrayList<String>();
+    try (EqLogArchive eqLogArchive = EqLogArchive.open(archive)) {
+      eqLogArchive.replay(start, end, eqLogEvent -> lines.add(eqLogEvent.getFullLine()));
+    }
+    return lines;
+  }
+
+}
@@ -0,0 +1,184 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EqLogCheckpointTest {
+
+  private static final ZoneId TIMEZONE = ZoneId.of("America/New_York");
+
+  @TempDir
+  Path eqInstallDirectory;
+
+  private Path log;
+  private Path checkpoint;
+
+  @BeforeEach
+  void writeLog() throws IOException {
+    Files.createDirectories(eqInstallDirectory.resolve("Logs"));
+    log = eqInstallDirectory.resolve("Logs").resolve("eqlog_Stanvern_P1999Green.txt");
+    checkpoint = eqInstallDirectory.resolve("checkpoint");
+    Files.writeString(
+        log,
+        "[Fri Oct 25 18:58:06 2019] line 1\n"
+            + "[Fri Oct 25 18:58:07 2019] line 2\n"
+            + "[Fri Oct 25 18:58:07 2019] line 3\n"
+            + "[Fri Oct 25 18:58:08 2019] line 4\n");
+  }
+
+  @Test
+  void resumesFromCheckpoint() throws IOException {
+    assertEquals(
+        List.of("line 1", "line 2", "line 3"),
+        run(Instant.MIN, getInstant(2019, 10, 25, 18, 58, 7)));
+    Files.writeString(
+        log,
+        "[Fri Oct 25 18:58:09 2019] line 5\n"
+            + "[Fri Oct 25 18:59:00 2019] line 6\n",
+        StandardOpenOption.APPEND);
+    // parseStart is ignored in favor of the checkpoint.
+    assertEquals(
+        List.of("line 4", "line 5"),
+        run(getInstant(2019, 10, 25, 18, 58, 9), getInstant(2019, 10, 25, 18, 58, 30)));
+  }
+
+  @Test
+  void checkpointsEveryIntervalWhileRunning() throws IOException {
+    Files.writeString(
+        log, "[Fri Oct 25 18:59:00 2019] line 5\n", StandardOpenOption.APPEND);
+    EqLog eqLog = new EqLog(
+        eqInstallDirectory,
+        TIMEZONE,
+        "green",
+        "Stanvern",
+        Instant.MIN,
+        getInstant(2019, 10, 25, 18, 58, 30));
+    eqLog.setCheckpoint(checkpoint, Duration.ZERO);
+    List<Long> checkpointSizes = new ArrayList<Long>();
+    eqLog.addListener(eqLogEvent -> checkpointSizes.add(checkpoint.toFile().length()));
+    eqLog.run();
+    // Nothing's saved before the first event, and a save is written before
+    // reading each later line.
+    assertEquals(0, checkpointSizes.get(0).longValue());
+    assertTrue(checkpointSizes.get(1) > 0);
+  }
+
+  @Test
+  void stopSavesCheckpoint() throws IOException {
+    EqLog eqLog = new EqLog(
+        eqInstallDirectory, TIMEZONE, "green", "Stanvern", Instant.MIN, Instant.MAX);
+    eqLog.setCheckpoint(checkpoint, Duration.ofHours(1));
+    List<String> payloads = new ArrayList<String>();
+    eqLog.addListener(eqLogEvent -> {
+      payloads.add(eqLogEvent.getPayload());
+      if (payloads.size() == 2) {
+        eqLog.stop();
+      }
+    });
+    eqLog.run();
+    assertEquals(List.of("line 1", "line 2"), payloads);
+    Files.writeString(
+        log, "[Fri Oct 25 18:59:00 2019] line 5\n", StandardOpenOption.APPEND);
+    assertEquals(
+        List.of("line 3", "line 4"),
+        run(Instant.MIN, getInstant(2019, 10, 25, 18, 58, 30)));
+  }
+
+  @Test
+  void stopWakesTailingRun() throws Exception {
+    EqLog eqLog = new EqLog(
+        eqInstallDirectory, TIMEZONE, "green", "Stanvern", Instant.MIN, Instant.MAX);
+    eqLog.setCheckpoint(checkpoint, Duration.ofHours(1));
+    CountDownLatch caughtUp = new CountDownLatch(4);
+    eqLog.addListener(eqLogEvent -> caughtUp.countDown());
+    Thread thread = new Thread(eqLog);
+    // So a regression fails the test rather than hanging the JVM.
+    thread.setDaemon(true);
+    thread.start();
+    assertTrue(caughtUp.await(5, TimeUnit.SECONDS));
+    eqLog.stop();
+    thread.join(5_000);
+    assertFalse(thread.isAlive());
+
+    Files.writeString(
+        log,
+        "[Fri Oct 25 18:58:09 2019] line 5\n"
+            + "[Fri Oct 25 18:59:00 2019] line 6\n",
+        StandardOpenOption.APPEND);
+    assertEquals(List.of("line 5"), run(Instant.MIN, getInstant(2019, 10, 25, 18, 58, 30)));
+  }
+
+  @Test
+  void ignoresCheckpointForReplacedLog() throws IOException {
+    run(Instant.MIN, getInstant(2019, 10, 25, 18, 58, 7));
+    Files.writeString(
+        log,
+        "[Sat Oct 26 18:58:06 2019] new line 1\n"
+            + "[Sat Oct 26 18:59:00 2019] new line 2\n");
+    assertEquals(
+        List.of("new line 1"),
+        run(Instant.MIN, getInstant(2019, 10, 26, 18, 58, 30)));
+  }
+
+  @Test
+  void ignoresCheckpointWithCorruptTimestamp() throws IOException {
+    // Sets the high bits of the timestamp's seconds, which come after the
+    // header and position, putting it past Instant.MAX.
+    assertIgnoresCorruptCheckpoint(4 + 4 + 8, Integer.MAX_VALUE);
+  }
+
+  @Test
+  void ignoresCheckpointWithCorruptFingerprint() throws IOException {
+    // The fingerprint's length comes after the timestamp.
+    assertIgnoresCorruptCheckpoint(4 + 4 + 8 + 8 + 4, Integer.MAX_VALUE);
+  }
+
+  // Overwrites the int at offset in a saved checkpoint with value, and checks
+  // that the next run starts over.
+  private void assertIgnoresCorruptCheckpoint(long offset, int value) throws IOException {
+    run(Instant.MIN, getInstant(2019, 10, 25, 18, 58, 7));
+    try (RandomAccessFile file = new RandomAccessFile(checkpoint.toFile(), "rw")) {
+      file.seek(offset);
+      file.writeInt(value);
+    }
+    assertEquals(
+        List.of("line 1", "line 2", "line 3"),
+        run(Instant.MIN, getInstant(2019, 10, 25, 18, 58, 7)));
+  }
+
+  private List<String> run(Instant parseStart, Instant parseEnd) {
+    EqLog eqLog = new EqLog(
+        eqInstallDirectory, TIMEZONE, "green", "Stanvern", parseStart, parseEnd);
+    eqLog.setCheckpoint(checkpoint, Duration.ofHours(1));
+    List<String> payloads = new ArrayList<String>();
+    eqLog.addListener(eqLogEvent -> payloads.add(eqLogEvent.getPayload()));
+    eqLog.run();
+    return payloads;
+  }
+
+  private Instant getInstant(
+      int year, int month, int dayOfMonth, int hour, int minute, int second) {
+    return LocalDateTime.of(year, month, dayOfMonth, hour, minute, second)
+        .atZone(TIMEZONE)
+        .toInstant();
+  }
+
+}
@@ -0,0 +1,140 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EqLogDirectoryTest {
+
+  private static final ZoneId TIMEZONE = ZoneId.of("America/New_York");
+
+  @TempDir
+  Path eqInstallDirectory;
+
+  @BeforeEach
+  void writeLogs() throws IOException {
+    Path logsDirectory = eqInstallDirectory.resolve("Logs");
+    Files.createDirectories(logsDirectory);
+    // Every log ends with a line past parseEnd so that run() returns.
+    Files.writeString(
+        logsDirectory.resolve("eqlog_Stanvern_P1999Green.txt"),
+        "[Fri Oct 25 18:58:06 2019] Stanvern line 1\r\n"
+            + "[Fri Oct 25 18:58:08 2019] Stanvern line 2\r\n"
+            + "[Fri Oct 25 19:00:00 2019] Stanvern line 3\r\n");
+    Files.writeString(
+        logsDirectory.resolve("eqlog_Daox_project1999.txt"),
+        "[Fri Oct 25 18:58:07 2019] Daox line 1\n"
+            + "\n"
+            + "[Fri Oct 25 19:00:00 2019] Daox line 2\n");
+    Files.writeString(logsDirectory.resolve("eqlog_Unknown_SomeServer.txt"), "");
+    Files.writeString(logsDirectory.resolve("dbg.txt"), "");
+  }
+
+  @Test
+  void readsEveryLog() {
+    EqLogDirectory eqLogDirectory = new EqLogDirectory(
+        eqInstallDirectory,
+        TIMEZONE,
+        Instant.MIN,
+        getInstant(2019, 10, 25, 18, 59, 0));
+    List<String> events = new ArrayList<String>();
+    eqLogDirectory.addListener(eqLogEvent -> events.add(format(eqLogEvent)));
+    eqLogDirectory.run();
+    events.sort(null);
+    assertEquals(
+        List.of(
+            "Daox (blue): Daox line 1",
+            "Stanvern (green): Stanvern line 1",
+            "Stanvern (green): Stanvern line 2"),
+        events);
+  }
+
+  @Test
+  void readsFilteredLogsFromParseStart() {
+    EqLogDirectory eqLogDirectory = new EqLogDirectory(
+        eqInstallDirectory,
+        TIMEZONE,
+        source -> source.equals(new EqLogSource("green", "Stanvern")),
+        getInstant(2019, 10, 25, 18, 58, 7),
+        getInstant(2019, 10, 25, 18, 59, 0));
+    List<String> events = new ArrayList<String>();
+    eqLogDirectory.addListener(eqLogEvent -> events.add(format(eqLogEvent)));
+    eqLogDirectory.run();
+    assertEquals(List.of("Stanvern (green): Stanvern line 2"), events);
+  }
+
+  @Test
+  void backlogInOneLogDoesNotHoldUpOthers() throws IOException {
+    writeBacklog("eqlog_Stanvern_P1999Green.txt", "Stanvern");
+    writeBacklog("eqlog_Daox_project1999.txt", "Daox");
+    EqLogDirectory eqLogDirectory = new EqLogDirectory(
+        eqInstallDirectory,
+        TIMEZONE,
+        Instant.MIN,
+        getInstant(2019, 10, 25, 18, 59, 0));
+    List<String> events = new ArrayList<String>();
+    eqLogDirectory.addListener(eqLogEvent -> events.add(format(eqLogEvent)));
+    eqLogDirectory.run();
+    assertEquals(20_000, events.size());
+    // Whichever log is read first, the other is read from long before the
+    // first is done.
+    List<String> firstEvents = events.subList(0, 5_000);
+    assertTrue(firstEvents.contains("Stanvern (green): Stanvern backlog"));
+    assertTrue(firstEvents.contains("Daox (blue): Daox backlog"));
+  }
+
+  @Test
+  void stopsWhenInterrupted() throws InterruptedException {
+    EqLogDirectory eqLogDirectory = new EqLogDirectory(
+        eqInstallDirectory,
+        TIMEZONE,
+        Instant.MIN,
+        Instant.MAX);
+    CountDownLatch caughtUp = new CountDownLatch(4);
+    eqLogDirectory.addListener(eqLogEvent -> caughtUp.countDown());
+    Thread thread = new Thread(eqLogDirectory);
+    // So a regression fails the test rather than hanging the JVM.
+    thread.setDaemon(true);
+    thread.start();
+    assertTrue(caughtUp.await(5, TimeUnit.SECONDS));
+    thread.interrupt();
+    thread.join(5_000);
+    assertFalse(thread.isAlive());
+  }
+
+  // Replaces a log with many lines to read, followed by one past parseEnd.
+  private void writeBacklog(String logFileName, String character) throws IOException {
+    StringBuilder backlog = new StringBuilder();
+    for (int i = 0; i < 10_000; i++) {
+      backlog.append("[Fri Oct 25 18:58:06 2019] " + character + " backlog\n");
+    }
+    backlog.append("[Fri Oct 25 19:00:00 2019] " + character + " done\n");
+    Files.writeString(eqInstallDirectory.resolve("Logs").resolve(logFileName), backlog);
+  }
+
+  private String format(EqLogEvent eqLogEvent) {
+    return eqLogEvent.getSource().get() + ": " + eqLogEvent.getPayload();
+  }
+
+  private Instant getInstant(
+      int year, int month, int day, int hour, int minute, int second) {
+    return LocalDateTime.of(year, month, day, hour, minute, second)
+        .atZone(TIMEZONE)
+        .toInstant();
+  }
+
+}
@@ -0,0 +1,134 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EqLogDispatcherTest {
+
+  @Test
+  void unfilteredGetsEverything() {
+    EqLogDispatcher dispatcher = new EqLogDispatcher();
+    List<String> payloads = new ArrayList<String>();
+    dispatcher.addListener(eqLogEvent -> payloads.add(eqLogEvent.getPayload()));
+    dispatcher.dispatch(getEvent("You have entered Plane of Sky."));
+    dispatcher.dispatch(getEvent("Stanvern tells you, 'hi'"));
+    assertEquals(
+        List.of("You have entered Plane of Sky.", "Stanvern tells you, 'hi'"),
+        payloads);
+  }
+
+  @Test
+  void prefixOnlyMatchesAtStart() {
+    assertMatches(EqLogFilter.prefix("You have"), "You have entered Sky.", true);
+    assertMatches(EqLogFilter.prefix("You have"), "You hav", false);
+    assertMatches(EqLogFilter.prefix("You have"), "Yes. You have", false);
+    assertMatches(EqLogFilter.prefix(""), "anything", true);
+  }
+
+  @Test
+  void containsMatchesAnywhere() {
+    assertMatches(EqLogFilter.contains("tells you"), "Bob tells you, 'hi'", true);
+    assertMatches(EqLogFilter.contains("tells you"), "tells you", true);
+    assertMatches(EqLogFilter.contains("tells you"), "You tell Bob, 'hi'", false);
+  }
+
+  @Test
+  void regexFindsAnywhere() {
+    assertMatches(EqLogFilter.regex("\\d+ points"), "for 12 points of damage", true);
+    assertMatches(EqLogFilter.regex("^\\d+ points"), "for 12 points", false);
+  }
+
+  @Test
+  void nonAscii() {
+    assertMatches(EqLogFilter.contains("Fippy \u00e9"), "Fippy \u00e9 says", true);
+    assertMatches(EqLogFilter.contains("\u00e9 says"), "Fippy \u00e9 says", true);
+    assertMatches(EqLogFilter.contains("says"), "Fippy \u00e9 says", true);
+    assertMatches(EqLogFilter.contains("y \u00e9"), "Fippy e says", false);
+  }
+
+  @Test
+  void routesToMatchingListenersInOrder() {
+    EqLogDispatcher dispatcher = new EqLogDispatcher();
+    List<String> calls = new ArrayList<String>();
+    dispatcher.addListener(
+        eqLogEvent -> calls.add("tells " + eqLogEvent.getPayload()),
+        EqLogFilter.contains(" tells you, '"));
+    dispatcher.addListener(eqLogEvent -> calls.add("all " + eqLogEvent.getPayload()));
+    dispatcher.addListener(
+        eqLogEvent -> calls.add("zone or loot " + eqLogEvent.getPayload()),
+        EqLogFilter.prefix("You have entered "),
+        EqLogFilter.regex("^--You have looted .*--$"),
+        // Matching more than one filter still only calls the listener once.
+        EqLogFilter.contains("entered"));
+    dispatcher.dispatch(getEvent("You have entered Plane of Sky."));
+    dispatcher.dispatch(getEvent("Bob tells you, 'hi'"));
+    dispatcher.dispatch(getEvent("--You have looted a Bone Chip.--"));
+    assertEquals(
+        List.of(
+            "all You have entered Plane of Sky.",
+            "zone or loot You have entered Plane of Sky.",
+            "tells Bob tells you, 'hi'",
+            "all Bob tells you, 'hi'",
+            "all --You have looted a Bone Chip.--",
+            "zone or loot --You have looted a Bone Chip.--"),
+        calls);
+  }
+
+  @Test
+  void matchesFiltersEvaluatedIndividually() {
+    // Small alphabet so that literals overlap and share prefixes and suffixes.
+    Random random = new Random(0);
+    for (int round = 0; round < 200; round++) {
+      List<EqLogFilter> filters = new ArrayList<EqLogFilter>();
+      EqLogDispatcher dispatcher = new EqLogDispatcher();
+      List<Integer> calls = new ArrayList<Integer>();
+      int listenerCount = 1 + random.nextInt(8);
+      for (int listener = 0; listener < listenerCount; listener++) {
+        String literal = randomString(random, random.nextInt(5));
+        EqLogFilter filter = random.nextBoolean()
+            ? EqLogFilter.prefix(literal) : EqLogFilter.contains(literal);
+        filters.add(filter);
+        int id = listener;
+        dispatcher.addListener(eqLogEvent -> calls.add(id), filter);
+      }
+      for (int event = 0; event < 20; event++) {
+        String payload = randomString(random, 1 + random.nextInt(12));
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int listener = 0; listener < listenerCount; listener++) {
+          if (filters.get(listener).matches(payload)) {
+            expected.add(listener);
+          }
+        }
+        calls.clear();
+        dispatcher.dispatch(getEvent(payload));
+        assertEquals(expected, calls, filters + " on " + payload);
+      }
+    }
+  }
+
+  private void assertMatches(EqLogFilter filter, String payload, boolean expected) {
+    assertEquals(expected, filter.matches(payload));
+    EqLogDispatcher dispatcher = new EqLogDispatcher();
+    List<String> payloads = new ArrayList<String>();
+    dispatcher.addListener(eqLogEvent -> payloads.add(eqLogEvent.getPayload()), filter);
+    dispatcher.dispatch(getEvent(payload));
+    assertEquals(expected ? List.of(payload) : List.of(), payloads);
+  }
+
+  private static String randomString(Random random, int length) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      sb.append("ab\u00e9".charAt(random.nextInt(3)));
+    }
+    return sb.toString();
+  }
+
+  private EqLogEvent getEvent(String payload) {
+    return EqLogEvent.parseFromLine("[Fri Oct 25 18:58:06 2019] " + payload).get();
+  }
+
+}
@@ -0,0 +1,172 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class EqLogEventClassifierTest {
+
+  @Test
+  void chat() {
+    assertClassified("Stanvern tells you, 'hi'",
+        EqLogEventType.TELL, "Stanvern", "You", EqLogEventClassification.NO_AMOUNT, "hi");
+    assertClassified("You told Stanvern, 'hi back'",
+        EqLogEventType.TELL, "You", "Stanvern", EqLogEventClassification.NO_AMOUNT,
+        "hi back");
+    assertClassified("Stanvern says, 'inc'",
+        EqLogEventType.SAY, "Stanvern", null, EqLogEventClassification.NO_AMOUNT, "inc");
+    assertClassified("You say, 'inc'",
+        EqLogEventType.SAY, "You", null, EqLogEventClassification.NO_AMOUNT, "inc");
+    assertClassified("Stanvern says out of character, 'lfg'",
+        EqLogEventType.OOC, "Stanvern", null, EqLogEventClassification.NO_AMOUNT, "lfg");
+    assertClassified("Telin Darkforest shouts, 'hail'",
+        EqLogEventType.SHOUT, "Telin Darkforest", null,
+        EqLogEventClassification.NO_AMOUNT, "hail");
+    assertClassified("Daox auctions, 'WTS Jade Shard 30p'",
+        EqLogEventType.AUCTION, "Daox", null, EqLogEventClassification.NO_AMOUNT,
+        "WTS Jade Shard 30p");
+    assertClassified("Daox tells the guild, 'brb'",
+        EqLogEventType.GUILD, "Daox", null, EqLogEventClassification.NO_AMOUNT, "brb");
+    assertClassified("You say to your guild, 'brb'",
+        EqLogEventType.GUILD, "You", null, EqLogEventClassification.NO_AMOUNT, "brb");
+    assertClassified("Daox tells the group, 'oom'",
+        EqLogEventType.GROUP, "Daox", null, EqLogEventClassification.NO_AMOUNT, "oom");
+    assertClassified("You tell your party, 'oom'",
+        EqLogEventType.GROUP, "You", null, EqLogEventClassification.NO_AMOUNT, "oom");
+  }
+
+  @Test
+  void emptyChat() {
+    assertClassified("Stanvern says, ''",
+        EqLogEventType.SAY, "Stanvern", null, EqLogEventClassification.NO_AMOUNT, "");
+  }
+
+  @Test
+  void chatQuotingCombatIsStillChat() {
+    assertClassified("Stanvern tells you, 'A gnoll hits YOU for 5 points of damage.'",
+        EqLogEventType.TELL, "Stanvern", "You", EqLogEventClassification.NO_AMOUNT,
+        "A gnoll hits YOU for 5 points of damage.");
+  }
+
+  @Test
+  void melee() {
+    assertClassified("A gnoll hits YOU for 5 points of damage.",
+        EqLogEventType.MELEE_HIT, "A gnoll", "You", 5, null);
+    assertClassified("You slash a decaying skeleton for 12 points of damage.",
+        EqLogEventType.MELEE_HIT, "You", "a decaying skeleton", 12, null);
+    assertClassified("Lord Nagafen bites Stanvern for 1 point of damage.",
+        EqLogEventType.MELEE_HIT, "Lord Nagafen", "Stanvern", 1, null);
+    assertClassified("A gnoll tries to hit YOU, but misses!",
+        EqLogEventType.MELEE_MISS, "A gnoll", "You", EqLogEventClassification.NO_AMOUNT,
+        null);
+    assertClassified("You try to pierce a fire beetle, but miss!",
+        EqLogEventType.MELEE_MISS, "You", "a fire beetle",
+        EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("A fire beetle was hit by non-melee for 250 points of damage.",
+        EqLogEventType.NON_MELEE, null, "A fire beetle", 250, null);
+  }
+
+  @Test
+  void other() {
+    assertClassified("Daox begins to cast a spell.",
+        EqLogEventType.SPELL, "Daox", null, EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("You begin casting Gate.",
+        EqLogEventType.SPELL, "You", null, EqLogEventClassification.NO_AMOUNT, "Gate");
+    assertClassified("You feel quick.",
+        EqLogEventType.SPELL_LANDED, null, "You", EqLogEventClassification.NO_AMOUNT,
+        "feel quick");
+    assertClassified("Stanvern's skin turns hard as steel.",
+        EqLogEventType.SPELL_LANDED, null, "Stanvern", EqLogEventClassification.NO_AMOUNT,
+        "skin turns hard as steel");
+    assertClassified("A gnoll's skin turns to wood.",
+        EqLogEventType.SPELL_LANDED, null, "A gnoll", EqLogEventClassification.NO_AMOUNT,
+        "skin turns to wood");
+    assertClassified("--You have looted a Bone Chip.--",
+        EqLogEventType.LOOT, "You", null, EqLogEventClassification.NO_AMOUNT, "Bone Chip");
+    assertClassified("--Daox has looted an Ancient Pattern.--",
+        EqLogEventType.LOOT, "Daox", null, EqLogEventClassification.NO_AMOUNT,
+        "Ancient Pattern");
+    assertClassified("You have entered East Commonlands.",
+        EqLogEventType.ZONE, "You", null, EqLogEventClassification.NO_AMOUNT,
+        "East Commonlands");
+    assertClassified("You have slain a gnoll!",
+        EqLogEventType.SLAIN, "You", "a gnoll", EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("You have been slain by Lord Nagafen!",
+        EqLogEventType.SLAIN, "Lord Nagafen", "You", EqLogEventClassification.NO_AMOUNT,
+        null);
+    assertClassified("A gnoll has been slain by Daox!",
+        EqLogEventType.SLAIN, "Daox", "A gnoll", EqLogEventClassification.NO_AMOUNT, null);
+  }
+
+  @Test
+  void unrecognized() {
+    assertClassified("Your faction standing with Deepmuses got better.",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("A gnoll hits YOU for lots of damage.",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("Stanvern says, ",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+  }
+
+  @Test
+  void unknownLandingLikeMessagesAreOther() {
+    assertClassified("You feel a sharp pain.",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("You feel yourself starting to appear.",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("You feel the need to get a drink.",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("You feel quick. Or not.",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+    assertClassified("A gnoll's skin flakes off.",
+        EqLogEventType.OTHER, null, null, EqLogEventClassification.NO_AMOUNT, null);
+  }
+
+  @Test
+  void classificationIsReusable() {
+    EqLogEventClassification classification = new EqLogEventClassification();
+    EqLogEventClassifier.classify("A gnoll hits YOU for 5 points of damage.", classification);
+    EqLogEventClassifier.classify("Stanvern says, 'hi'", classification);
+    assertEquals(EqLogEventType.SAY, classification.getType());
+    assertEquals("Stanvern", classification.getActor());
+    assertNull(classification.getTarget());
+    assertEquals(EqLogEventClassification.NO_AMOUNT, classification.getAmount());
+    assertEquals("hi", classification.getText());
+  }
+
+  @Test
+  void namesAreShared() {
+    assertSame(
+        EqLogEventClassifier.classify("Stanvern says, 'hi'").getActor(),
+        EqLogEventClassifier.classify(new StringBuilder("Stanvern says, 'hi'")).getActor());
+  }
+
+  @Test
+  void eventType() {
+    EqLogEvent eqLogEvent = EqLogEvent.parseFromLine(
+        "[Fri Oct 25 18:58:06 2019] Stanvern says out of character, 'hi'").get();
+    assertEquals(EqLogEventType.OOC, eqLogEvent.getType());
+    assertEquals("Stanvern", eqLogEvent.classify().getActor());
+  }
+
+  private static void assertClassified(
+      String payload,
+      EqLogEventType type,
+      String actor,
+      String target,
+      long amount,
+      String text) {
+    EqLogEventClassification classification = EqLogEventClassifier.classify(payload);
+    assertEquals(type, classification.getType(), payload);
+    assertEquals(actor, classification.getActor(), payload);
+    assertEquals(target, classification.getTarget(), payload);
+    assertEquals(amount, classification.getAmount(), payload);
+    assertEquals(text, classification.getText(), payload);
+    assertEquals(type, EqLogEventClassifier.getType(payload), payload);
+  }
+
+}
@@ -0,0 +1,163 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EqLogEventStoreTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2019, 10, 25, 18, 0);
+
+  @Test
+  void timeRange() {
+    EqLogEventStore store = new EqLogEventStore();
+    store.onEvent(event(0, "Stanvern says, 'hi'"));
+    store.onEvent(event(1, "A gnoll hits YOU for 5 points of damage."));
+    store.onEvent(event(1, "You have entered East Commonlands."));
+    store.onEvent(event(2, "Daox tells the guild, 'brb'"));
+    assertEquals(4, store.size());
+
+    List<EqLogEvent> eqLogEvents = store.getEvents(START.plusSeconds(1), START.plusSeconds(2));
+    assertEquals(2, eqLogEvents.size());
+    assertEquals(
+        "[Fri Oct 25 18:00:01 2019] A gnoll hits YOU for 5 points of damage.",
+        eqLogEvents.get(0).getFullLine());
+    assertEquals(START.plusSeconds(1), eqLogEvents.get(0).getTimestamp());
+    assertEquals("You have entered East Commonlands.", eqLogEvents.get(1).getPayload());
+    assertEquals(EqLogEventType.ZONE, eqLogEvents.get(1).getType());
+
+    assertEquals(4, store.count(START, START.plusSeconds(3), null));
+    assertEquals(0, store.count(START.plusSeconds(3), START.plusSeconds(4), null));
+    assertEquals(0, store.count(START.plusSeconds(2), START, null));
+  }
+
+  @Test
+  void typeFilter() {
+    EqLogEventStore store = new EqLogEventStore();
+    store.onEvent(event(0, "Stanvern says, 'hi'"));
+    store.onEvent(event(1, "A gnoll hits YOU for 5 points of damage."));
+    store.onEvent(event(2, "Daox says, 'hi'"));
+    List<EqLogEvent> says = store.getEvents(START, START.plusSeconds(3), EqLogEventType.SAY);
+    assertEquals(2, says.size());
+    assertEquals("Daox says, 'hi'", says.get(1).getPayload());
+    assertEquals(1, store.count(START, START.plusSeconds(3), EqLogEventType.MELEE_HIT));
+  }
+
+  @Test
+  void outOfOrderEventsAreSorted() {
+    EqLogEventStore store = new EqLogEventStore();
+    store.onEvent(event(0, "first"));
+    store.onEvent(event(2, "third"));
+    store.onEvent(event(1, "second"));
+    store.onEvent(event(2, "fourth"));
+    List<String> payloads = new ArrayList<String>();
+    for (EqLogEvent eqLogEvent : store.getEvents(START, START.plusSeconds(3))) {
+      payloads.add(eqLogEvent.getPayload());
+    }
+    assertEquals(List.of("first", "second", "third", "fourth"), payloads);
+  }
+
+  @Test
+  void evictsByAge() {
+    EqLogEventStore store = new EqLogEventStore(Duration.ofMinutes(10));
+    for (int minute = 0; minute <= 30; minute++) {
+      store.onEvent(event(minute * 60, "minute " + minute));
+    }
+    assertEquals(11, store.size());
+    List<EqLogEvent> eqLogEvents = store.getEvents(START, START.plusHours(1));
+    assertEquals("minute 20", eqLogEvents.get(0).getPayload());
+
+    // Too old to keep.
+    store.onEvent(event(0, "minute 0"));
+    assertEquals(11, store.size());
+  }
+
+  @Test
+  void evictBefore() {
+    EqLogEventStore store = new EqLogEventStore();
+    for (int second = 0; second < 10; second++) {
+      store.onEvent(event(second, "second " + second));
+    }
+    store.evictBefore(START.plusSeconds(5));
+    assertEquals(5, store.size());
+    store.evictBefore(START.plusSeconds(100));
+    assertEquals(0, store.size());
+    store.onEvent(event(200, "after"));
+    assertEquals("after", store.getEvents(START, START.plusHours(1)).get(0).getPayload());
+  }
+
+  @Test
+  void compactionKeepsEvents() {
+    // Enough events to compact and grow the columns and arena many times over.
+    EqLogEventStore store = new EqLogEventStore(Duration.ofSeconds(5000));
+    Random random = new Random(0);
+    List<String> payloads = new ArrayList<String>();
+    for (int second = 0; second < 20000; second++) {
+      String payload = "x".repeat(random.nextInt(200)) + second;
+      payloads.add(payload);
+      store.onEvent(event(second, payload));
+    }
+    List<EqLogEvent> eqLogEvents = store.getEvents(START, START.plusDays(1));
+    assertEquals(5001, eqLogEvents.size());
+    for (int i = 0; i < eqLogEvents.size(); i++) {
+      assertEquals(payloads.get(14999 + i), eqLogEvents.get(i).getPayload());
+    }
+  }
+
+  @Test
+  void keepsSources() {
+    EqLogEventStore store = new EqLogEventStore();
+    EqLogSource source = new EqLogSource("green", "Stanvern");
+    store.onEvent(EqLogEvent.parseFromLine(
+        "[Fri Oct 25 18:00:00 2019] hi", new EqLogTimestampCache(), source).get());
+    store.onEvent(event(1, "no source"));
+    List<EqLogEvent> eqLogEvents = store.getEvents(START, START.plusSeconds(2));
+    assertEquals(Optional.of(source), eqLogEvents.get(0).getSource());
+    assertEquals(Optional.empty(), eqLogEvents.get(1).getSource());
+  }
+
+  @Test
+  void keepsPayloadsOutsideLatin1() {
+    EqLogEventStore store = new EqLogEventStore();
+    store.onEvent(event(0, "Stanvern says, 'caf\u00e9'"));
+    store.onEvent(event(1, "Stanvern says, '\u2603 \uD83D\uDE00'"));
+    store.onEvent(event(2, "Daox says, 'na\u00efve'"));
+    // Out of order, so it's shifted into place among the others.
+    store.onEvent(event(1, "Daox says, '\u00fcber \u20ac'"));
+    List<EqLogEvent> eqLogEvents = store.getEvents(START, START.plusSeconds(3));
+    assertEquals(4, eqLogEvents.size());
+    assertEquals("Stanvern says, 'caf\u00e9'", eqLogEvents.get(0).getPayload());
+    assertEquals("Stanvern says, '\u2603 \uD83D\uDE00'", eqLogEvents.get(1).getPayload());
+    assertEquals("Daox says, '\u00fcber \u20ac'", eqLogEvents.get(2).getPayload());
+    assertEquals("Daox says, 'na\u00efve'", eqLogEvents.get(3).getPayload());
+    assertEquals(
+        "[Fri Oct 25 18:00:01 2019] Stanvern says, '\u2603 \uD83D\uDE00'",
+        eqLogEvents.get(1).getFullLine());
+  }
+
+  @Test
+  void compactionKeepsPayloadsOutsideLatin1() {
+    EqLogEventStore store = new EqLogEventStore(Duration.ofSeconds(100));
+    for (int i = 0; i < 20000; i++) {
+      store.onEvent(event(i, i % 2 == 0 ? "even " + i : "\u2603 odd " + i));
+    }
+    List<EqLogEvent> eqLogEvents = store.getEvents(START, START.plusSeconds(20000));
+    assertEquals(101, eqLogEvents.size());
+    assertEquals("\u2603 odd 19899", eqLogEvents.get(0).getPayload());
+    assertEquals("even 19900", eqLogEvents.get(1).getPayload());
+    assertEquals("\u2603 odd 19999", eqLogEvents.get(100).getPayload());
+  }
+
+  private static EqLogEvent event(int second, String payload) {
+    long localEpochSecond = START.plusSeconds(second).toEpochSecond(ZoneOffset.UTC);
+    return EqLogEvent.parseFromLine(EqLogEvent.formatHeader(localEpochSecond) + payload).get();
+  }
+
+}
@@ -0,0 +1,71 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EqLogLastEventsTest {
+
+  private static final ZoneId TIMEZONE = ZoneId.of("America/New_York");
+
+  @TempDir
+  Path eqInstallDirectory;
+
+  @BeforeEach
+  void writeLog() throws IOException {
+    Files.createDirectories(eqInstallDirectory.resolve("Logs"));
+    Files.writeString(
+        eqInstallDirectory.resolve("Logs").resolve("eqlog_Stanvern_P1999Green.txt"),
+        "[Fri Oct 25 18:58:06 2019] Daox tells you, 'one'\n"
+            + "[Fri Oct 25 18:58:07 2019] line 2\n"
+            + "garbage\n"
+            + "[Fri Oct 25 18:58:08 2019] Daox tells you, 'two'\r\n"
+            + "[Fri Oct 25 18:58:09 2019] line 4\n"
+            + "[Fri Oct 25 18:58:10 2019] Daox tells you, 'three'\n"
+            + "[Fri Oct 25 18:58:11 2019] line 6\n"
+            + "[Fri Oct 25 18:58:12 2019] partial");
+  }
+
+  @Test
+  void returnsNewestFirst() throws IOException {
+    EqLog eqLog = create(Instant.MIN, Instant.MAX);
+    assertEquals(List.of("line 6", "Daox tells you, 'three'"), getPayloads(eqLog.getLastEvents(2)));
+    assertEquals(
+        List.of("Daox tells you, 'three'", "Daox tells you, 'two'", "Daox tells you, 'one'"),
+        getPayloads(eqLog.getLastEvents(
+            10, eqLogEvent -> eqLogEvent.getType() == EqLogEventType.TELL)));
+  }
+
+  @Test
+  void staysWithinParseStartAndParseEnd() throws IOException {
+    EqLog eqLog = create(getInstant(18, 58, 7), getInstant(18, 58, 9));
+    assertEquals(
+        List.of("line 4", "Daox tells you, 'two'", "line 2"),
+        getPayloads(eqLog.getLastEvents(10)));
+  }
+
+  private EqLog create(Instant parseStart, Instant parseEnd) {
+    return new EqLog(eqInstallDirectory, TIMEZONE, "green", "Stanvern", parseStart, parseEnd);
+  }
+
+  private List<String> getPayloads(List<EqLogEvent> eqLogEvents) {
+    return eqLogEvents.stream().map(EqLogEvent::getPayload).collect(Collectors.toList());
+  }
+
+  private Instant getInstant(int hour, int minute, int second) {
+    return LocalDateTime.of(2019, 10, 25, hour, minute, second)
+        .atZone(TIMEZONE)
+        .toInstant();
+  }
+
+}
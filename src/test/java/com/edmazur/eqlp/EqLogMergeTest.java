@@ -0,0 +1,125 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EqLogMergeTest {
+
+  private static final ZoneId TIMEZONE = ZoneId.of("America/New_York");
+  private static final EqLogSource STANVERN = new EqLogSource("green", "Stanvern");
+  private static final EqLogSource DAOX = new EqLogSource("blue", "Daox");
+
+  @TempDir
+  Path eqInstallDirectory;
+
+  private Path logsDirectory;
+
+  @BeforeEach
+  void createLogsDirectory() throws IOException {
+    logsDirectory = eqInstallDirectory.resolve("Logs");
+    Files.createDirectories(logsDirectory);
+  }
+
+  @Test
+  void mergesInTimestampOrder() throws IOException {
+    Files.writeString(
+        logsDirectory.resolve(STANVERN.getLogFileName()),
+        "[Fri Oct 25 18:58:06 2019] Stanvern line 1\r\n"
+            + "[Fri Oct 25 18:58:08 2019] Stanvern line 2\r\n"
+            + "[Fri Oct 25 18:58:08 2019] Stanvern line 3\r\n"
+            + "[Fri Oct 25 19:00:00 2019] Stanvern line 4\r\n");
+    Files.writeString(
+        logsDirectory.resolve(DAOX.getLogFileName()),
+        "[Fri Oct 25 18:58:05 2019] Daox line 1\n"
+            + "\n"
+            + "[Fri Oct 25 18:58:08 2019] Daox line 2\n"
+            + "[Fri Oct 25 18:58:09 2019] Daox line 3\n");
+    EqLogMerge eqLogMerge = new EqLogMerge(
+        eqInstallDirectory,
+        TIMEZONE,
+        List.of(STANVERN, DAOX),
+        getInstant(2019, 10, 25, 18, 58, 6),
+        getInstant(2019, 10, 25, 18, 59, 0));
+    List<String> events = new ArrayList<String>();
+    eqLogMerge.addListener(eqLogEvent -> events.add(format(eqLogEvent)));
+    eqLogMerge.replay();
+    assertEquals(
+        List.of(
+            "Stanvern (green): Stanvern line 1",
+            "Stanvern (green): Stanvern line 2",
+            "Stanvern (green): Stanvern line 3",
+            "Daox (blue): Daox line 2",
+            "Daox (blue): Daox line 3"),
+        events);
+  }
+
+  @Test
+  void mergesLargeLogs() throws IOException {
+    // Many times the read-ahead, so readers block on the merge.
+    List<EqLogSource> sources = new ArrayList<EqLogSource>();
+    Random random = new Random(0);
+    int expectedCount = 0;
+    for (int character = 0; character < 8; character++) {
+      EqLogSource source = new EqLogSource("green", "Character" + character);
+      sources.add(source);
+      LocalDateTime timestamp = LocalDateTime.of(2019, 10, 25, 18, 0);
+      StringBuilder contents = new StringBuilder();
+      for (int i = 0; i < 10000; i++) {
+        timestamp = timestamp.plusSeconds(random.nextInt(3));
+        contents
+            .append('[')
+            .append(EqLogEvent.TIMESTAMP_FORMAT.format(timestamp))
+            .append("] ")
+            .append(i % 10 == 0 ? "tick" : "line")
+            .append('\n');
+        expectedCount += i % 10 == 0 ? 1 : 0;
+      }
+      Files.writeString(logsDirectory.resolve(source.getLogFileName()), contents);
+    }
+    EqLogMerge eqLogMerge = new EqLogMerge(
+        eqInstallDirectory, TIMEZONE, sources, Instant.MIN, Instant.MAX);
+    List<EqLogEvent> events = new ArrayList<EqLogEvent>();
+    eqLogMerge.addListener(events::add, EqLogFilter.prefix("tick"));
+    eqLogMerge.replay();
+    assertEquals(expectedCount, events.size());
+    for (int i = 1; i < events.size(); i++) {
+      assertFalse(
+          events.get(i).getTimestamp().isBefore(events.get(i - 1).getTimestamp()),
+          "out of order at " + i);
+    }
+  }
+
+  @Test
+  void missingLog() {
+    EqLogMerge eqLogMerge = new EqLogMerge(
+        eqInstallDirectory, TIMEZONE, List.of(STANVERN), Instant.MIN, Instant.MAX);
+    assertThrows(NoSuchFileException.class, eqLogMerge::replay);
+  }
+
+  private String format(EqLogEvent eqLogEvent) {
+    return eqLogEvent.getSource().get() + ": " + eqLogEvent.getPayload();
+  }
+
+  private Instant getInstant(
+      int year, int month, int dayOfMonth, int hour, int minute, int second) {
+    return LocalDateTime.of(year, month, dayOfMonth, hour, minute, second)
+        .atZone(TIMEZONE)
+        .toInstant();
+  }
+
+}
@@ -0,0 +1,131 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EqLogMetricsTest {
+
+  private static final ZoneId TIMEZONE = ZoneId.of("America/New_York");
+
+  @TempDir
+  Path eqInstallDirectory;
+
+  @Test
+  void histogramPercentiles() {
+    EqLogHistogram histogram = new EqLogHistogram();
+    assertEquals(0, histogram.getP50());
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(50.5, histogram.getMean());
+    assertEquals(100, histogram.getMax());
+    // 50 is in the bucket [32, 64).
+    assertEquals(63, histogram.getP50());
+    assertEquals(100, histogram.getP99());
+    assertEquals(1, histogram.getPercentile(1));
+  }
+
+  @Test
+  void countsLinesAndTimesListeners() throws IOException {
+    EqLog eqLog = runLog();
+    EqLogMetrics metrics = eqLog.getMetrics();
+    // Includes the line past parseEnd, which was read but not dispatched.
+    assertEquals(5, metrics.getLinesRead());
+    assertEquals(3, metrics.getLinesParsed());
+    assertEquals(2, metrics.getLinesRejected());
+    assertEquals(Files.size(getLog()), metrics.getBytesRead());
+    assertEquals(
+        List.of("Interpolation search"), List.copyOf(metrics.getSeekDurations().keySet()));
+    assertEquals(1, metrics.getSeekDurations().get("Interpolation search").getCount());
+    List<EqLogHistogram> latencies = List.copyOf(metrics.getListenerLatencies().values());
+    assertEquals(2, latencies.size());
+    assertEquals(2, latencies.get(0).getCount());
+    assertEquals(1, latencies.get(1).getCount());
+    // The last event dispatched is from 18:58:07, not the 19:00:00 line past
+    // parseEnd.
+    assertTrue(
+        metrics.getTailLagMillis()
+            > System.currentTimeMillis()
+                - LocalDateTime.of(2019, 10, 25, 18, 59)
+                    .atZone(TIMEZONE)
+                    .toInstant()
+                    .toEpochMilli());
+    assertEquals(
+        List.of(
+            "0: com.edmazur.eqlp.EqLogMetricsTest (lambda)",
+            "1: entered zone"),
+        List.copyOf(metrics.getListenerLatencies().keySet()));
+  }
+
+  @Test
+  void readableOverJmx() throws IOException, JMException {
+    EqLogMetrics metrics = runLog().getMetrics();
+    metrics.register("Stanvern (green)");
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(
+          "com.edmazur.eqlp:type=EqLog,name=" + ObjectName.quote("Stanvern (green)"));
+      assertEquals(5L, server.getAttribute(name, "LinesRead"));
+      TabularData seekDurations = (TabularData) server.getAttribute(name, "SeekDurations");
+      CompositeData row =
+          seekDurations.get(new Object[] {"Interpolation search"});
+      assertEquals(1L, ((CompositeData) row.get("value")).get("count"));
+    } finally {
+      metrics.unregister();
+    }
+  }
+
+  @Test
+  void timestampCacheCountsOneLookupPerLine() throws IOException {
+    EqLog eqLog = runLog();
+    // No header repeats, so every line (including the one past parseEnd) is
+    // a miss.
+    assertEquals(0, eqLog.getTimestampCache().getHits());
+    assertEquals(5, eqLog.getTimestampCache().getMisses());
+  }
+
+  private EqLog runLog() throws IOException {
+    Files.createDirectories(getLog().getParent());
+    Files.writeString(
+        getLog(),
+        "[Fri Oct 25 18:58:06 2019] Stanvern says, 'hi'\n"
+            + "\n"
+            + "[Fri Oct 25 18:58:07 2019] You have entered East Commonlands.\n"
+            + "[Fri Oct 2\n"
+            + "[Fri Oct 25 19:00:00 2019] Stanvern says, 'bye'\n");
+    EqLog eqLog = new EqLog(
+        eqInstallDirectory,
+        TIMEZONE,
+        "green",
+        "Stanvern",
+        Instant.MIN,
+        LocalDateTime.of(2019, 10, 25, 18, 59).atZone(TIMEZONE).toInstant());
+    eqLog.addListener(eqLogEvent -> { });
+    eqLog.addListener(
+        "entered zone", eqLogEvent -> { }, EqLogFilter.prefix("You have entered "));
+    eqLog.run();
+    return eqLog;
+  }
+
+  private Path getLog() {
+    return eqInstallDirectory.resolve("Logs").resolve("eqlog_Stanvern_P1999Green.txt");
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EqLogReplayTest {
+
+  private static final EqLogSource SOURCE = new EqLogSource("green", "Stanvern");
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void orderedMatchesSequentialParse() throws IOException {
+    Path log = writeRandomLog();
+    List<String> expected = parseSequentially(log);
+    for (int chunkSize : new int[] {1, 2, 7, 64, 1000, 1 << 20}) {
+      assertEquals(
+          expected,
+          replay(log, 0, Files.size(log), chunkSize, true),
+          "chunkSize=" + chunkSize);
+    }
+  }
+
+  @Test
+  void unorderedDeliversEveryEvent() throws IOException {
+    Path log = writeRandomLog();
+    List<String> expected = parseSequentially(log);
+    Collections.sort(expected);
+    for (int chunkSize : new int[] {1, 7, 1000}) {
+      List<String> actual = replay(log, 0, Files.size(log), chunkSize, false);
+      Collections.sort(actual);
+      assertEquals(expected, actual, "chunkSize=" + chunkSize);
+    }
+  }
+
+  @Test
+  void replaysRange() throws IOException {
+    Path log = directory.resolve("eqlog_Stanvern_P1999Green.txt");
+    String line1 = "[Fri Oct 25 18:58:06 2019] line 1\n";
+    String line2 = "[Fri Oct 25 18:58:07 2019] line 2\n";
+    String line3 = "[Fri Oct 25 18:58:08 2019] line 3\n";
+    Files.writeString(log, line1 + line2 + line3);
+    assertEquals(
+        List.of("[Fri Oct 25 18:58:07 2019] line 2"),
+        replay(log, line1.length(), line1.length() + line2.length(), 3, true));
+  }
+
+  private Path writeRandomLog() throws IOException {
+    Random random = new Random(0);
+    LocalDateTime timestamp = LocalDateTime.of(2019, 10, 25, 18, 58, 6);
+    StringBuilder contents = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      String newline = random.nextBoolean() ? "\n" : "\r\n";
+      switch (random.nextInt(10)) {
+        case 0:
+          contents.append(newline);
+          break;
+        case 1:
+          contents.append("[Fri Oct 2").append(newline);
+          break;
+        default:
+          timestamp = timestamp.plusSeconds(random.nextInt(3));
+          contents
+              .append('[')
+              .append(EqLogEvent.TIMESTAMP_FORMAT.format(timestamp))
+              .append("] line ")
+              .append(i)
+              .append("x".repeat(random.nextInt(100)))
+              .append(newline);
+      }
+    }
+    // Leave the last line unterminated.
+    contents.append("[Fri Oct 25 23:59:59 2019] last line");
+    Path log = directory.resolve("eqlog_Stanvern_P1999Green.txt");
+    Files.writeString(log, contents);
+    return log;
+  }
+
+  private List<String> parseSequentially(Path log) throws IOException {
+    List<String> lines = new ArrayList<String>();
+    for (String line : Files.readAllLines(log)) {
+      Optional<EqLogEvent> maybeEqLogEvent = EqLogEvent.parseFromLine(line);
+      if (maybeEqLogEvent.isPresent()) {
+        lines.add(maybeEqLogEvent.get().getFullLine());
+      }
+    }
+    return lines;
+  }
+
+  private List<String> replay(
+      Path log, long start, long end, int chunkSize, boolean ordered)
+      throws IOException {
+    List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+    EqLogListener eqLogListener = eqLogEvent -> {
+      assertEquals(SOURCE, eqLogEvent.getSource().get());
+      lines.add(eqLogEvent.getFullLine());
+    };
+    EqLogDispatcher dispatcher = new EqLogDispatcher();
+    dispatcher.addListener(eqLogListener);
+    ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+    try {
+      new EqLogReplay(
+          log, SOURCE, start, end, dispatcher, new EqLogMetrics(ZoneOffset.UTC), chunkSize)
+          .run(forkJoinPool, ordered);
+    } finally {
+      forkJoinPool.shutdown();
+    }
+    return lines;
+  }
+
+}
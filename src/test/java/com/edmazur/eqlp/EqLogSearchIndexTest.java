@@ -0,0 +1,176 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EqLogSearchIndexTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2019, 10, 25, 18, 0);
+  private static final LocalDateTime END = LocalDateTime.of(2019, 10, 30, 0, 0);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void findsEventsContainingEveryTerm() throws IOException {
+    Path log = writeLog(
+        line(0, "--Stanvern has looted a Cloak of Flames.--")
+            + line(60, "Daox says, 'nice cloak'")
+            + "garbage cloak of flames\n"
+            + line(86400, "--Daox has looted a Cloak of Flames.--")
+            + line(86460, "Flames of a cloak"));
+    try (EqLogSearchIndex index = open(log)) {
+      index.update();
+      // The second day is still in memory.
+      assertEquals(1, index.getSegmentCount());
+      assertEquals(
+          List.of(
+              "--Stanvern has looted a Cloak of Flames.--",
+              "--Daox has looted a Cloak of Flames.--",
+              "Flames of a cloak"),
+          search(index, "cloak OF flames", START, END));
+      assertEquals(
+          List.of("--Daox has looted a Cloak of Flames.--"),
+          search(index, "looted cloak", START.plusSeconds(1), END));
+      assertEquals(List.of(), search(index, "cloak of ice", START, END));
+      assertEquals(List.of(), search(index, "!!", START, END));
+    }
+  }
+
+  @Test
+  void resumesWhereItLeftOff() throws IOException {
+    Path log = writeLog(line(0, "first tell") + line(86400, "second tell"));
+    try (EqLogSearchIndex index = open(log)) {
+      index.update();
+    }
+    Files.writeString(log, line(86401, "third tell") + "[Sat Oct 26", StandardOpenOption.APPEND);
+    try (EqLogSearchIndex index = open(log)) {
+      assertEquals(2, index.getSegmentCount());
+      assertEquals(List.of("first tell", "second tell"), search(index, "tell", START, END));
+      index.update();
+      assertEquals(
+          List.of("first tell", "second tell", "third tell"),
+          search(index, "tell", START, END));
+    }
+    Files.writeString(log, " 18:00:02 2019] fourth tell\n", StandardOpenOption.APPEND);
+    try (EqLogSearchIndex index = open(log)) {
+      index.update();
+      assertEquals(
+          List.of("first tell", "second tell", "third tell", "fourth tell"),
+          search(index, "tell", START, END));
+    }
+  }
+
+  @Test
+  void rebuildsForReplacedLog() throws IOException {
+    Path log = writeLog(line(0, "old tell"));
+    try (EqLogSearchIndex index = open(log)) {
+      index.update();
+    }
+    writeLog(line(1, "new tell"));
+    try (EqLogSearchIndex index = open(log)) {
+      index.update();
+      assertEquals(List.of("new tell"), search(index, "tell", START, END));
+    }
+  }
+
+  @Test
+  void indexesInBackground() throws Exception {
+    Path log = writeLog(line(0, "first"));
+    try (EqLogSearchIndex index = open(log)) {
+      index.start();
+      Files.writeString(log, line(1, "second"), StandardOpenOption.APPEND);
+      long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+      while (search(index, "second", START, END).isEmpty() && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(List.of("second"), search(index, "second", START, END));
+      assertEquals(List.of("first"), search(index, "first", START, END));
+    }
+  }
+
+  @Test
+  void matchesScan() throws IOException {
+    String[] words = {"a", "cloak", "of", "flames", "Stanvern", "Daox", "tells", "you"};
+    Random random = new Random(0);
+    StringBuilder contents = new StringBuilder();
+    List<String> payloads = new ArrayList<String>();
+    for (int i = 0; i < 5000; i++) {
+      StringBuilder payload = new StringBuilder();
+      for (int j = random.nextInt(6); j >= 0; j--) {
+        payload.append(words[random.nextInt(words.length)]).append(j % 2 == 0 ? " " : ", ");
+      }
+      payloads.add(payload.toString());
+      contents.append(line(i * 60, payload.toString()));
+    }
+    Path log = writeLog(contents.toString());
+    try (EqLogSearchIndex index = EqLogSearchIndex.open(
+        log, directory.resolve("index"), null, Duration.ofHours(6))) {
+      // Searches the in-memory partition before and after it's written out.
+      for (int pass = 0; pass < 2; pass++) {
+        index.update();
+        for (int query = 0; query < 20; query++) {
+          Set<String> terms = new HashSet<String>();
+          for (int term = random.nextInt(3); term >= 0; term--) {
+            terms.add(words[random.nextInt(words.length)].toLowerCase());
+          }
+          LocalDateTime start = START.plusMinutes(random.nextInt(5000));
+          LocalDateTime end = start.plusMinutes(random.nextInt(1000));
+          List<String> expected = new ArrayList<String>();
+          for (int i = 0; i < payloads.size(); i++) {
+            LocalDateTime timestamp = START.plusMinutes(i);
+            Set<String> payloadTerms = new HashSet<String>();
+            EqLogSearchIndex.tokenize(
+                payloads.get(i), 0, payloads.get(i).length(), payloadTerms::add);
+            if (!timestamp.isBefore(start) && !timestamp.isAfter(end)
+                && payloadTerms.containsAll(terms)) {
+              expected.add(payloads.get(i));
+            }
+          }
+          assertEquals(expected, search(index, String.join(" ", terms), start, end));
+        }
+        Files.writeString(log, line(86400 * 10, "end"), StandardOpenOption.APPEND);
+      }
+      assertTrue(index.getSegmentCount() > 10);
+    }
+  }
+
+  private EqLogSearchIndex open(Path log) throws IOException {
+    return EqLogSearchIndex.open(log, directory.resolve("index"));
+  }
+
+  private List<String> search(
+      EqLogSearchIndex index, String query, LocalDateTime start, LocalDateTime end)
+      throws IOException {
+    return index.search(query, start, end).stream()
+        .map(EqLogEvent::getPayload)
+        .collect(Collectors.toList());
+  }
+
+  private Path writeLog(String contents) throws IOException {
+    Path log = directory.resolve("eqlog_Stanvern_P1999Green.txt");
+    Files.writeString(log, contents);
+    return log;
+  }
+
+  private static String line(int second, String payload) {
+    return "[" + EqLogEvent.TIMESTAMP_FORMAT.format(START.plusSeconds(second)) + "] "
+        + payload + "\n";
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class EqLogStringPoolTest {
+
+  @Test
+  void equalStringsShareAnInstance() {
+    EqLogStringPool pool = new EqLogStringPool(4, 16);
+    String first = pool.intern(new StringBuilder("Stanvern"));
+    assertEquals("Stanvern", first);
+    assertSame(first, pool.intern("Stanvern says, 'hi'", 0, 8));
+    assertSame(first, pool.intern(new String("Stanvern")));
+    assertEquals(1, pool.getMisses());
+    assertEquals(2, pool.getHits());
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  void longStringsAreNotPooled() {
+    EqLogStringPool pool = new EqLogStringPool(4, 16);
+    String line = "x".repeat(EqLogStringPool.MAX_LENGTH + 1);
+    String first = pool.intern(new StringBuilder(line));
+    assertEquals(line, first);
+    assertNotSame(first, pool.intern(new StringBuilder(line)));
+    assertEquals(0, pool.size());
+  }
+
+  @Test
+  void sizeIsBounded() {
+    EqLogStringPool pool = new EqLogStringPool(2, 8);
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("mob" + i, pool.intern("mob" + i));
+    }
+    assertTrue(pool.size() <= 16);
+  }
+
+  @Test
+  void recentlyUsedStringsSurviveEviction() {
+    EqLogStringPool pool = new EqLogStringPool(1, 8);
+    String hot = pool.intern("Lord Nagafen");
+    for (int i = 0; i < 1000; i++) {
+      pool.intern("a gnoll " + i);
+      assertSame(hot, pool.intern("Lord Nagafen"));
+    }
+  }
+
+  @Test
+  void concurrentInterning() throws Exception {
+    EqLogStringPool pool = new EqLogStringPool(4, 256);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String[]>> futures = new ArrayList<Future<String[]>>();
+      for (int thread = 0; thread < 4; thread++) {
+        futures.add(executor.submit(() -> {
+          String[] interned = new String[100];
+          for (int i = 0; i < interned.length; i++) {
+            interned[i] = pool.intern(new StringBuilder("name").append(i));
+          }
+          return interned;
+        }));
+      }
+      String[] expected = futures.get(0).get();
+      for (Future<String[]> future : futures) {
+        String[] interned = future.get();
+        for (int i = 0; i < interned.length; i++) {
+          assertSame(expected[i], interned[i]);
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void sizesMustBePowersOfTwo() {
+    assertThrows(IllegalArgumentException.class, () -> new EqLogStringPool(3, 16));
+    assertThrows(IllegalArgumentException.class, () -> new EqLogStringPool(4, 0));
+  }
+
+}
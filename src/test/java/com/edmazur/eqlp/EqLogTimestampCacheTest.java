@@ -0,0 +1,67 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.junit.jupiter.api.Test;
+
+class EqLogTimestampCacheTest {
+
+  @Test
+  void reusesSameSecond() {
+    EqLogTimestampCache cache = new EqLogTimestampCache();
+    LocalDateTime first =
+        cache.getTimestamp("[Fri Oct 25 18:58:06 2019] You hit a gnoll for 5 points of damage.");
+    LocalDateTime second =
+        cache.getTimestamp("[Fri Oct 25 18:58:06 2019] A gnoll hits YOU for 3 points of damage.");
+    assertEquals(LocalDateTime.of(2019, 10, 25, 18, 58, 6), first);
+    assertSame(first, second);
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  void reparsesNextSecond() {
+    EqLogTimestampCache cache = new EqLogTimestampCache();
+    cache.getTimestamp("[Fri Oct 25 18:58:06 2019] line 1");
+    assertEquals(
+        LocalDateTime.of(2019, 10, 25, 18, 58, 7),
+        cache.getTimestamp("[Fri Oct 25 18:58:07 2019] line 2"));
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  void sameHeaderWithoutPayload() {
+    EqLogTimestampCache cache = new EqLogTimestampCache();
+    cache.getTimestamp("[Fri Oct 25 18:58:06 2019] line 1");
+    assertNull(cache.getTimestamp("[Fri Oct 25 18:58:06 2019] "));
+  }
+
+  @Test
+  void invalidLineKeepsPreviousEntry() {
+    EqLogTimestampCache cache = new EqLogTimestampCache();
+    cache.getTimestamp("[Fri Oct 25 18:58:06 2019] line 1");
+    assertNull(cache.getTimestamp("[Fri Oct 25 18:5"));
+    cache.getTimestamp("[Fri Oct 25 18:58:06 2019] line 2");
+    assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  void instantFollowsTimezone() {
+    EqLogTimestampCache cache = new EqLogTimestampCache();
+    String line = "[Fri Oct 25 18:58:06 2019] line 1";
+    assertEquals(
+        LocalDateTime.of(2019, 10, 25, 18, 58, 6)
+            .atZone(ZoneId.of("America/New_York")).toInstant(),
+        cache.getInstant(line, ZoneId.of("America/New_York")));
+    assertEquals(
+        LocalDateTime.of(2019, 10, 25, 18, 58, 6)
+            .atZone(ZoneId.of("America/Los_Angeles")).toInstant(),
+        cache.getInstant(line, ZoneId.of("America/Los_Angeles")));
+  }
+
+}
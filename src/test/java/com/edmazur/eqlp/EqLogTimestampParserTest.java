@@ -0,0 +1,99 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EqLogTimestampParserTest {
+
+  @Test
+  void goodLine() {
+    assertEquals(
+        LocalDateTime.of(2019, 10, 25, 18, 58, 6).toEpochSecond(ZoneOffset.UTC),
+        EqLogTimestampParser.parse(
+            "[Fri Oct 25 18:58:06 2019] Stanvern says out of character, 'hi'"));
+  }
+
+  @Test
+  void leapDay() {
+    assertEquals(
+        LocalDateTime.of(2020, 2, 29, 0, 0, 0).toEpochSecond(ZoneOffset.UTC),
+        EqLogTimestampParser.parse("[Sat Feb 29 00:00:00 2020] hi"));
+  }
+
+  @Test
+  void wrongDayOfWeek() {
+    assertEquals(
+        EqLogTimestampParser.INVALID,
+        EqLogTimestampParser.parse("[Sat Oct 25 18:58:06 2019] hi"));
+  }
+
+  @Test
+  void outOfRangeFields() {
+    assertEquals(
+        EqLogTimestampParser.INVALID,
+        EqLogTimestampParser.parse("[Fri Oct 25 24:58:06 2019] hi"));
+    assertEquals(
+        EqLogTimestampParser.INVALID,
+        EqLogTimestampParser.parse("[Fri Oct 25 18:60:06 2019] hi"));
+    assertEquals(
+        EqLogTimestampParser.INVALID,
+        EqLogTimestampParser.parse("[Fri Oct 32 18:58:06 2019] hi"));
+    assertEquals(
+        EqLogTimestampParser.INVALID,
+        EqLogTimestampParser.parse("[Fri Foo 25 18:58:06 2019] hi"));
+  }
+
+  @Test
+  void missingPayload() {
+    assertEquals(
+        EqLogTimestampParser.INVALID,
+        EqLogTimestampParser.parse("[Fri Oct 25 18:58:06 2019] "));
+    assertEquals(
+        EqLogTimestampParser.INVALID,
+        EqLogTimestampParser.parse("[Fri Oct 25 18:58:06 2019]"));
+  }
+
+  @Test
+  void truncatedLine() {
+    assertEquals(
+        EqLogTimestampParser.INVALID,
+        EqLogTimestampParser.parse(
+            "[Wed Sep 29 03:2[Wed Sep 29 08:06:56 2021] Daox begins to cast a spell."));
+    assertEquals(EqLogTimestampParser.INVALID, EqLogTimestampParser.parse(""));
+  }
+
+  // Checks that the parser agrees with EqLogEvent.TIMESTAMP_FORMAT, which it
+  // replaces.
+  @Test
+  void matchesFormatter() {
+    Random random = new Random(0);
+    for (int i = 0; i < 10_000; i++) {
+      LocalDateTime timestamp = LocalDateTime.ofEpochSecond(
+          random.nextInt(Integer.MAX_VALUE), 0, ZoneOffset.UTC);
+      String header = EqLogEvent.TIMESTAMP_FORMAT.format(timestamp);
+      // Occasionally corrupt a character to exercise rejection too.
+      if (random.nextInt(4) == 0) {
+        char[] chars = header.toCharArray();
+        chars[random.nextInt(chars.length)] = (char) ('0' + random.nextInt(75));
+        header = new String(chars);
+      }
+      long expected;
+      try {
+        expected = LocalDateTime.parse(header, EqLogEvent.TIMESTAMP_FORMAT)
+            .toEpochSecond(ZoneOffset.UTC);
+      } catch (DateTimeParseException e) {
+        expected = EqLogTimestampParser.INVALID;
+      }
+      assertEquals(
+          expected,
+          EqLogTimestampParser.parse("[" + header + "] payload"),
+          header);
+    }
+  }
+
+}
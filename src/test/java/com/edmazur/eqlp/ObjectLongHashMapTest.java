@@ -0,0 +1,46 @@
+package com.edmazur.eqlp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ObjectLongHashMapTest {
+
+  @Test
+  void matchesHashMap() {
+    // Few distinct keys with colliding hashes, so removals shift long runs.
+    ObjectLongHashMap<Integer> map = new ObjectLongHashMap<Integer>(2);
+    Map<Integer, Long> expected = new HashMap<Integer, Long>();
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; i++) {
+      Integer key = random.nextInt(200) * 64;
+      if (random.nextInt(3) == 0) {
+        int slot = map.find(key);
+        assertEquals(expected.containsKey(key), slot != -1);
+        if (slot != -1) {
+          assertEquals(expected.remove(key).longValue(), map.get(slot, 1));
+          assertEquals(key.longValue(), map.get(slot, 0));
+          map.remove(slot);
+        }
+      } else {
+        int slot = map.add(key);
+        long value = expected.getOrDefault(key, 0L) + 1;
+        expected.put(key, value);
+        map.set(slot, 0, key);
+        map.set(slot, 1, map.get(slot, 1) + 1);
+        assertEquals(value, map.get(slot, 1));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+      assertEquals(entry.getValue().longValue(), map.get(map.find(entry.getKey()), 1));
+    }
+    map.clear();
+    assertEquals(0, map.size());
+    assertEquals(-1, map.find(0));
+  }
+
+}
@@ -2,9 +2,11 @@ package com.edmazur.eqlp.file;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.edmazur.eqlp.EqLogEvent;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 
@@ -19,12 +21,22 @@ class EqLogEventTest {
     assertEquals(
         "[Fri Oct 25 18:58:06 2019] Stanvern says out of character, 'hi'",
         eqLogEvent.getFullLine());
-    // TODO: Check timestamp.
+    assertEquals(
+        LocalDateTime.of(2019, 10, 25, 18, 58, 6),
+        eqLogEvent.getTimestamp());
     assertEquals(
         "Stanvern says out of character, 'hi'",
         eqLogEvent.getPayload());
   }
 
+  @Test
+  void fieldsAreOnlyMaterializedOnce() {
+    EqLogEvent eqLogEvent = EqLogEvent.parseFromLine(
+        "[Fri Oct 25 18:58:06 2019] Stanvern says out of character, 'hi'").get();
+    assertSame(eqLogEvent.getTimestamp(), eqLogEvent.getTimestamp());
+    assertSame(eqLogEvent.getPayload(), eqLogEvent.getPayload());
+  }
+
   @Test
   void badLine() {
     Optional<EqLogEvent> maybeEqLogEvent = EqLogEvent.parseFromLine(
@@ -0,0 +1,188 @@
+package com.edmazur.eqlp.file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.edmazur.eqlp.EqLogEvent;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Covers the index maintenance that LogSeekerTest's common cases don't reach.
+class IndexedLogSeekerTest {
+
+  private static final ZoneId TIMEZONE = ZoneId.of("America/New_York");
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void createsIndexNextToLog() throws IOException {
+    Path log = writeLog(
+        "[Fri Oct 25 18:58:06 2019] line 1\n",
+        "[Fri Oct 25 18:59:06 2019] line 2\n");
+    new IndexedLogSeeker(
+        log.toFile(),
+        EqLogEvent.LINE_PATTERN,
+        EqLogEvent.TIMESTAMP_FORMAT,
+        TIMEZONE)
+        .seek(Instant.MIN);
+    assertTrue(Files.exists(directory.resolve("eqlog_Stanvern_P1999Green.txt.idx")));
+  }
+
+  @Test
+  void extendsIndexWhenLogGrows() throws IOException {
+    Path log = writeLog(
+        "[Fri Oct 25 18:58:06 2019] line 1\n",
+        "[Fri Oct 25 18:59:06 2019] line 2\n");
+    assertNull(getLogSeeker(log).seek(getInstant("Fri Oct 25 19:00:00 2019")).readLine());
+    long indexSize = Files.size(getIndex(log));
+
+    appendToLog(log,
+        "[Fri Oct 25 19:00:06 2019] line 3\n",
+        "[Fri Oct 25 19:01:06 2019] line 4\n");
+    assertEquals(
+        "[Fri Oct 25 19:01:06 2019] line 4",
+        getLogSeeker(log).seek(getInstant("Fri Oct 25 19:01:00 2019")).readLine());
+    assertTrue(Files.size(getIndex(log)) > indexSize);
+  }
+
+  @Test
+  void dropsEntriesOrphanedByCrashWhenExtending() throws IOException {
+    Path log = writeLog(
+        "[Fri Oct 25 18:58:06 2019] line 1\n",
+        "[Fri Oct 25 18:59:06 2019] line 2\n");
+    getLogSeeker(log).seek(Instant.MIN);
+    // As if a crash came after appending an entry but before counting it.
+    try (RandomAccessFile index = new RandomAccessFile(getIndex(log).toFile(), "rw")) {
+      index.seek(index.length());
+      index.writeLong(0);
+      index.writeLong(999);
+    }
+
+    appendToLog(log,
+        "[Fri Oct 25 19:00:06 2019] line 3\n",
+        "[Fri Oct 25 19:01:06 2019] line 4\n");
+    getLogSeeker(log).seek(Instant.MIN);
+    byte[] extendedIndex = Files.readAllBytes(getIndex(log));
+    Files.delete(getIndex(log));
+    getLogSeeker(log).seek(Instant.MIN);
+    assertArrayEquals(Files.readAllBytes(getIndex(log)), extendedIndex);
+  }
+
+  @Test
+  void doesNotIndexPartialLastLine() throws IOException {
+    Path log = writeLog(
+        "[Fri Oct 25 18:58:06 2019] line 1\n",
+        "[Fri Oct 25 18:59:06 2019] li");
+    getLogSeeker(log).seek(Instant.MIN);
+
+    appendToLog(log,
+        "ne 2\n",
+        "[Fri Oct 25 19:00:06 2019] line 3\n");
+    assertEquals(
+        "[Fri Oct 25 18:59:06 2019] line 2",
+        getLogSeeker(log).seek(getInstant("Fri Oct 25 18:59:00 2019")).readLine());
+  }
+
+  @Test
+  void rebuildsIndexWhenLogIsReplaced() throws IOException {
+    Path log = writeLog(
+        "[Fri Oct 25 18:58:06 2019] line 1\n",
+        "[Fri Oct 25 18:59:06 2019] line 2\n",
+        "[Fri Oct 25 19:00:06 2019] line 3\n");
+    getLogSeeker(log).seek(Instant.MIN);
+
+    // Same size as before, but different contents.
+    Files.delete(log);
+    log = writeLog(
+        "[Sat Oct 26 18:58:06 2019] line 1\n",
+        "[Sat Oct 26 18:59:06 2019] line 2\n",
+        "[Sat Oct 26 19:00:06 2019] line 3\n");
+    assertEquals(
+        "[Sat Oct 26 18:59:06 2019] line 2",
+        getLogSeeker(log).seek(getInstant("Sat Oct 26 18:59:00 2019")).readLine());
+  }
+
+  @Test
+  void rebuildsIndexWhenLogIsTruncated() throws IOException {
+    Path log = writeLog(
+        "[Fri Oct 25 18:58:06 2019] line 1\n",
+        "[Fri Oct 25 18:59:06 2019] line 2\n",
+        "[Fri Oct 25 19:00:06 2019] line 3\n");
+    getLogSeeker(log).seek(Instant.MIN);
+
+    Files.delete(log);
+    log = writeLog("[Fri Oct 25 18:58:06 2019] line 1\n");
+    assertNull(getLogSeeker(log).seek(getInstant("Fri Oct 25 18:59:00 2019")).readLine());
+  }
+
+  @Test
+  void rebuildsCorruptIndex() throws IOException {
+    Path log = writeLog(
+        "[Fri Oct 25 18:58:06 2019] line 1\n",
+        "[Fri Oct 25 18:59:06 2019] line 2\n");
+    Files.write(getIndex(log), new byte[] {1, 2, 3});
+    assertEquals(
+        "[Fri Oct 25 18:59:06 2019] line 2",
+        getLogSeeker(log).seek(getInstant("Fri Oct 25 18:59:00 2019")).readLine());
+  }
+
+  @Test
+  void rebuildsIndexWithCorruptFingerprint() throws IOException {
+    Path log = writeLog(
+        "[Fri Oct 25 18:58:06 2019] line 1\n",
+        "[Fri Oct 25 18:59:06 2019] line 2\n");
+    getLogSeeker(log).seek(Instant.MIN);
+    try (RandomAccessFile index = new RandomAccessFile(getIndex(log).toFile(), "rw")) {
+      // The fingerprint's length comes after the header and the timezone.
+      index.seek(4 + 4 + 8 + 4 + 8 + 2 + TIMEZONE.getId().length());
+      index.writeInt(Integer.MAX_VALUE);
+    }
+    assertEquals(
+        "[Fri Oct 25 18:59:06 2019] line 2",
+        getLogSeeker(log).seek(getInstant("Fri Oct 25 18:59:00 2019")).readLine());
+  }
+
+  private Path writeLog(String... lines) throws IOException {
+    Path log = directory.resolve("eqlog_Stanvern_P1999Green.txt");
+    Files.writeString(log, String.join("", lines));
+    return log;
+  }
+
+  private void appendToLog(Path log, String... lines) throws IOException {
+    Files.writeString(log, String.join("", lines), StandardOpenOption.APPEND);
+  }
+
+  private Path getIndex(Path log) {
+    return Path.of(log + ".idx");
+  }
+
+  private LogSeeker getLogSeeker(Path log) {
+    return new IndexedLogSeeker(
+        log.toFile(),
+        EqLogEvent.LINE_PATTERN,
+        EqLogEvent.TIMESTAMP_FORMAT,
+        TIMEZONE,
+        getIndex(log).toFile(),
+        Duration.ofSeconds(30));
+  }
+
+  private Instant getInstant(String timestamp) {
+    return LocalDateTime
+        .parse(timestamp, EqLogEvent.TIMESTAMP_FORMAT)
+        .atZone(TIMEZONE)
+        .toInstant();
+  }
+
+}
@@ -0,0 +1,173 @@
+package com.edmazur.eqlp.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogLineReaderTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void readsLinesAndOffsets() throws IOException {
+    Path log = writeLog("line 1\nline 2\r\n\nline 4\n");
+    try (LogLineReader reader = new LogLineReader(log.toFile())) {
+      assertLine("line 1", 0, reader);
+      assertLine("line 2", 7, reader);
+      assertLine("", 15, reader);
+      assertLine("line 4", 16, reader);
+      assertNull(reader.readLine());
+      assertEquals(23, reader.getPosition());
+    }
+  }
+
+  @Test
+  void waitsForUnterminatedLine() throws IOException {
+    Path log = writeLog("line 1\nline");
+    try (LogLineReader reader = new LogLineReader(log.toFile())) {
+      assertLine("line 1", 0, reader);
+      assertNull(reader.readLine());
+      append(log, " 2\nline 3");
+      assertLine("line 2", 7, reader);
+      assertNull(reader.readLine());
+      assertEquals("line 3", reader.readLine(true).toString());
+      assertEquals(14, reader.getLineStart());
+      assertNull(reader.readLine(true));
+    }
+  }
+
+  @Test
+  void readsLinesLongerThanBuffer() throws IOException {
+    String longLine = "x".repeat(1000);
+    Path log = writeLog("a\n" + longLine + "\nb\n");
+    try (LogLineReader reader = new LogLineReader(log.toFile(), 4)) {
+      assertLine("a", 0, reader);
+      assertLine(longLine, 2, reader);
+      assertLine("b", 1003, reader);
+      assertNull(reader.readLine());
+    }
+  }
+
+  @Test
+  void readsLongLinesSplitAtCarriageReturn() throws IOException {
+    // The carriage return is the last byte spilled and the newline is the
+    // first byte of the next read.
+    Path log = writeLog("abcdefg\r\nh\n");
+    try (LogLineReader reader = new LogLineReader(log.toFile(), 4)) {
+      assertLine("abcdefg", 0, reader);
+      assertLine("h", 9, reader);
+      assertNull(reader.readLine());
+    }
+  }
+
+  @Test
+  void waitsForUnterminatedLongLine() throws IOException {
+    Path log = writeLog("a\n" + "x".repeat(100));
+    try (LogLineReader reader = new LogLineReader(log.toFile(), 8)) {
+      assertLine("a", 0, reader);
+      assertNull(reader.readLine());
+      // Nothing has been returned from the long line yet.
+      assertEquals(2, reader.getPosition());
+      append(log, "y".repeat(100) + "\nb\nc");
+      assertLine("x".repeat(100) + "y".repeat(100), 2, reader);
+      assertLine("b", 203, reader);
+      assertNull(reader.readLine());
+      append(log, "z".repeat(20));
+      assertEquals("c" + "z".repeat(20), reader.readLine(true).toString());
+      assertEquals(205, reader.getLineStart());
+    }
+  }
+
+  @Test
+  void readsLinesMuchLongerThanBuffer() throws IOException {
+    // Long enough that the spill buffer isn't kept afterward.
+    String longLine = "x".repeat(3 * 1024 * 1024);
+    Path log = writeLog(longLine + "\na\n" + longLine + "\nb\n");
+    try (LogLineReader reader = new LogLineReader(log.toFile(), 1024)) {
+      CharSequence line = reader.readLine();
+      assertEquals(longLine.length(), line.length());
+      assertEquals('x', line.charAt(longLine.length() - 1));
+      assertLine("a", longLine.length() + 1, reader);
+      assertEquals(longLine, reader.readLine().toString());
+      assertLine("b", 2L * longLine.length() + 4, reader);
+      assertNull(reader.readLine());
+    }
+  }
+
+  @Test
+  void matchesSplitForAnyBufferSize() throws IOException {
+    StringBuilder contents = new StringBuilder();
+    List<String> lines = new ArrayList<String>();
+    Random random = new Random(0);
+    for (int i = 0; i < 500; i++) {
+      String line = "x".repeat(random.nextInt(random.nextInt(10) == 0 ? 500 : 20));
+      lines.add(line);
+      contents.append(line).append(random.nextBoolean() ? "\r\n" : "\n");
+    }
+    Path log = writeLog(contents.toString());
+    for (int bufferSize : new int[] {1, 2, 7, 64, 64 * 1024}) {
+      List<String> actual = new ArrayList<String>();
+      try (LogLineReader reader = new LogLineReader(log.toFile(), bufferSize)) {
+        CharSequence line;
+        while ((line = reader.readLine()) != null) {
+          actual.add(line.toString());
+        }
+        assertEquals(contents.length(), reader.getPosition());
+      }
+      assertEquals(lines, actual, "buffer size " + bufferSize);
+    }
+  }
+
+  @Test
+  void seeksMidLine() throws IOException {
+    Path log = writeLog("line 1\nline 2\n");
+    try (LogLineReader reader = new LogLineReader(log.toFile())) {
+      reader.seek(9);
+      assertLine("ne 2", 9, reader);
+      reader.seek(0);
+      assertLine("line 1", 0, reader);
+      reader.seek(100);
+      assertNull(reader.readLine(true));
+    }
+  }
+
+  @Test
+  void decodesLatin1() throws IOException {
+    Path log = directory.resolve("log.txt");
+    Files.write(log, new byte[] {'a', (byte) 0xe9, '\n'});
+    try (LogLineReader reader = new LogLineReader(log.toFile())) {
+      CharSequence line = reader.readLine();
+      assertEquals('\u00e9', line.charAt(1));
+      assertEquals("a\u00e9", line.toString());
+    }
+  }
+
+  private void assertLine(String expected, long lineStart, LogLineReader reader)
+      throws IOException {
+    assertEquals(expected, reader.readLine().toString());
+    assertEquals(lineStart, reader.getLineStart());
+  }
+
+  private Path writeLog(String contents) throws IOException {
+    Path log = directory.resolve("log.txt");
+    Files.writeString(log, contents, StandardCharsets.ISO_8859_1);
+    return log;
+  }
+
+  private void append(Path log, String contents) throws IOException {
+    Files.writeString(
+        log, contents, StandardCharsets.ISO_8859_1, StandardOpenOption.APPEND);
+  }
+
+}
@@ -6,6 +6,8 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import com.edmazur.eqlp.EqLogEvent;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -25,6 +27,11 @@ class LogSeekerTest {
 
   private static final String BASIC_LOG = "basic-log.txt";
   private static final String JUNKY_LOG = "junky-log.txt";
+  // Lines 2 and 4 are longer than the read buffer sizes some seekers used to
+  // assume lines fit in.
+  private static final String LONG_LINE_LOG = "long-line-log.txt";
+  private static final String LONG_LINE =
+      "Stanvern says out of character, '" + "x".repeat(10000) + "'";
 
   private static final ZoneId TIMEZONE = ZoneId.of("America/New_York");
 
@@ -106,6 +113,47 @@ class LogSeekerTest {
                     EqLogEvent.TIMESTAMP_FORMAT,
                     TIMEZONE);
               }
+            }),
+
+        Arguments.of(
+            "Binary search",
+            new LogSeekerProvider() {
+              @Override
+              public LogSeeker get(String fileName) {
+                return new BinarySearchLogSeeker(
+                    getFile(fileName),
+                    EqLogEvent.LINE_PATTERN,
+                    EqLogEvent.TIMESTAMP_FORMAT,
+                    TIMEZONE);
+              }
+            }),
+
+        Arguments.of(
+            "Interpolation search",
+            new LogSeekerProvider() {
+              @Override
+              public LogSeeker get(String fileName) {
+                return new InterpolationSearchLogSeeker(
+                    getFile(fileName),
+                    EqLogEvent.LINE_PATTERN,
+                    EqLogEvent.TIMESTAMP_FORMAT,
+                    TIMEZONE);
+              }
+            }),
+
+        Arguments.of(
+            "Indexed search with indexInterval=PT10S",
+            new LogSeekerProvider() {
+              @Override
+              public LogSeeker get(String fileName) {
+                return new IndexedLogSeeker(
+                    getFile(fileName),
+                    EqLogEvent.LINE_PATTERN,
+                    EqLogEvent.TIMESTAMP_FORMAT,
+                    TIMEZONE,
+                    getTemporaryIndex(),
+                    Duration.ofSeconds(10));
+              }
             })
 
         );
@@ -117,6 +165,16 @@ class LogSeekerTest {
         "/home/mazur/git/everquest-log-parser/src/test/resources/" + fileName);
   }
 
+  private static File getTemporaryIndex() {
+    try {
+      File index = File.createTempFile("log-seeker-test", ".idx");
+      index.deleteOnExit();
+      return index;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @ParameterizedTest
   @MethodSource("provideLogSeekerProviders")
   void readBasicWayBeforeFirstLine(
@@ -377,6 +435,39 @@ class LogSeekerTest {
         logSeeker.seek(getInstant("Fri Oct 25 00:00:51 2019")).readLine());
   }
 
+  @ParameterizedTest
+  @MethodSource("provideLogSeekerProviders")
+  void readLongLineRightAtLongLine(
+      String logSeekerName,
+      LogSeekerProvider logSeekerProvider) throws IOException {
+    LogSeeker logSeeker = logSeekerProvider.get(LONG_LINE_LOG);
+    assertEquals(
+        "[Fri Oct 25 00:00:10 2019] " + LONG_LINE,
+        logSeeker.seek(getInstant("Fri Oct 25 00:00:10 2019")).readLine());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideLogSeekerProviders")
+  void readLongLineRightAfterLongLine(
+      String logSeekerName,
+      LogSeekerProvider logSeekerProvider) throws IOException {
+    LogSeeker logSeeker = logSeekerProvider.get(LONG_LINE_LOG);
+    assertEquals(
+        "[Fri Oct 25 00:00:20 2019] Stanvern says out of character, 'line 3'",
+        logSeeker.seek(getInstant("Fri Oct 25 00:00:11 2019")).readLine());
+  }
+
+  @ParameterizedTest
+  @MethodSource("provideLogSeekerProviders")
+  void readLongLineRightAfterSecondLongLine(
+      String logSeekerName,
+      LogSeekerProvider logSeekerProvider) throws IOException {
+    LogSeeker logSeeker = logSeekerProvider.get(LONG_LINE_LOG);
+    assertEquals(
+        "[Fri Oct 25 00:00:40 2019] Stanvern says out of character, 'line 5'",
+        logSeeker.seek(getInstant("Fri Oct 25 00:00:31 2019")).readLine());
+  }
+
   private Instant getInstant(String timestamp) {
     return LocalDateTime
         .parse(timestamp, EqLogEvent.TIMESTAMP_FORMAT)
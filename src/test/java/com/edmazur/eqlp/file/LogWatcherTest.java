@@ -0,0 +1,71 @@
+package com.edmazur.eqlp.file;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogWatcherTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void idleLogDoesNotWakeWatcher() throws Exception {
+    Path log = Files.writeString(directory.resolve("eqlog_Stanvern_P1999Green.txt"), "");
+    try (LogWatcher logWatcher = LogWatcher.create(log)) {
+      CountDownLatch woken = new CountDownLatch(1);
+      Thread thread = new Thread(() -> {
+        try {
+          logWatcher.await();
+          woken.countDown();
+        } catch (InterruptedException e) {
+          // Stopped by the test.
+        }
+      });
+      thread.start();
+      // Polling would have woken up by now, but change notifications (where
+      // used) shouldn't.
+      boolean wokenWhileIdle = woken.await(500, TimeUnit.MILLISECONDS);
+      if (!(logWatcher instanceof PollingLogWatcher)) {
+        assertFalse(wokenWhileIdle);
+      }
+      Files.writeString(log, "[Fri Oct 25 18:58:06 2019] line 1\n", StandardOpenOption.APPEND);
+      assertTrue(wokenWhileIdle || woken.await(5, TimeUnit.SECONDS));
+      thread.interrupt();
+      thread.join();
+    }
+  }
+
+  @Test
+  void otherLogsInDirectoryDoNotWakeWatcher() throws IOException, InterruptedException {
+    Path log = Files.writeString(directory.resolve("eqlog_Stanvern_P1999Green.txt"), "");
+    try (LogWatcher logWatcher = LogWatcher.create(log)) {
+      if (logWatcher instanceof PollingLogWatcher) {
+        return;
+      }
+      CountDownLatch woken = new CountDownLatch(1);
+      Thread thread = new Thread(() -> {
+        try {
+          logWatcher.await();
+          woken.countDown();
+        } catch (InterruptedException e) {
+          // Stopped by the test.
+        }
+      });
+      thread.start();
+      Files.writeString(directory.resolve("eqlog_Daox_P1999Green.txt"), "other\n");
+      assertFalse(woken.await(500, TimeUnit.MILLISECONDS));
+      thread.interrupt();
+      thread.join();
+    }
+  }
+
+}
@@ -0,0 +1,122 @@
+package com.edmazur.eqlp.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReverseLogLineReaderTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void readsLinesAndOffsetsBackward() throws IOException {
+    Path log = writeLog("line 1\nline 2\r\n\nline 4\n");
+    try (ReverseLogLineReader reader = new ReverseLogLineReader(log.toFile())) {
+      assertLine("line 4", 16, reader);
+      assertLine("", 15, reader);
+      assertLine("line 2", 7, reader);
+      assertLine("line 1", 0, reader);
+      assertNull(reader.readLine());
+      assertNull(reader.readLine());
+    }
+  }
+
+  @Test
+  void skipsUnterminatedLine() throws IOException {
+    Path log = writeLog("line 1\nline 2\nline");
+    try (ReverseLogLineReader reader = new ReverseLogLineReader(log.toFile(), 2)) {
+      assertLine("line 2", 7, reader);
+      assertLine("line 1", 0, reader);
+      assertNull(reader.readLine());
+    }
+  }
+
+  @Test
+  void emptyLogs() throws IOException {
+    for (String contents : List.of("", "unterminated", "\n")) {
+      Path log = writeLog(contents);
+      try (ReverseLogLineReader reader = new ReverseLogLineReader(log.toFile(), 4)) {
+        if (contents.equals("\n")) {
+          assertLine("", 0, reader);
+        }
+        assertNull(reader.readLine());
+      }
+    }
+  }
+
+  @Test
+  void readsLinesLongerThanBlock() throws IOException {
+    String longLine = "x".repeat(1000);
+    Path log = writeLog("a\n" + longLine + "\nb\n");
+    try (ReverseLogLineReader reader = new ReverseLogLineReader(log.toFile(), 4)) {
+      assertLine("b", 1003, reader);
+      assertLine(longLine, 2, reader);
+      assertLine("a", 0, reader);
+      assertNull(reader.readLine());
+    }
+  }
+
+  @Test
+  void matchesForwardReader() throws IOException {
+    StringBuilder contents = new StringBuilder();
+    Random random = new Random(0);
+    for (int i = 0; i < 2000; i++) {
+      contents.append("x".repeat(random.nextInt(random.nextInt(10) == 0 ? 300 : 30)));
+      contents.append(random.nextBoolean() ? "\r\n" : "\n");
+    }
+    Path log = writeLog(contents.toString());
+    List<String> expected = new ArrayList<String>();
+    try (LogLineReader reader = new LogLineReader(log.toFile())) {
+      CharSequence line;
+      while ((line = reader.readLine()) != null) {
+        expected.add(reader.getLineStart() + ":" + line);
+      }
+    }
+    Collections.reverse(expected);
+    for (int blockSize : new int[] {1, 7, 64, 64 * 1024}) {
+      List<String> actual = new ArrayList<String>();
+      try (ReverseLogLineReader reader = new ReverseLogLineReader(log.toFile(), blockSize)) {
+        CharSequence line;
+        while ((line = reader.readLine()) != null) {
+          actual.add(reader.getLineStart() + ":" + line);
+        }
+      }
+      assertEquals(expected, actual, "block size " + blockSize);
+    }
+  }
+
+  @Test
+  void decodesLatin1() throws IOException {
+    Path log = directory.resolve("log.txt");
+    Files.write(log, new byte[] {'a', (byte) 0xe9, '\n'});
+    try (ReverseLogLineReader reader = new ReverseLogLineReader(log.toFile())) {
+      CharSequence line = reader.readLine();
+      assertEquals('\u00e9', line.charAt(1));
+      assertEquals("a\u00e9", line.toString());
+    }
+  }
+
+  private void assertLine(String expected, long lineStart, ReverseLogLineReader reader)
+      throws IOException {
+    assertEquals(expected, reader.readLine().toString());
+    assertEquals(lineStart, reader.getLineStart());
+  }
+
+  private Path writeLog(String contents) throws IOException {
+    Path log = directory.resolve("log.txt");
+    Files.writeString(log, contents, StandardCharsets.ISO_8859_1);
+    return log;
+  }
+
+}
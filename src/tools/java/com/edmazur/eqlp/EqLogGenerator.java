@@ -0,0 +1,285 @@
+package com.edmazur.eqlp;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes a synthetic log for scale testing, e.g. to reproduce benchmarks on
+ * large logs without real game data. Optionally keeps appending to it in real
+ * time afterwards to simulate an active client.
+ *
+ * <p>Usage: EqLogGenerator eqInstallDirectory server character size
+ * [linesPerSecond]
+ *
+ * <p>size accepts suffixes like 500KB, 750MB or 10GB. A size of 0 leaves an
+ * existing log as is and only appends, so needs a linesPerSecond.
+ *
+ * <p>The JMH benchmarks also use this (see SyntheticLog), so that they read
+ * the same mix of lines.
+ */
+public class EqLogGenerator {
+
+  // Log timestamps are always in English.
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+      EqLogEvent.TIMESTAMP_FORMAT.withLocale(Locale.US);
+
+  private static final String USAGE =
+      "Usage: EqLogGenerator eqInstallDirectory server character size [linesPerSecond]";
+
+  static final LocalDateTime HISTORY_START = LocalDateTime.of(2019, 10, 25, 18, 0);
+
+  private static final String[] NAMES = {
+    "Stanvern", "Daox", "Telin", "Ezmerelda", "Ragefire", "Snowfang",
+  };
+  private static final String[] MOBS = {
+    "a gnoll", "a decaying skeleton", "a fire beetle", "Lord Nagafen",
+    "an orc pawn", "a griffawn",
+  };
+  private static final String[] ITEMS = {
+    "Bone Chip", "Cloth Cap", "Fungi Covered Scale Tunic", "Jade Shard",
+    "Words of Acquisition (Beza)",
+  };
+  private static final String[] ZONES = {
+    "East Commonlands", "Plane of Sky", "Nagafen's Lair", "North Qeynos",
+  };
+  private static final String[] CHAT = {
+    "hi", "inc", "lfg", "anyone selling a bone chip?", "brb",
+    "can someone port me to the Karanas please, will tip",
+    "WTS Fungi Covered Scale Tunic 1.5k, Jade Shard 30p, pst with offers",
+  };
+
+  private final Random random;
+  private final OutputStream out;
+  // Header for the second currently being written, cached since lines mostly
+  // come in bursts sharing a second.
+  private LocalDateTime headerTimestamp = null;
+  private byte[] header;
+  private long written = 0;
+  private long linesWritten = 0;
+
+  /**
+   * Creates a generator writing to out. Given the same random seed, it
+   * writes the same history.
+   */
+  EqLogGenerator(Random random, OutputStream out) {
+    this.random = random;
+    this.out = out;
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 4 || args.length > 5) {
+      System.err.println(USAGE);
+      return;
+    }
+    final Path eqInstallDirectory = Paths.get(args[0]);
+    final String server = args[1];
+    final String character = args[2];
+    final long size;
+    final double linesPerSecond;
+    try {
+      size = parseSize(args[3]);
+      linesPerSecond = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+    } catch (NumberFormatException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      return;
+    }
+    if (size < 0 || linesPerSecond < 0 || (size == 0 && linesPerSecond == 0)) {
+      System.err.println("size and linesPerSecond can't be negative, "
+          + "and at least one must be positive.");
+      System.err.println(USAGE);
+      return;
+    }
+
+    Path logsDirectory = eqInstallDirectory.resolve(EqLog.LOGS_DIRECTORY);
+    Files.createDirectories(logsDirectory);
+    Path log = logsDirectory.resolve(
+        new EqLogSource(server, character).getLogFileName());
+    Random random = new Random();
+
+    if (size > 0) {
+      try (OutputStream out = new BufferedOutputStream(
+          Files.newOutputStream(log), 1024 * 1024)) {
+        new EqLogGenerator(random, out).writeHistory(size);
+      }
+      System.out.println(String.format("Wrote %d bytes to %s", Files.size(log), log));
+    }
+
+    if (linesPerSecond > 0) {
+      System.out.println(String.format("Appending %s lines/sec to %s", linesPerSecond, log));
+      try (OutputStream out = Files.newOutputStream(
+          log, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+        new EqLogGenerator(random, out).appendLive(linesPerSecond);
+      }
+    }
+  }
+
+  /**
+   * Writes at least size bytes of history starting at HISTORY_START, ending
+   * well before now.
+   *
+   * @return The timestamp of the last line written, or null if every line
+   *     written was blank or malformed.
+   */
+  LocalDateTime writeHistory(long size) throws IOException {
+    return writeHistory(size, Long.MAX_VALUE);
+  }
+
+  /**
+   * Like writeHistory(long), but also stops once at least lines lines
+   * (including blank and malformed ones) have been written.
+   */
+  LocalDateTime writeHistory(long size, long lines) throws IOException {
+    LocalDateTime timestamp = HISTORY_START;
+    while (written < size && linesWritten < lines) {
+      int roll = random.nextInt(1000);
+      if (roll == 0) {
+        // Logged off for a while.
+        timestamp = timestamp.plusDays(1 + random.nextInt(3)).plusMinutes(random.nextInt(600));
+      } else if (roll < 20) {
+        // Combat: a burst of lines within a few seconds.
+        int burst = 20 + random.nextInt(200);
+        for (int i = 0; i < burst; i++) {
+          writeLine(timestamp, combatPayload());
+          if (random.nextInt(50) == 0) {
+            timestamp = timestamp.plusSeconds(1);
+          }
+        }
+      } else {
+        writeLine(timestamp, payload());
+      }
+      timestamp = timestamp.plusSeconds(random.nextInt(3) == 0 ? random.nextInt(5) : 0);
+    }
+    return headerTimestamp;
+  }
+
+  // Appends lines stamped with the current time until interrupted.
+  private void appendLive(double linesPerSecond) throws IOException, InterruptedException {
+    long nanosPerLine = (long) (1_000_000_000 / linesPerSecond);
+    long nextLineNanos = System.nanoTime();
+    while (!Thread.currentThread().isInterrupted()) {
+      long now = System.nanoTime();
+      // Catches up in one write if the loop fell behind, as bursts would.
+      while (nextLineNanos <= now) {
+        writeLine(LocalDateTime.now(), payload());
+        nextLineNanos += nanosPerLine;
+      }
+      out.flush();
+      long sleepNanos = nextLineNanos - System.nanoTime();
+      if (sleepNanos > 0) {
+        Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+      }
+    }
+  }
+
+  private void writeLine(LocalDateTime timestamp, String payload) throws IOException {
+    linesWritten++;
+    int roll = random.nextInt(500);
+    if (roll == 0) {
+      out.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+      written += 2;
+      return;
+    }
+    if (roll == 1) {
+      // Seen in real logs when the client crashes mid-write.
+      String malformed = "[" + TIMESTAMP_FORMAT.format(timestamp).substring(0, 9) + "\r\n";
+      out.write(malformed.getBytes(StandardCharsets.ISO_8859_1));
+      written += malformed.length();
+      return;
+    }
+    if (!timestamp.equals(headerTimestamp)) {
+      headerTimestamp = timestamp;
+      header = ("[" + TIMESTAMP_FORMAT.format(timestamp) + "] ")
+          .getBytes(StandardCharsets.ISO_8859_1);
+    }
+    byte[] payloadBytes = (payload + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    out.write(header);
+    out.write(payloadBytes);
+    written += header.length + payloadBytes.length;
+  }
+
+  // Mostly short lines, with chat in the middle and rare very long spam.
+  private String payload() {
+    int roll = random.nextInt(1000);
+    if (roll == 0) {
+      return epicSpam();
+    } else if (roll < 300) {
+      return combatPayload();
+    } else if (roll < 600) {
+      return pick(NAMES) + " " + pick("says", "shouts", "says out of character",
+          "auctions", "tells the guild") + ", '" + pick(CHAT) + "'";
+    } else if (roll < 700) {
+      return pick(NAMES) + " tells you, '" + pick(CHAT) + "'";
+    } else if (roll < 800) {
+      return "--You have looted a " + pick(ITEMS) + ".--";
+    } else if (roll < 850) {
+      return "You have entered " + pick(ZONES) + ".";
+    } else if (roll < 950) {
+      return pick(NAMES) + " begins to cast a spell.";
+    } else {
+      return "Your faction standing with " + pick("Guards of Qeynos", "Deepmuses")
+          + " got " + pick("better", "worse") + ".";
+    }
+  }
+
+  private String combatPayload() {
+    int roll = random.nextInt(4);
+    if (roll == 0) {
+      return "You " + pick("hit", "slash", "crush", "pierce") + " " + pick(MOBS)
+          + " for " + (1 + random.nextInt(60)) + " points of damage.";
+    } else if (roll == 1) {
+      return capitalize(pick(MOBS)) + " tries to hit YOU, but misses!";
+    } else if (roll == 2) {
+      return capitalize(pick(MOBS)) + " hits YOU for " + (1 + random.nextInt(200))
+          + " points of damage.";
+    } else {
+      return capitalize(pick(MOBS)) + " was hit by non-melee for "
+          + (1 + random.nextInt(500)) + " points of damage.";
+    }
+  }
+
+  // Like the 802 character Telin Darkforest epic spam.
+  private String epicSpam() {
+    StringBuilder sb = new StringBuilder("Telin Darkforest shouts, '");
+    while (sb.length() < 800) {
+      sb.append(pick(CHAT)).append(' ');
+    }
+    sb.setLength(800);
+    return sb.append("'").toString();
+  }
+
+  private String pick(String... options) {
+    return options[random.nextInt(options.length)];
+  }
+
+  private static String capitalize(String string) {
+    return Character.toUpperCase(string.charAt(0)) + string.substring(1);
+  }
+
+  // Throws NumberFormatException if size isn't a number with an optional
+  // suffix.
+  private static long parseSize(String size) {
+    String upper = size.toUpperCase(Locale.US);
+    long multiplier = 1;
+    if (upper.endsWith("KB")) {
+      multiplier = 1024;
+    } else if (upper.endsWith("MB")) {
+      multiplier = 1024 * 1024;
+    } else if (upper.endsWith("GB")) {
+      multiplier = 1024 * 1024 * 1024;
+    }
+    String digits = multiplier == 1 ? upper : upper.substring(0, upper.length() - 2);
+    return Long.parseLong(digits) * multiplier;
+  }
+
+}
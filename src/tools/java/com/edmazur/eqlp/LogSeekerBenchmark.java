@@ -6,6 +6,8 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 
+import com.edmazur.eqlp.file.BinarySearchLogSeeker;
+import com.edmazur.eqlp.file.InterpolationSearchLogSeeker;
 import com.edmazur.eqlp.file.JumpSearchLogSeeker;
 import com.edmazur.eqlp.file.LinearSearchLogSeeker;
 import com.edmazur.eqlp.file.LogSeeker;
@@ -31,6 +33,22 @@ public class LogSeekerBenchmark {
 
   private static void runBenchmarks(Instant seekStart, String benchmarkName)
       throws IOException {
+    runBenchmark(
+        new InterpolationSearchLogSeeker(
+            file,
+            EqLogEvent.LINE_PATTERN,
+            EqLogEvent.TIMESTAMP_FORMAT,
+            ZoneId.systemDefault()),
+        seekStart,
+        benchmarkName);
+    runBenchmark(
+        new BinarySearchLogSeeker(
+            file,
+            EqLogEvent.LINE_PATTERN,
+            EqLogEvent.TIMESTAMP_FORMAT,
+            ZoneId.systemDefault()),
+        seekStart,
+        benchmarkName);
     runBenchmark(
         new JumpSearchLogSeeker(
             file,
@@ -55,7 +73,7 @@ public class LogSeekerBenchmark {
       String benchmarkName)
           throws IOException {
     Instant start = Instant.now();
-    logSeeker.seek(seekStart);
+    logSeeker.seekPosition(seekStart);
     Instant end = Instant.now();
     System.out.println(String.format("%s - [%s] benchmark for [%s] strategy",
         getHumanReadableFormat(Duration.between(start, end)),